@@ -24,9 +24,10 @@ interface CommentRepository extends JpaRepository<Comment, String> {
       "SELECT DISTINCT pc FROM Comment pc LEFT JOIN FETCH pc.replies r LEFT JOIN FETCH pc.parent LEFT JOIN FETCH pc.user u WHERE pc.post.id = :postId")
   List<Comment> findAllCommentsByPostId(@Param("postId") String postId);
 
+  // Scalar columns only, so neither the comment's nor the author's EAGER associations are loaded
   @Query(
-      "SELECT DISTINCT pc FROM Comment pc LEFT JOIN FETCH pc.replies r LEFT JOIN FETCH pc.parent LEFT JOIN FETCH pc.user u WHERE pc.post.id = :postId AND pc.status = :status")
-  List<Comment> findAllCommentsByPostIdAndStatus(
+      "SELECT c.id, c.content, c.user.id, p.id, c.status, c.commentedAt FROM Comment c LEFT JOIN c.parent p WHERE c.post.id = :postId AND c.status = :status ORDER BY c.commentedAt")
+  List<Object[]> findCommentRowsByPostIdAndStatus(
       @Param("postId") String postId, @Param("status") Integer status);
 
   @Query(
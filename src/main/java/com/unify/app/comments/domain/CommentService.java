@@ -3,9 +3,15 @@ package com.unify.app.comments.domain;
 import com.unify.app.notifications.domain.NotificationService;
 import com.unify.app.notifications.domain.models.NotificationType;
 import com.unify.app.posts.domain.Post;
+import com.unify.app.posts.domain.PostCounterService;
 import com.unify.app.posts.domain.PostService;
 import com.unify.app.users.domain.User;
+import com.unify.app.users.domain.UserProfileService;
 import com.unify.app.users.domain.UserService;
+import com.unify.app.users.domain.models.UserProfileDto;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -23,8 +29,10 @@ public class CommentService {
 
   private final CommentRepository commentRepository;
   private final UserService userService;
+  private final UserProfileService userProfileService;
   private final PostService postService;
   private final NotificationService notificationService; // ✅ NEW: Notification integration
+  private final PostCounterService postCounterService;
 
   /**
    * Save a comment to a post.
@@ -74,6 +82,7 @@ public class CommentService {
               .build();
 
       Comment savedComment = commentRepository.save(newComment);
+      postCounterService.recordComment(postId, 1);
 
       // ✅ NEW: Send notification for comment AFTER saving to get the real comment ID
       sendCommentNotification(userId, post, savedComment, parent);
@@ -149,29 +158,20 @@ public class CommentService {
         return List.of();
       }
 
-      // Fetch all comments with status 0 for the post
-      List<Comment> allComments = commentRepository.findAllCommentsByPostIdAndStatus(postId, 0);
+      // Visible comments as scalar rows: id, content, userId, parentId, status, commentedAt
+      List<Object[]> rows = commentRepository.findCommentRowsByPostIdAndStatus(postId, 0);
+      Map<String, UserProfileDto> authors =
+          userProfileService.findByIds(
+              rows.stream().map(row -> (String) row[2]).collect(Collectors.toSet()));
 
-      // Extract root (top-level) comments
-      List<Comment> rootComments =
-          allComments.stream().filter(c -> c.getParent() == null).collect(Collectors.toList());
-
-      // Map each comment ID to its Comment object
-      Map<String, Comment> commentMap =
-          allComments.stream().collect(Collectors.toMap(Comment::getId, c -> c));
-
-      // Set replies for each comment
-      for (Comment comment : allComments) {
-        if (comment.getParent() != null) {
-          Comment parent = commentMap.get(comment.getParent().getId());
-          if (parent != null) {
-            parent.getReplies().add(comment); // assuming `replies` is initialized
-          }
-        }
+      // Group replies under their parent; replies of hidden comments are left out with them
+      Map<String, List<Object[]>> rowsByParent = new HashMap<>();
+      for (Object[] row : rows) {
+        rowsByParent.computeIfAbsent((String) row[3], k -> new ArrayList<>()).add(row);
       }
 
-      // Convert only root comments to DTOs
-      return rootComments.stream().map(this::convertToDto).collect(Collectors.toList());
+      return toCommentDtos(
+          postId, rowsByParent.getOrDefault(null, List.of()), rowsByParent, authors);
     } catch (Exception e) {
       log.error("Failed to get comments for post {}: {}", postId, e.getMessage(), e);
       return List.of();
@@ -208,8 +208,30 @@ public class CommentService {
    * @param comment Comment entity
    * @return CommentDTO with nested replies
    */
-  private CommentDto convertToDto(Comment comment) {
-    return new CommentDto(comment);
+  private List<CommentDto> toCommentDtos(
+      String postId,
+      List<Object[]> rows,
+      Map<String, List<Object[]>> rowsByParent,
+      Map<String, UserProfileDto> authors) {
+    List<CommentDto> comments = new ArrayList<>(rows.size());
+    for (Object[] row : rows) {
+      String id = (String) row[0];
+      UserProfileDto author = authors.get((String) row[2]);
+      comments.add(
+          new CommentDto(
+              id,
+              (String) row[1],
+              (String) row[2],
+              postId,
+              author != null ? author.username() : null,
+              author != null ? author.avatarUrl() : null,
+              (String) row[3],
+              (Integer) row[4],
+              (LocalDateTime) row[5],
+              toCommentDtos(
+                  postId, rowsByParent.getOrDefault(id, List.of()), rowsByParent, authors)));
+    }
+    return comments;
   }
 
   /**
@@ -228,11 +250,30 @@ public class CommentService {
         log.warn("Deleting hidden comment with ID: {}", commentId);
       }
 
+      // Replies are removed with their parent, so the whole visible thread leaves the count
+      long visibleInThread = countVisibleInThread(comment);
       commentRepository.delete(comment);
+      postCounterService.recordComment(comment.getPost().getId(), -visibleInThread);
       log.info("Deleted comment with ID: {}", commentId);
     } catch (Exception e) {
       log.error("Failed to delete comment {}: {}", commentId, e.getMessage(), e);
       throw new RuntimeException("Failed to delete comment", e);
     }
   }
+
+  /**
+   * Count the visible comments (status 0) in a thread, the comment itself included.
+   *
+   * @param comment Root of the thread
+   * @return Number of visible comments in the thread
+   */
+  private long countVisibleInThread(Comment comment) {
+    long count = comment.getStatus() == 0 ? 1 : 0;
+    if (comment.getReplies() != null) {
+      for (Comment reply : comment.getReplies()) {
+        count += countVisibleInThread(reply);
+      }
+    }
+    return count;
+  }
 }
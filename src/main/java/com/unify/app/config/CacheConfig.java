@@ -3,15 +3,26 @@ package com.unify.app.config;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.unify.app.messages.domain.models.MessagePage;
+import com.unify.app.posts.domain.models.PostFeedResponse;
+import com.unify.app.users.domain.models.UserDto;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Duration;
 import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
@@ -35,8 +46,14 @@ public class CacheConfig implements BeanClassLoaderAware {
   }
 
   @Bean
-  RedisCacheManager cacheManager(
-      RedisConnectionFactory redisConnectionFactory, RedisSerializer<Object> serializer) {
+  TwoLevelCacheManager cacheManager(
+      RedisConnectionFactory redisConnectionFactory,
+      RedisSerializer<Object> serializer,
+      StringRedisTemplate redisTemplate,
+      LocalCacheProperties localCacheProperties,
+      ObjectProvider<MeterRegistry> meterRegistry,
+      @Value("${unify.cache.compression-threshold-bytes:1024}") int compressionThreshold,
+      @Value("${unify.feed.cache-ttl-in-seconds:120}") long feedCacheTtlInSeconds) {
     RedisCacheConfiguration cacheConfiguration =
         RedisCacheConfiguration.defaultCacheConfig()
             .serializeKeysWith(
@@ -48,10 +65,64 @@ public class CacheConfig implements BeanClassLoaderAware {
             .disableCachingNullValues() // ✅ OPTIMIZED: Don't cache null values
             .prefixCacheNameWith("unify:"); // ✅ OPTIMIZED: Add prefix for better organization
 
-    return RedisCacheManager.builder(redisConnectionFactory)
-        .cacheDefaults(cacheConfiguration)
-        .transactionAware() // ✅ OPTIMIZED: Enable transaction awareness
-        .build();
+    RedisCacheManager redisCacheManager =
+        RedisCacheManager.builder(redisConnectionFactory)
+            .cacheDefaults(cacheConfiguration)
+            // Caches with a single value type skip the class names and use the binary format
+            .withCacheConfiguration(
+                "user",
+                compact(
+                    cacheConfiguration,
+                    TypeFactory.defaultInstance().constructType(UserDto.class),
+                    1,
+                    compressionThreshold))
+            .withCacheConfiguration(
+                "messages",
+                compact(
+                    cacheConfiguration,
+                    TypeFactory.defaultInstance().constructType(MessagePage.class),
+                    2,
+                    compressionThreshold))
+            // Keys carry the user's feed version, so the TTL only bounds staleness of counters
+            // and of posts from pull authors
+            .withCacheConfiguration(
+                "personalizedFeedCache",
+                compact(
+                    cacheConfiguration.entryTtl(Duration.ofSeconds(feedCacheTtlInSeconds)),
+                    TypeFactory.defaultInstance().constructType(PostFeedResponse.class),
+                    1,
+                    compressionThreshold))
+            .enableStatistics()
+            .build();
+    redisCacheManager.initializeCaches();
+
+    // Transactions are handled on the two-level caches so both tiers commit together
+    TwoLevelCacheManager cacheManager =
+        new TwoLevelCacheManager(
+            redisCacheManager, redisTemplate, localCacheProperties, meterRegistry.getIfAvailable());
+    cacheManager.setTransactionAware(true);
+    return cacheManager;
+  }
+
+  // Shared by cache invalidation and any other pub/sub listener, e.g. presence changes
+  @Bean
+  RedisMessageListenerContainer redisMessageListenerContainer(
+      RedisConnectionFactory redisConnectionFactory, TwoLevelCacheManager cacheManager) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(redisConnectionFactory);
+    container.addMessageListener(
+        cacheManager, new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+    return container;
+  }
+
+  private static RedisCacheConfiguration compact(
+      RedisCacheConfiguration defaults,
+      JavaType type,
+      int schemaVersion,
+      int compressionThreshold) {
+    return defaults.serializeValuesWith(
+        RedisSerializationContext.SerializationPair.fromSerializer(
+            new CompactCacheSerializer(type, schemaVersion, compressionThreshold)));
   }
 
   private ObjectMapper objectMapper() {
@@ -0,0 +1,155 @@
+package com.unify.app.config;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Binary cache value format for caches whose value type is known up front. Values are written as
+ * Smile (binary JSON) against a fixed {@link JavaType}, so no class names are embedded, behind a
+ * three byte header: a magic byte, the schema version and a flags byte. Payloads at or above the
+ * compression threshold are deflated when that makes them smaller.
+ *
+ * <p>Entries with another magic byte or schema version, such as ones written before the value type
+ * changed, read as {@code null} and are therefore treated as cache misses.
+ */
+public class CompactCacheSerializer implements RedisSerializer<Object> {
+
+  private static final byte MAGIC = (byte) 0xCB;
+  private static final byte FLAG_DEFLATED = 0x01;
+  private static final int HEADER_SIZE = 3;
+
+  private static final ObjectMapper MAPPER =
+      SmileMapper.builder()
+          .annotationIntrospector(new NoPolymorphicTypesIntrospector())
+          .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+          .addModule(new JavaTimeModule())
+          .build();
+
+  private final JavaType type;
+  private final byte schemaVersion;
+  private final int compressionThreshold;
+
+  /**
+   * @param type the value type of the cache
+   * @param schemaVersion bump whenever the value type changes shape
+   * @param compressionThreshold payload size in bytes from which to deflate; 0 or less disables it
+   */
+  public CompactCacheSerializer(JavaType type, int schemaVersion, int compressionThreshold) {
+    this.type = type;
+    this.schemaVersion = (byte) schemaVersion;
+    this.compressionThreshold = compressionThreshold;
+  }
+
+  @Override
+  public byte[] serialize(Object value) throws SerializationException {
+    if (value == null) {
+      return null;
+    }
+
+    byte[] body;
+    try {
+      body = MAPPER.writerFor(type).writeValueAsBytes(value);
+    } catch (IOException e) {
+      throw new SerializationException("Could not write compact cache value", e);
+    }
+
+    byte flags = 0;
+    if (compressionThreshold > 0 && body.length >= compressionThreshold) {
+      byte[] deflated = deflate(body);
+      if (deflated.length < body.length) {
+        body = deflated;
+        flags |= FLAG_DEFLATED;
+      }
+    }
+
+    byte[] bytes = new byte[HEADER_SIZE + body.length];
+    bytes[0] = MAGIC;
+    bytes[1] = schemaVersion;
+    bytes[2] = flags;
+    System.arraycopy(body, 0, bytes, HEADER_SIZE, body.length);
+    return bytes;
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) throws SerializationException {
+    if (bytes == null
+        || bytes.length < HEADER_SIZE
+        || bytes[0] != MAGIC
+        || bytes[1] != schemaVersion) {
+      return null;
+    }
+
+    byte[] body = Arrays.copyOfRange(bytes, HEADER_SIZE, bytes.length);
+    if ((bytes[2] & FLAG_DEFLATED) != 0) {
+      body = inflate(body);
+    }
+
+    try {
+      return MAPPER.readValue(body, type);
+    } catch (IOException e) {
+      throw new SerializationException("Could not read compact cache value", e);
+    }
+  }
+
+  private static byte[] deflate(byte[] input) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(input);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2);
+      byte[] buffer = new byte[4096];
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] input) {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(input);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 4);
+      byte[] buffer = new byte[4096];
+      while (!inflater.finished()) {
+        int read = inflater.inflate(buffer);
+        if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new SerializationException("Truncated compact cache value");
+        }
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    } catch (DataFormatException e) {
+      throw new SerializationException("Corrupt compact cache value", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  // The value type is fixed per cache, so @JsonTypeInfo on DTOs would only add class names
+  private static class NoPolymorphicTypesIntrospector extends JacksonAnnotationIntrospector {
+
+    @Override
+    protected TypeResolverBuilder<?> _findTypeResolver(
+        MapperConfig<?> config, Annotated ann, JavaType baseType) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.unify.app.config;
+
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Caffeine specs for the in-process L1 tier of {@link TwoLevelCacheManager}, e.g. {@code
+ * maximumSize=10000,expireAfterWrite=2m}. Caches without their own spec use {@code defaultSpec}.
+ */
+@ConfigurationProperties(prefix = "unify.cache.local")
+public record LocalCacheProperties(
+    @DefaultValue("maximumSize=10000,expireAfterWrite=60s") String defaultSpec,
+    Map<String, String> specs) {
+
+  String specFor(String cacheName) {
+    if (specs == null) {
+      return defaultSpec;
+    }
+    return specs.getOrDefault(cacheName, defaultSpec);
+  }
+}
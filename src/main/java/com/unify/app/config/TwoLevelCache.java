@@ -0,0 +1,142 @@
+package com.unify.app.config;
+
+import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.lang.NonNull;
+
+/**
+ * A Caffeine L1 in front of a Redis L2. Reads try the local tier first and fill it from Redis on a
+ * miss. Writes and evictions go to Redis, drop the local entry and are announced to the other nodes
+ * so they drop theirs. Local keys are the key's string form, the same form Redis and the
+ * invalidation messages use.
+ */
+class TwoLevelCache implements Cache {
+
+  private final String name;
+  private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+  private final Cache remote;
+  // Called with (cacheName, key) after a change; a null key means the whole cache was cleared
+  private final BiConsumer<String, String> invalidationPublisher;
+
+  TwoLevelCache(
+      String name,
+      com.github.benmanes.caffeine.cache.Cache<String, Object> local,
+      Cache remote,
+      BiConsumer<String, String> invalidationPublisher) {
+    this.name = name;
+    this.local = local;
+    this.remote = remote;
+    this.invalidationPublisher = invalidationPublisher;
+  }
+
+  @Override
+  @NonNull
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  @NonNull
+  public Object getNativeCache() {
+    return local;
+  }
+
+  @Override
+  public ValueWrapper get(@NonNull Object key) {
+    String localKey = localKey(key);
+    Object value = local.getIfPresent(localKey);
+    if (value != null) {
+      return new SimpleValueWrapper(value);
+    }
+
+    ValueWrapper wrapper = remote.get(key);
+    if (wrapper != null && wrapper.get() != null) {
+      local.put(localKey, wrapper.get());
+    }
+    return wrapper;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(@NonNull Object key, Class<T> type) {
+    ValueWrapper wrapper = get(key);
+    Object value = wrapper != null ? wrapper.get() : null;
+    if (value != null && type != null && !type.isInstance(value)) {
+      throw new IllegalStateException(
+          "Cached value is not of required type [" + type.getName() + "]: " + value);
+    }
+    return (T) value;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+    return (T) local.get(localKey(key), k -> remote.get(key, valueLoader));
+  }
+
+  @Override
+  public void put(@NonNull Object key, Object value) {
+    remote.put(key, value);
+    if (value != null) {
+      local.put(localKey(key), value);
+    } else {
+      local.invalidate(localKey(key));
+    }
+    invalidationPublisher.accept(name, localKey(key));
+  }
+
+  @Override
+  public ValueWrapper putIfAbsent(@NonNull Object key, Object value) {
+    ValueWrapper existing = remote.putIfAbsent(key, value);
+    local.invalidate(localKey(key));
+    if (existing == null) {
+      invalidationPublisher.accept(name, localKey(key));
+    }
+    return existing;
+  }
+
+  @Override
+  public void evict(@NonNull Object key) {
+    remote.evict(key);
+    local.invalidate(localKey(key));
+    invalidationPublisher.accept(name, localKey(key));
+  }
+
+  @Override
+  public boolean evictIfPresent(@NonNull Object key) {
+    boolean evicted = remote.evictIfPresent(key);
+    local.invalidate(localKey(key));
+    invalidationPublisher.accept(name, localKey(key));
+    return evicted;
+  }
+
+  @Override
+  public void clear() {
+    remote.clear();
+    local.invalidateAll();
+    invalidationPublisher.accept(name, null);
+  }
+
+  @Override
+  public boolean invalidate() {
+    boolean invalidated = remote.invalidate();
+    local.invalidateAll();
+    invalidationPublisher.accept(name, null);
+    return invalidated;
+  }
+
+  /** Drops a local entry after another node changed it; a null key drops everything. */
+  void evictLocal(String key) {
+    if (key == null) {
+      local.invalidateAll();
+    } else {
+      local.invalidate(key);
+    }
+  }
+
+  private static String localKey(Object key) {
+    return String.valueOf(key);
+  }
+}
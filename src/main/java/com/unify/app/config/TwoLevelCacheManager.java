@@ -0,0 +1,106 @@
+package com.unify.app.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.metrics.cache.RedisCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.NonNull;
+
+/**
+ * Builds {@link TwoLevelCache}s on demand: a Caffeine L1 sized and expired per cache by {@link
+ * LocalCacheProperties}, backed by the {@link RedisCacheManager} cache of the same name. Changes
+ * are broadcast on {@link #INVALIDATION_CHANNEL} so every other node drops its local copy. Both
+ * tiers report hit/miss metrics, tagged {@code tier=l1} and {@code tier=l2}.
+ */
+@Slf4j
+public class TwoLevelCacheManager extends AbstractTransactionSupportingCacheManager
+    implements MessageListener {
+
+  public static final String INVALIDATION_CHANNEL = "unify:cache-invalidation";
+
+  private static final String SEPARATOR = "\n";
+
+  private final RedisCacheManager redisCacheManager;
+  private final StringRedisTemplate redisTemplate;
+  private final LocalCacheProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final String nodeId = UUID.randomUUID().toString();
+  private final Map<String, TwoLevelCache> twoLevelCaches = new ConcurrentHashMap<>();
+
+  public TwoLevelCacheManager(
+      RedisCacheManager redisCacheManager,
+      StringRedisTemplate redisTemplate,
+      LocalCacheProperties properties,
+      MeterRegistry meterRegistry) {
+    this.redisCacheManager = redisCacheManager;
+    this.redisTemplate = redisTemplate;
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  @NonNull
+  protected Collection<? extends Cache> loadCaches() {
+    return List.of();
+  }
+
+  @Override
+  protected Cache getMissingCache(@NonNull String name) {
+    Cache remote = redisCacheManager.getCache(name);
+    if (remote == null) {
+      return null;
+    }
+
+    com.github.benmanes.caffeine.cache.Cache<String, Object> local =
+        Caffeine.from(properties.specFor(name)).recordStats().build();
+
+    if (meterRegistry != null) {
+      CaffeineCacheMetrics.monitor(meterRegistry, local, name, "tier", "l1");
+      if (remote instanceof RedisCache redisCache) {
+        new RedisCacheMetrics(redisCache, Tags.of("tier", "l2")).bindTo(meterRegistry);
+      }
+    }
+
+    TwoLevelCache cache = new TwoLevelCache(name, local, remote, this::publishInvalidation);
+    twoLevelCaches.put(name, cache);
+    return cache;
+  }
+
+  @Override
+  public void onMessage(@NonNull Message message, byte[] pattern) {
+    String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 3);
+    if (parts.length < 2 || nodeId.equals(parts[0])) {
+      return;
+    }
+
+    TwoLevelCache cache = twoLevelCaches.get(parts[1]);
+    if (cache != null) {
+      cache.evictLocal(parts.length == 3 ? parts[2] : null);
+    }
+  }
+
+  private void publishInvalidation(String cacheName, String key) {
+    String message = nodeId + SEPARATOR + cacheName + (key != null ? SEPARATOR + key : "");
+    try {
+      redisTemplate.convertAndSend(INVALIDATION_CHANNEL, message);
+    } catch (Exception e) {
+      // Other nodes fall back to the L1 expiry for this entry
+      log.warn("Failed to publish cache invalidation for {}: {}", cacheName, e.getMessage());
+    }
+  }
+}
@@ -215,12 +215,13 @@ public class DashboardRepository {
         entityManager.createQuery(
             "SELECT r.reportedId, MAX(r.reportedAt) as latestReportedAt, COUNT(r) as reportCount, "
                 + "CONCAT(u.firstName, ' ', u.lastName) as userName, u.email as userEmail, "
-                + "(SELECT a.url FROM Avatar a WHERE a.user.id = u.id ORDER BY a.createdAt DESC LIMIT 1) as userAvatar "
+                + "a.url as userAvatar "
                 + "FROM Report r "
                 + "LEFT JOIN User u ON u.id = r.reportedId "
+                + "LEFT JOIN u.currentAvatar a "
                 + "WHERE r.entityType = 'USER' "
                 + "AND r.status = 0 "
-                + "GROUP BY r.reportedId, u.firstName, u.lastName, u.email, u.id "
+                + "GROUP BY r.reportedId, u.firstName, u.lastName, u.email, u.id, a.url "
                 + "ORDER BY latestReportedAt DESC");
     return query.getResultList();
   }
@@ -3,6 +3,7 @@ package com.unify.app.followers.domain;
 import com.unify.app.followers.domain.models.FollowerUserId;
 import com.unify.app.users.domain.User;
 import io.lettuce.core.dynamic.annotation.Param;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -43,4 +44,17 @@ interface FollowRepository extends JpaRepository<Follower, FollowerUserId> {
     // Get all users who follow a given user
     @Query("SELECT fo.userFollower FROM Follower fo WHERE fo.userFollowing.id = :currentUserId")
     List<User> findAllFollowersByUserId(@Param("currentUserId") String currentUserId);
+
+  // IDs only, used for feed fan-out without loading follower entities
+  @Query("SELECT fo.id.followerId FROM Follower fo WHERE fo.id.followingId = :userId")
+  List<String> findFollowerIdsByUserId(@Param("userId") String userId);
+
+  @Query("SELECT fo.id.followingId FROM Follower fo WHERE fo.id.followerId = :userId")
+  List<String> findFollowingIdsByUserId(@Param("userId") String userId);
+
+  @Query(
+      "SELECT fo.id.followingId FROM Follower fo "
+          + "WHERE fo.id.followerId = :userId AND fo.id.followingId IN :candidateIds")
+  List<String> findFollowedIdsAmong(
+      @Param("userId") String userId, @Param("candidateIds") Collection<String> candidateIds);
 }
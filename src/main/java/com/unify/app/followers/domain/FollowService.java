@@ -3,6 +3,7 @@ package com.unify.app.followers.domain;
 import com.unify.app.followers.domain.models.FollowerUserId;
 import com.unify.app.followers.domain.models.FriendshipStatus;
 import com.unify.app.followers.domain.models.FriendshipUserId;
+import com.unify.app.followers.events.FollowChangedEvent;
 import com.unify.app.notifications.domain.NotificationService;
 import com.unify.app.notifications.domain.models.NotificationType;
 import com.unify.app.security.SecurityService;
@@ -12,12 +13,10 @@ import com.unify.app.users.domain.UserService;
 import com.unify.app.users.domain.models.UserDto;
 import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-<<<<<<< HEAD
-=======
-
->>>>>>> a33e15a (feat(media): handle update stream and get list)
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -30,6 +29,7 @@ public class FollowService {
   private final NotificationService notificationService;
   private final FriendshipRepository friendshipRepository;
   private final  UserMapper userMapper;
+  private final ApplicationEventPublisher eventPublisher;
 
   private void updateFriendshipStatus(String userId1, String userId2) {
     // Ensure consistent ordering of user IDs to avoid duplicate friendships
@@ -103,6 +103,8 @@ public class FollowService {
       // Update friendship status after follow
       updateFriendshipStatus(currentUserId, followingId);
 
+      eventPublisher.publishEvent(new FollowChangedEvent(currentUserId, followingId, true));
+
       notificationService.createAndSendNotification(
           currentUserId, followingId, NotificationType.FOLLOW);
       return "Followed successfully!";
@@ -131,6 +133,8 @@ public class FollowService {
       // Update friendship status after unfollow
       updateFriendshipStatus(currentUserId, followingId);
 
+      eventPublisher.publishEvent(new FollowChangedEvent(currentUserId, followingId, false));
+
       return "Unfollowed successfully";
     } catch (Exception e) {
       throw new RuntimeException("Error while unfollowing user: " + e.getMessage());
@@ -166,6 +170,22 @@ public class FollowService {
   public List<User> getFriends(String userId) {
     return userService.getFriendsNative(userId);
   }
+  public List<String> getFollowerIds(String userId) {
+    return followRepository.findFollowerIdsByUserId(userId);
+  }
+
+  public List<String> getFollowingIds(String userId) {
+    return followRepository.findFollowingIdsByUserId(userId);
+  }
+
+  // Which of the given users are followed by userId
+  public List<String> getFollowedIdsAmong(String userId, Collection<String> candidateIds) {
+    if (candidateIds == null || candidateIds.isEmpty()) {
+      return List.of();
+    }
+    return followRepository.findFollowedIdsAmong(userId, candidateIds);
+  }
+
   public List<UserDto> getAllUsersFollowersByUserId(String currentUserId) {
       return  followRepository.findAllFollowersByUserId(currentUserId).stream().map(userMapper::toUserDTO).toList();
   }
@@ -0,0 +1,4 @@
+package com.unify.app.followers.events;
+
+/** Published when {@code followerId} starts or stops following {@code followingId}. */
+public record FollowChangedEvent(String followerId, String followingId, boolean following) {}
@@ -0,0 +1,23 @@
+package com.unify.app.jobs;
+
+import com.unify.app.messages.domain.MessageArchiveService;
+import java.time.Instant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MessageArchiveJob {
+
+  private final MessageArchiveService messageArchiveService;
+
+  @Scheduled(cron = "${unify.jobs.message-archive-cron}")
+  public void archiveMessages() {
+    log.info("Starting message archive job at {}", Instant.now());
+    long archived = messageArchiveService.archive();
+    log.info("Message archive job moved {} messages into buckets", archived);
+  }
+}
@@ -0,0 +1,23 @@
+package com.unify.app.jobs;
+
+import com.unify.app.posts.domain.PostCounterService;
+import java.time.Instant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PostCounterReconciliationJob {
+
+  private final PostCounterService postCounterService;
+
+  @Scheduled(cron = "${unify.jobs.post-counter-reconcile-cron}")
+  public void reconcilePostCounters() {
+    log.info("Starting post counter reconciliation job at {}", Instant.now());
+    int repaired = postCounterService.reconcile();
+    log.info("Post counter reconciliation repaired {} posts", repaired);
+  }
+}
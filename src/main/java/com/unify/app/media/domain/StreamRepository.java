@@ -59,19 +59,11 @@ interface StreamRepository extends JpaRepository<Stream, String> {
                                         u.lastName,
                                         u.username,
                                         CASE WHEN s.id IS NOT NULL THEN true ELSE false END,
-                                        (
-                                            SELECT a.url
-                                            FROM Avatar a
-                                            WHERE a.user.id = u.id
-                                            AND a.createdAt = (
-                                                SELECT MAX(a2.createdAt)
-                                                FROM Avatar a2
-                                                WHERE a2.user.id = u.id
-                                            )
-                                        )
+                                        a.url
                                 )
                                 FROM User u
                                 JOIN Follower f ON f.userFollowing.id = u.id
+                                LEFT JOIN u.currentAvatar a
                                 LEFT JOIN Stream s ON s.user.id = u.id AND s.isLive = true
                                 WHERE f.userFollower.id = :viewerId
                                 ORDER BY
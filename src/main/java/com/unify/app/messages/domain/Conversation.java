@@ -0,0 +1,85 @@
+package com.unify.app.messages.domain;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Summary of a conversation, kept up to date on every saved message so the chat list never has to
+ * look at the messages themselves. Direct conversations have one document per user pair; group
+ * threads are keyed by their thread ID and count unread messages as {@code messageCount} minus the
+ * member's {@code readCounts} entry, so a message costs one increment whatever the group size.
+ */
+@Document("conversations")
+@CompoundIndex(name = "participants_last_ts", def = "{ 'participants': 1, 'lastMessageTime': -1 }")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+class Conversation {
+  private static final String SEPARATOR = ":";
+
+  // The two user IDs in sorted order, e.g. "a:b"
+  @Id String id;
+  List<String> participants;
+  String lastMessageId;
+  String lastMessage;
+  LocalDateTime lastMessageTime;
+  String lastMessageSender;
+  // Unread messages per participant ID
+  Map<String, Long> unreadCounts;
+  // Last message each participant has read, per participant ID
+  Map<String, ReadWatermark> readWatermarks;
+  // Newest messages counted into the summary, so a retried batch is not counted twice
+  List<String> recordedMessageIds;
+
+  // Group threads only
+  boolean group;
+  String name;
+  // Member who created the thread; the only one besides a member themself who can remove them
+  String createdBy;
+  long messageCount;
+  // Messages of the thread each member has read (or that were sent before they joined)
+  Map<String, Long> readCounts;
+
+  record ReadWatermark(String messageId, LocalDateTime timestamp) {}
+
+  /** The conversation a message belongs to: its group thread, or the sender-receiver pair. */
+  static String idOf(String sender, String receiver, String threadId) {
+    return threadId != null ? threadId : idFor(sender, receiver);
+  }
+
+  static String idFor(String userId, String partnerId) {
+    return userId.compareTo(partnerId) <= 0
+        ? userId + SEPARATOR + partnerId
+        : partnerId + SEPARATOR + userId;
+  }
+
+  String partnerOf(String userId) {
+    return participants.stream().filter(id -> !id.equals(userId)).findFirst().orElse(userId);
+  }
+
+  long unreadCountFor(String userId) {
+    if (group) {
+      long read = readCounts != null ? readCounts.getOrDefault(userId, 0L) : 0L;
+      return Math.max(0, messageCount - read);
+    }
+    return unreadCounts != null ? unreadCounts.getOrDefault(userId, 0L) : 0L;
+  }
+
+  ReadWatermark readWatermarkOf(String userId) {
+    return readWatermarks != null ? readWatermarks.get(userId) : null;
+  }
+}
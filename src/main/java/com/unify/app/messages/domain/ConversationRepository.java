@@ -0,0 +1,11 @@
+package com.unify.app.messages.domain;
+
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+interface ConversationRepository extends MongoRepository<Conversation, String> {
+
+  // Served by participants_last_ts
+  List<Conversation> findByParticipantsOrderByLastMessageTimeDesc(String userId, Pageable pageable);
+}
@@ -0,0 +1,377 @@
+package com.unify.app.messages.domain;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.unify.app.common.utils.DateTimeUtils;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/** Maintains the {@link Conversation} summaries that back the chat list, and group threads. */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+class ConversationService {
+
+  private static final int DUPLICATE_KEY_ERROR = 11000;
+  // Only needs to outlast the retries of a batch, which follow within seconds
+  private static final int RECORDED_MESSAGE_IDS = 100;
+  private static final Comparator<Message> OLDEST_FIRST =
+      Comparator.comparing(Message::getTimestamp).thenComparing(Message::getId);
+
+  private final MongoTemplate mongoTemplate;
+  private final ConversationRepository conversationRepository;
+  private final MessageRepository messageRepository;
+
+  /** Builds the summaries from the message history the first time the app starts without them. */
+  @EventListener(ApplicationReadyEvent.class)
+  void backfill() {
+    try {
+      if (conversationRepository.count() == 0 && messageRepository.count() > 0) {
+        messageRepository.rebuildConversations();
+        log.info("Built {} conversation summaries", conversationRepository.count());
+      }
+    } catch (Exception e) {
+      log.warn("Failed to build conversation summaries: {}", e.getMessage());
+    }
+  }
+
+  /** Upserts the pair's summary in one atomic update: last message and the receiver's unread. */
+  void recordMessage(Message message) {
+    if (message.getSender() == null || message.getReceiver() == null) {
+      return;
+    }
+    mongoTemplate.upsert(queryFor(message), updateFor(message), Conversation.class);
+  }
+
+  /**
+   * Same as {@link #recordMessage} for a whole batch, sent as one unordered bulk write with two
+   * updates per conversation. Group messages update their existing thread summary.
+   *
+   * <p>The counters and the last message are updated separately. Messages are timestamped before
+   * they are queued and other nodes record their own batches, so a batch can be older than the
+   * summary and still has to be counted; only the last message keeps the newest of the two.
+   * Counting is idempotent per batch instead: the summary keeps the IDs of its newest recorded
+   * messages and the counters only move while none of the batch's messages is among them. A retried
+   * batch that was already counted for a pair fails its upsert as a duplicate, which is expected
+   * and ignored.
+   */
+  void recordMessages(List<Message> messages) {
+    Map<String, List<Message>> byConversation = new LinkedHashMap<>();
+    for (Message message : messages) {
+      if (message.getSender() == null
+          || (message.getThreadId() == null && message.getReceiver() == null)) {
+        continue;
+      }
+      byConversation
+          .computeIfAbsent(
+              Conversation.idOf(message.getSender(), message.getReceiver(), message.getThreadId()),
+              id -> new ArrayList<>())
+          .add(message);
+    }
+    if (byConversation.isEmpty()) {
+      return;
+    }
+
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, Conversation.class);
+    byConversation.forEach(
+        (id, batch) -> {
+          Message newest = batch.stream().max(OLDEST_FIRST).orElseThrow();
+          Query notRecorded =
+              Query.query(
+                  Criteria.where("id")
+                      .is(id)
+                      .and("recordedMessageIds")
+                      .nin(batch.stream().map(Message::getId).toList()));
+          if (newest.getThreadId() != null) {
+            bulk.updateOne(notRecorded, threadCountsFor(batch));
+          } else {
+            // A new summary gets its last message here, since the update below needs one to exist
+            bulk.upsert(notRecorded, countsFor(newest, batch));
+          }
+          bulk.updateOne(
+              Query.query(Criteria.where("id").is(id).orOperator(olderThan(newest))),
+              lastMessageOf(newest));
+        });
+    try {
+      bulk.execute();
+    } catch (BulkOperationException e) {
+      for (BulkWriteError error : e.getErrors()) {
+        if (error.getCode() != DUPLICATE_KEY_ERROR) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  // The summary's last message comes before the given one, in (timestamp, id) order
+  private static Criteria[] olderThan(Message message) {
+    return new Criteria[] {
+      Criteria.where("lastMessageTime").exists(false),
+      Criteria.where("lastMessageTime").lt(message.getTimestamp()),
+      Criteria.where("lastMessageTime")
+          .is(message.getTimestamp())
+          .and("lastMessageId")
+          .lt(message.getId())
+    };
+  }
+
+  private static Query queryFor(Message message) {
+    return Query.query(
+        Criteria.where("id").is(Conversation.idFor(message.getSender(), message.getReceiver())));
+  }
+
+  private static Update updateFor(Message message) {
+    String id = Conversation.idFor(message.getSender(), message.getReceiver());
+    Update update =
+        new Update()
+            .setOnInsert("participants", List.of(id.split(":", 2)))
+            .set("lastMessageId", message.getId())
+            .set("lastMessage", message.getContent())
+            .set("lastMessageTime", message.getTimestamp())
+            .set("lastMessageSender", message.getSender());
+    if (!message.getSender().equals(message.getReceiver())) {
+      update.inc("unreadCounts." + message.getReceiver(), 1);
+    }
+    return update;
+  }
+
+  private static Update lastMessageOf(Message newest) {
+    return new Update()
+        .set("lastMessageId", newest.getId())
+        .set("lastMessage", newest.getContent())
+        .set("lastMessageTime", newest.getTimestamp())
+        .set("lastMessageSender", newest.getSender());
+  }
+
+  // One unread per message for its receiver
+  private static Update countsFor(Message newest, List<Message> batch) {
+    String id = Conversation.idFor(newest.getSender(), newest.getReceiver());
+
+    Update update =
+        new Update()
+            .setOnInsert("participants", List.of(id.split(":", 2)))
+            .setOnInsert("lastMessageId", newest.getId())
+            .setOnInsert("lastMessage", newest.getContent())
+            .setOnInsert("lastMessageTime", newest.getTimestamp())
+            .setOnInsert("lastMessageSender", newest.getSender());
+    countBy(
+            batch,
+            message ->
+                message.getSender().equals(message.getReceiver()) ? null : message.getReceiver())
+        .forEach((receiver, count) -> update.inc("unreadCounts." + receiver, count));
+    return recorded(update, batch);
+  }
+
+  // The sender's read count moves along with the thread, so their own message is never unread
+  private static Update threadCountsFor(List<Message> batch) {
+    Update update = new Update().inc("messageCount", batch.size());
+    countBy(batch, Message::getSender)
+        .forEach((sender, count) -> update.inc("readCounts." + sender, count));
+    return recorded(update, batch);
+  }
+
+  private static Update recorded(Update update, List<Message> batch) {
+    update
+        .push("recordedMessageIds")
+        .slice(-RECORDED_MESSAGE_IDS)
+        .each(batch.stream().map(Message::getId).toArray());
+    return update;
+  }
+
+  private static Map<String, Integer> countBy(
+      List<Message> messages, Function<Message, String> key) {
+    Map<String, Integer> counts = new LinkedHashMap<>();
+    for (Message message : messages) {
+      String value = key.apply(message);
+      if (value != null) {
+        counts.merge(value, 1, Integer::sum);
+      }
+    }
+    return counts;
+  }
+
+  /** Creates a group thread; its members start with nothing unread. */
+  Conversation createThread(String name, String creatorId, Set<String> memberIds) {
+    Map<String, Long> readCounts = new HashMap<>();
+    memberIds.forEach(memberId -> readCounts.put(memberId, 0L));
+    Conversation thread =
+        Conversation.builder()
+            .id(new ObjectId().toHexString())
+            .group(true)
+            .name(name)
+            .createdBy(creatorId)
+            .participants(new ArrayList<>(memberIds))
+            .lastMessageTime(DateTimeUtils.nowVietnam())
+            .readCounts(readCounts)
+            .build();
+    return mongoTemplate.insert(thread);
+  }
+
+  Optional<Conversation> findThread(String threadId) {
+    return conversationRepository.findById(threadId).filter(Conversation::isGroup);
+  }
+
+  /** Adds members who have not joined yet; earlier messages do not count as unread for them. */
+  void addMembers(Conversation thread, Set<String> memberIds) {
+    Update update = new Update().addToSet("participants").each(memberIds.toArray());
+    for (String memberId : memberIds) {
+      if (!thread.getParticipants().contains(memberId)) {
+        update.set("readCounts." + memberId, thread.getMessageCount());
+      }
+    }
+    mongoTemplate.updateFirst(
+        Query.query(Criteria.where("id").is(thread.getId())), update, Conversation.class);
+  }
+
+  void removeMember(String threadId, String memberId) {
+    mongoTemplate.updateFirst(
+        Query.query(Criteria.where("id").is(threadId)),
+        new Update()
+            .pull("participants", memberId)
+            .unset("readCounts." + memberId)
+            .unset("readWatermarks." + memberId),
+        Conversation.class);
+  }
+
+  /** IDs of the group threads the user is a member of. */
+  List<String> threadIdsOf(String userId) {
+    Query query = Query.query(Criteria.where("participants").is(userId).and("group").is(true));
+    query.fields().include("id");
+    return mongoTemplate.find(query, Conversation.class).stream()
+        .map(Conversation::getId)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Moves the reader's watermark forward to the given message and resets their unread counter to
+   * the messages still after it. Returns the new unread count, or null when nothing changed: the
+   * watermark was already further, or a message arrived meanwhile and the client will ack again.
+   */
+  Long markRead(String readerId, String partnerId, String messageId, LocalDateTime readAt) {
+    Conversation conversation =
+        conversationRepository.findById(Conversation.idFor(readerId, partnerId)).orElse(null);
+    if (conversation == null || conversation.getLastMessageTime() == null) {
+      return null;
+    }
+
+    Conversation.ReadWatermark current = conversation.readWatermarkOf(readerId);
+    if (current != null && !readAt.isAfter(current.timestamp())) {
+      return null;
+    }
+
+    // Reading up to the last message is the common case and needs no counting
+    LocalDateTime lastMessageTime = conversation.getLastMessageTime();
+    LocalDateTime watermark = readAt.isAfter(lastMessageTime) ? lastMessageTime : readAt;
+    long unread =
+        watermark.isBefore(lastMessageTime)
+            ? mongoTemplate.count(
+                Query.query(
+                    Criteria.where("sender")
+                        .is(partnerId)
+                        .and("receiver")
+                        .is(readerId)
+                        .and("timestamp")
+                        .gt(watermark)),
+                Message.class)
+            : 0L;
+
+    String watermarkPath = "readWatermarks." + readerId;
+    Query query =
+        Query.query(
+            Criteria.where("id")
+                .is(conversation.getId())
+                .and("lastMessageId")
+                .is(conversation.getLastMessageId())
+                .orOperator(
+                    Criteria.where(watermarkPath).exists(false),
+                    Criteria.where(watermarkPath + ".timestamp").lt(watermark)));
+    Update update =
+        new Update()
+            .set(watermarkPath, new Conversation.ReadWatermark(messageId, watermark))
+            .set("unreadCounts." + readerId, unread);
+
+    return mongoTemplate.updateFirst(query, update, Conversation.class).getMatchedCount() > 0
+        ? unread
+        : null;
+  }
+
+  /**
+   * {@link #markRead} for a group thread. The member's read count becomes the thread's message
+   * count minus the other members' messages still after the watermark.
+   */
+  Long markThreadRead(String readerId, String threadId, String messageId, LocalDateTime readAt) {
+    Conversation thread = findThread(threadId).orElse(null);
+    if (thread == null
+        || thread.getLastMessageId() == null
+        || !thread.getParticipants().contains(readerId)) {
+      return null;
+    }
+
+    Conversation.ReadWatermark current = thread.readWatermarkOf(readerId);
+    if (current != null && !readAt.isAfter(current.timestamp())) {
+      return null;
+    }
+
+    LocalDateTime lastMessageTime = thread.getLastMessageTime();
+    LocalDateTime watermark = readAt.isAfter(lastMessageTime) ? lastMessageTime : readAt;
+    long unread =
+        watermark.isBefore(lastMessageTime)
+            ? mongoTemplate.count(
+                Query.query(
+                    Criteria.where("threadId")
+                        .is(threadId)
+                        .and("timestamp")
+                        .gt(watermark)
+                        .and("sender")
+                        .ne(readerId)),
+                Message.class)
+            : 0L;
+
+    String watermarkPath = "readWatermarks." + readerId;
+    Query query =
+        Query.query(
+            Criteria.where("id")
+                .is(threadId)
+                .and("lastMessageId")
+                .is(thread.getLastMessageId())
+                .orOperator(
+                    Criteria.where(watermarkPath).exists(false),
+                    Criteria.where(watermarkPath + ".timestamp").lt(watermark)));
+    Update update =
+        new Update()
+            .set(watermarkPath, new Conversation.ReadWatermark(messageId, watermark))
+            .set("readCounts." + readerId, Math.max(0, thread.getMessageCount() - unread));
+
+    return mongoTemplate.updateFirst(query, update, Conversation.class).getMatchedCount() > 0
+        ? unread
+        : null;
+  }
+
+  /** The user's conversations, most recently active first. */
+  List<Conversation> getConversations(String userId, int page, int size) {
+    return conversationRepository.findByParticipantsOrderByLastMessageTimeDesc(
+        userId, PageRequest.of(page, size));
+  }
+}
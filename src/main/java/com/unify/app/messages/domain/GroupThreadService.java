@@ -0,0 +1,174 @@
+package com.unify.app.messages.domain;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.unify.app.common.exceptions.BadRequestException;
+import com.unify.app.common.exceptions.ResourceNotFoundException;
+import com.unify.app.messages.domain.models.CreateThreadRequest;
+import com.unify.app.messages.domain.models.GroupThreadDto;
+import com.unify.app.messages.events.ThreadMembershipChangedEvent;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Group threads: creation, membership and the membership check made on every group message. The
+ * member sets are cached locally so sending a message does not read the thread; membership changes
+ * are broadcast on {@link #MEMBERSHIP_CHANNEL} so every other node drops its copy. Each node then
+ * publishes a {@link ThreadMembershipChangedEvent}, on which the subscriptions of removed members
+ * are revoked.
+ */
+@Slf4j
+@Service
+public class GroupThreadService implements MessageListener {
+
+  public static final String TOPIC_PREFIX = "/topic/threads.";
+  static final String MEMBERSHIP_CHANNEL = "unify:chat:thread-members";
+
+  private static final String SEPARATOR = "\n";
+
+  private final ConversationService conversationService;
+  private final StringRedisTemplate redisTemplate;
+  private final RedisMessageListenerContainer listenerContainer;
+  private final ApplicationEventPublisher eventPublisher;
+  private final int maxMembers;
+  private final String nodeId = UUID.randomUUID().toString();
+  private final Cache<String, Set<String>> members;
+
+  public GroupThreadService(
+      ConversationService conversationService,
+      StringRedisTemplate redisTemplate,
+      RedisMessageListenerContainer listenerContainer,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${unify.chat.groups.max-members:256}") int maxMembers,
+      @Value("${unify.chat.groups.membership-cache-seconds:300}") long membershipCacheSeconds) {
+    this.conversationService = conversationService;
+    this.redisTemplate = redisTemplate;
+    this.listenerContainer = listenerContainer;
+    this.eventPublisher = eventPublisher;
+    this.maxMembers = maxMembers;
+    this.members =
+        Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofSeconds(membershipCacheSeconds))
+            .build();
+  }
+
+  @PostConstruct
+  void subscribe() {
+    listenerContainer.addMessageListener(this, new ChannelTopic(MEMBERSHIP_CHANNEL));
+  }
+
+  public GroupThreadDto createThread(String creatorId, CreateThreadRequest request) {
+    if (request.name() == null || request.name().isBlank()) {
+      throw new BadRequestException("Thread name is required");
+    }
+    Set<String> memberIds = new LinkedHashSet<>();
+    memberIds.add(creatorId);
+    if (request.memberIds() != null) {
+      memberIds.addAll(request.memberIds());
+    }
+    checkSize(memberIds.size());
+
+    return toDto(conversationService.createThread(request.name().trim(), creatorId, memberIds));
+  }
+
+  public GroupThreadDto getThread(String threadId, String userId) {
+    Conversation thread = requireMember(threadId, userId);
+    return toDto(thread);
+  }
+
+  public void addMembers(String threadId, String userId, Set<String> memberIds) {
+    Conversation thread = requireMember(threadId, userId);
+    Set<String> all = new LinkedHashSet<>(thread.getParticipants());
+    all.addAll(memberIds);
+    checkSize(all.size());
+
+    conversationService.addMembers(thread, memberIds);
+    invalidate(threadId);
+  }
+
+  /** Members may remove themselves, i.e. leave; the creator of the thread may remove anyone. */
+  public void removeMember(String threadId, String userId, String memberId) {
+    Conversation thread = requireMember(threadId, userId);
+    if (!userId.equals(memberId) && !userId.equals(thread.getCreatedBy())) {
+      throw new ResponseStatusException(
+          HttpStatus.FORBIDDEN, "Only the thread creator can remove other members");
+    }
+    conversationService.removeMember(threadId, memberId);
+    invalidate(threadId);
+  }
+
+  public boolean isMember(String threadId, String userId) {
+    if (threadId == null || userId == null) {
+      return false;
+    }
+    Set<String> threadMembers =
+        members.get(
+            threadId,
+            id ->
+                conversationService
+                    .findThread(id)
+                    .map(thread -> Set.copyOf(thread.getParticipants()))
+                    .orElse(Set.of()));
+    return threadMembers.contains(userId);
+  }
+
+  @Override
+  public void onMessage(@NonNull Message message, byte[] pattern) {
+    String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 2);
+    if (parts.length == 2 && !nodeId.equals(parts[0])) {
+      members.invalidate(parts[1]);
+      eventPublisher.publishEvent(new ThreadMembershipChangedEvent(parts[1]));
+    }
+  }
+
+  private void invalidate(String threadId) {
+    members.invalidate(threadId);
+    eventPublisher.publishEvent(new ThreadMembershipChangedEvent(threadId));
+    try {
+      redisTemplate.convertAndSend(MEMBERSHIP_CHANNEL, nodeId + SEPARATOR + threadId);
+    } catch (Exception e) {
+      // Other nodes fall back to the cache expiry for this thread
+      log.warn("Failed to publish membership change of thread {}: {}", threadId, e.getMessage());
+    }
+  }
+
+  private Conversation requireMember(String threadId, String userId) {
+    Conversation thread =
+        conversationService
+            .findThread(threadId)
+            .orElseThrow(() -> new ResourceNotFoundException("Thread not found"));
+    if (!thread.getParticipants().contains(userId)) {
+      throw new ResourceNotFoundException("Thread not found");
+    }
+    return thread;
+  }
+
+  private void checkSize(int size) {
+    if (size > maxMembers) {
+      throw new BadRequestException("A thread can have at most " + maxMembers + " members");
+    }
+  }
+
+  private static GroupThreadDto toDto(Conversation thread) {
+    return new GroupThreadDto(
+        thread.getId(), thread.getName(), List.copyOf(thread.getParticipants()));
+  }
+}
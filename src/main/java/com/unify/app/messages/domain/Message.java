@@ -14,21 +14,29 @@ import lombok.experimental.FieldDefaults;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
-import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collation = "en")
 @CompoundIndexes({
-  // For direct conversation fetch: { sender, receiver } both orders with timestamp sort
+  // For direct conversation fetch: { sender, receiver } both orders with (timestamp, _id) keyset
   @CompoundIndex(
-      name = "sender_receiver_ts",
-      def = "{ 'sender': 1, 'receiver': 1, 'timestamp': -1 }"),
+      name = "sender_receiver_ts_id",
+      def = "{ 'sender': 1, 'receiver': 1, 'timestamp': -1, '_id': -1 }"),
   @CompoundIndex(
-      name = "receiver_sender_ts",
-      def = "{ 'receiver': 1, 'sender': 1, 'timestamp': -1 }"),
-  // For chat list aggregation branches
-  @CompoundIndex(name = "sender_ts", def = "{ 'sender': 1, 'timestamp': -1 }"),
-  @CompoundIndex(name = "receiver_ts", def = "{ 'receiver': 1, 'timestamp': -1 }")
+      name = "receiver_sender_ts_id",
+      def = "{ 'receiver': 1, 'sender': 1, 'timestamp': -1, '_id': -1 }"),
+  // Group thread history; direct messages have no threadId and stay out of it
+  @CompoundIndex(
+      name = "thread_ts_id",
+      def = "{ 'threadId': 1, 'timestamp': -1, '_id': -1 }",
+      partialFilter = "{ 'threadId': { $exists: true } }"),
+  // Makes ingestion idempotent: a resent message fails as a duplicate instead of being stored
+  // twice. clientTempIds are generated by clients, so they are only unique per sender.
+  @CompoundIndex(
+      name = "sender_client_temp_id_unique",
+      def = "{ 'sender': 1, 'clientTempId': 1 }",
+      unique = true,
+      partialFilter = "{ 'clientTempId': { $exists: true } }")
 })
 @Getter
 @Setter
@@ -38,12 +46,18 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 class Message implements Serializable {
   @Id String id;
-  @Indexed String sender;
-  @Indexed String receiver;
+  String sender;
+  String receiver;
+  // Group thread of the message; receiver is then null
+  String threadId;
   String content;
+  // Lower-cased, diacritic-free copy of content for the message_search text index
+  String searchText;
   LocalDateTime timestamp;
   List<String> fileUrls;
   MessageType type;
-  @Indexed String clientTempId;
-  @Indexed String replyToMessageId;
+
+  String clientTempId;
+
+  String replyToMessageId;
 }
@@ -0,0 +1,217 @@
+package com.unify.app.messages.domain;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.mongodb.bulk.BulkWriteError;
+import com.unify.app.common.utils.DateTimeUtils;
+import com.unify.app.config.CompactCacheSerializer;
+import com.unify.app.messages.domain.models.MessageCursor;
+import com.unify.app.messages.domain.models.MessageDto;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cold tier of the message history. Messages older than the retention of the hot {@code message}
+ * collection are moved into {@link MessageBucket}s, and history pages read past the hot tier are
+ * continued from the buckets.
+ */
+@Slf4j
+@Service
+public class MessageArchiveService {
+
+  static final Comparator<MessageDto> BY_TIME =
+      Comparator.comparing(MessageDto::timestamp).thenComparing(MessageDto::id);
+
+  private static final int DUPLICATE_KEY_ERROR = 11000;
+  private static final JavaType PAYLOAD_TYPE =
+      TypeFactory.defaultInstance().constructCollectionType(List.class, MessageDto.class);
+
+  private final MongoTemplate mongoTemplate;
+  private final MessageMapper mapper;
+  private final CompactCacheSerializer payloadSerializer =
+      new CompactCacheSerializer(PAYLOAD_TYPE, 1, 1);
+  private final int afterDays;
+  private final int bucketSize;
+  private final int batchSize;
+
+  public MessageArchiveService(
+      MongoTemplate mongoTemplate,
+      MessageMapper mapper,
+      @Value("${unify.chat.archive.after-days:90}") int afterDays,
+      @Value("${unify.chat.archive.bucket-size:500}") int bucketSize,
+      @Value("${unify.chat.archive.batch-size:5000}") int batchSize) {
+    this.mongoTemplate = mongoTemplate;
+    this.mapper = mapper;
+    this.afterDays = afterDays;
+    this.bucketSize = bucketSize;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Moves messages older than the retention into buckets, oldest first, and returns how many were
+   * moved. Buckets are written before the messages are deleted and their IDs are deterministic, so
+   * an interrupted run is simply repeated.
+   */
+  public long archive() {
+    LocalDateTime cutoff = DateTimeUtils.nowVietnam().minusDays(afterDays);
+    // ObjectIds start with their creation time, so the _id index bounds the scan to old messages
+    ObjectId idCutoff = new ObjectId(Date.from(Instant.now().minus(Duration.ofDays(afterDays))));
+    long archived = 0;
+    while (true) {
+      Query batch =
+          new Query(Criteria.where("id").lt(idCutoff).and("timestamp").lt(cutoff))
+              .with(Sort.by(Sort.Direction.ASC, "id"))
+              .limit(batchSize);
+      List<Message> messages = mongoTemplate.find(batch, Message.class);
+      if (messages.isEmpty()) {
+        break;
+      }
+
+      insertBuckets(toBuckets(messages));
+      mongoTemplate.remove(
+          Query.query(Criteria.where("id").in(messages.stream().map(Message::getId).toList())),
+          Message.class);
+      archived += messages.size();
+      if (messages.size() < batchSize) {
+        break;
+      }
+    }
+    return archived;
+  }
+
+  List<MessageBucket> toBuckets(List<Message> messages) {
+    Map<String, List<MessageDto>> byConversation = new LinkedHashMap<>();
+    for (Message message : messages) {
+      byConversation
+          .computeIfAbsent(
+              Conversation.idOf(message.getSender(), message.getReceiver(), message.getThreadId()),
+              k -> new ArrayList<>())
+          .add(mapper.toDto(message));
+    }
+
+    List<MessageBucket> buckets = new ArrayList<>();
+    byConversation.forEach(
+        (conversationId, conversationMessages) -> {
+          conversationMessages.sort(BY_TIME);
+          List<MessageDto> current = new ArrayList<>();
+          for (MessageDto message : conversationMessages) {
+            if (!current.isEmpty()
+                && (current.size() >= bucketSize
+                    || !current
+                        .get(0)
+                        .timestamp()
+                        .toLocalDate()
+                        .equals(message.timestamp().toLocalDate()))) {
+              buckets.add(bucket(conversationId, current));
+              current = new ArrayList<>();
+            }
+            current.add(message);
+          }
+          buckets.add(bucket(conversationId, current));
+        });
+    return buckets;
+  }
+
+  private MessageBucket bucket(String conversationId, List<MessageDto> messages) {
+    return MessageBucket.builder()
+        .id(conversationId + ":" + messages.get(0).id())
+        .conversationId(conversationId)
+        .firstTimestamp(messages.get(0).timestamp())
+        .lastTimestamp(messages.get(messages.size() - 1).timestamp())
+        .count(messages.size())
+        .payload(payloadSerializer.serialize(messages))
+        .build();
+  }
+
+  private void insertBuckets(List<MessageBucket> buckets) {
+    try {
+      mongoTemplate.bulkOps(BulkMode.UNORDERED, MessageBucket.class).insert(buckets).execute();
+    } catch (BulkOperationException e) {
+      // Already written by an earlier, interrupted run
+      for (BulkWriteError error : e.getErrors()) {
+        if (error.getCode() != DUPLICATE_KEY_ERROR) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  /**
+   * Up to {@code limit} archived messages of the conversation strictly before {@code before}
+   * (newest first) or, when {@code after} is given, strictly after it (oldest first). Without
+   * either the newest archived messages are returned.
+   */
+  List<MessageDto> read(
+      String conversationId, MessageCursor before, MessageCursor after, int limit) {
+    boolean forward = after != null;
+    Criteria criteria = Criteria.where("conversationId").is(conversationId);
+    if (forward) {
+      criteria.and("lastTimestamp").gte(after.timestamp());
+    } else if (before != null) {
+      criteria.and("firstTimestamp").lte(before.timestamp());
+    }
+    Query query =
+        new Query(criteria)
+            .with(
+                forward
+                    ? Sort.by(Sort.Direction.ASC, "firstTimestamp")
+                    : Sort.by(Sort.Direction.DESC, "lastTimestamp"));
+
+    Comparator<MessageDto> order = forward ? BY_TIME : BY_TIME.reversed();
+    List<MessageDto> result = new ArrayList<>();
+    try (var buckets = mongoTemplate.stream(query, MessageBucket.class)) {
+      var iterator = buckets.iterator();
+      while (result.size() < limit && iterator.hasNext()) {
+        result.addAll(
+            decode(iterator.next()).stream()
+                .filter(m -> forward ? isAfter(m, after) : before == null || isBefore(m, before))
+                .sorted(order)
+                .collect(Collectors.toList()));
+      }
+    }
+    result.sort(order);
+    return result.size() > limit ? result.subList(0, limit) : result;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<MessageDto> decode(MessageBucket bucket) {
+    List<MessageDto> messages =
+        (List<MessageDto>) payloadSerializer.deserialize(bucket.getPayload());
+    if (messages == null) {
+      log.warn("Skipping message bucket {} with an unknown payload format", bucket.getId());
+      return List.of();
+    }
+    return messages;
+  }
+
+  private static boolean isBefore(MessageDto message, MessageCursor cursor) {
+    return compare(message, cursor) < 0;
+  }
+
+  private static boolean isAfter(MessageDto message, MessageCursor cursor) {
+    return compare(message, cursor) > 0;
+  }
+
+  private static int compare(MessageDto message, MessageCursor cursor) {
+    int byTime = message.timestamp().compareTo(cursor.timestamp());
+    return byTime != 0 ? byTime : message.id().compareTo(cursor.id());
+  }
+}
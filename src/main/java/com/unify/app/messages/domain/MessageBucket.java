@@ -0,0 +1,45 @@
+package com.unify.app.messages.domain;
+
+import java.time.LocalDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Archived messages of one conversation from a single day, at most a few hundred per bucket, stored
+ * as one compressed payload. One document and two index entries replace a document and its index
+ * entries per message.
+ */
+@Document("message_buckets")
+@CompoundIndexes({
+  @CompoundIndex(
+      name = "conversation_first_ts",
+      def = "{ 'conversationId': 1, 'firstTimestamp': 1 }"),
+  @CompoundIndex(
+      name = "conversation_last_ts",
+      def = "{ 'conversationId': 1, 'lastTimestamp': -1 }")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+class MessageBucket {
+  // Conversation ID and the ID of the first message, so re-archiving the same messages collides
+  @Id String id;
+  String conversationId;
+  LocalDateTime firstTimestamp;
+  LocalDateTime lastTimestamp;
+  int count;
+  // List<MessageDto> in the compact cache format, oldest first
+  byte[] payload;
+}
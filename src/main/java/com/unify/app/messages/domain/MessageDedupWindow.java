@@ -0,0 +1,80 @@
+package com.unify.app.messages.domain;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recently seen {@code clientTempId}s per sender, so client resends are not delivered to the
+ * receiver a second time. Each sender has a small ring buffer of 64-bit hashes with the time they
+ * were seen; entries older than the window no longer count and senders that go quiet are forgotten.
+ * The unique index on {@code clientTempId} still catches resends outside the window.
+ */
+@Component
+public class MessageDedupWindow {
+
+  private final long windowNanos;
+  private final int perSenderCapacity;
+  private final Cache<String, Ring> senders;
+
+  public MessageDedupWindow(
+      @Value("${unify.chat.dedup.window-seconds:60}") long windowSeconds,
+      @Value("${unify.chat.dedup.per-sender-capacity:64}") int perSenderCapacity,
+      @Value("${unify.chat.dedup.max-senders:100000}") long maxSenders) {
+    this.windowNanos = Duration.ofSeconds(windowSeconds).toNanos();
+    this.perSenderCapacity = perSenderCapacity;
+    this.senders =
+        Caffeine.newBuilder()
+            .maximumSize(maxSenders)
+            .expireAfterAccess(Duration.ofSeconds(windowSeconds))
+            .build();
+  }
+
+  /**
+   * Records the message and returns true if the sender already sent the same {@code clientTempId}
+   * within the window. Messages without one are never treated as duplicates.
+   */
+  public boolean isDuplicate(String sender, String clientTempId) {
+    if (sender == null || clientTempId == null || clientTempId.isBlank()) {
+      return false;
+    }
+    Ring ring = senders.get(sender, k -> new Ring(perSenderCapacity));
+    return ring.checkAndAdd(hash(clientTempId), System.nanoTime(), windowNanos);
+  }
+
+  // 64-bit FNV-1a; collisions within one sender's window are negligible
+  private static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  private static final class Ring {
+    private final long[] hashes;
+    private final long[] seenAt;
+    private int next;
+
+    Ring(int capacity) {
+      this.hashes = new long[capacity];
+      this.seenAt = new long[capacity];
+    }
+
+    synchronized boolean checkAndAdd(long hash, long now, long windowNanos) {
+      for (int i = 0; i < hashes.length; i++) {
+        if (hashes[i] == hash && seenAt[i] != 0 && now - seenAt[i] <= windowNanos) {
+          return true;
+        }
+      }
+      hashes[next] = hash;
+      seenAt[next] = now;
+      next = (next + 1) % hashes.length;
+      return false;
+    }
+  }
+}
@@ -2,11 +2,13 @@ package com.unify.app.messages.domain;
 
 import com.unify.app.messages.domain.models.MessageDto;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(componentModel = "spring")
 public interface MessageMapper {
 
   MessageDto toDto(Message message);
 
+  @Mapping(target = "searchText", expression = "java(SearchText.fold(dto.content()))")
   Message toEntity(MessageDto dto);
 }
@@ -1,57 +1,32 @@
 package com.unify.app.messages.domain;
 
-import com.unify.app.messages.domain.models.ChatPreviewProjection;
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.mongodb.repository.Query;
 
 interface MessageRepository extends MongoRepository<Message, String> {
-  @Query(
-      value =
-          "{ $or: [ { $and: [ { sender: ?0 }, { receiver: ?1 } ] }, { $and: [ { sender: ?2 }, { receiver: ?3 } ] } ] }")
-  List<Message> findMessages(
-      String sender1, String receiver1, String sender2, String receiver2, Sort sort);
-
-  // Optimized method using predefined sort for ascending timeline
-  @Query(
-      value =
-          "{ $or: [ { $and: [ { sender: ?0 }, { receiver: ?1 } ] }, { $and: [ { sender: ?1 }, { receiver: ?0 } ] } ] }",
-      fields =
-          "{ id: 1, sender: 1, receiver: 1, content: 1, timestamp: 1, fileUrls: 1, replyToMessageId: 1, type: 1, clientTempId: 1 }")
-  List<Message> findConversationAsc(String userId, String partnerId, Sort sort);
-
+  // Builds one conversations document per user pair from the history; existing ones are kept
   @Aggregation(
       pipeline = {
-        "{ $match: { $or: [ { sender: ?0 }, { receiver: ?0 } ] } }",
+        "{ $match: { sender: { $nin: [null, ''] }, receiver: { $nin: [null, ''] } } }",
         "{ $sort: { timestamp: -1 } }",
         "{ $group: { "
-            + "_id: { $cond: [ { $eq: [ '$sender', ?0 ] }, '$receiver', '$sender' ] }, "
+            + "_id: { $cond: [ { $lte: [ '$sender', '$receiver' ] }, "
+            + "{ $concat: [ '$sender', ':', '$receiver' ] }, "
+            + "{ $concat: [ '$receiver', ':', '$sender' ] } ] }, "
+            + "lastMessageId: { $first: { $toString: '$_id' } }, "
             + "lastMessage: { $first: '$content' }, "
             + "lastMessageTime: { $first: '$timestamp' }, "
             + "lastMessageSender: { $first: '$sender' } "
             + "} }",
-        "{ $match: { _id: { $ne: null } } }",
-        "{ $match: { _id: { $ne: '' } } }",
-        "{ $match: { _id: { $exists: true } } }"
+        "{ $addFields: { participants: { $split: [ '$_id', ':' ] }, unreadCounts: {} } }",
+        "{ $merge: { into: 'conversations', on: '_id', whenMatched: 'keepExisting' } }"
       })
-  List<ChatPreviewProjection> findChatList(String userId);
-
-  // ✅ BACKEND SYNC: Find message by clientTempId
-  Optional<Message> findByClientTempId(String clientTempId);
-
-  // ✅ BACKEND SYNC: Find messages by multiple clientTempIds
-  List<Message> findByClientTempIdIn(List<String> clientTempIds);
-
-  // ✅ IMPROVED: Find messages by clientTempId and timestamp after
-  @Query(value = "{ 'clientTempId': ?0, 'timestamp': { $gte: ?1 } }")
-  List<Message> findByClientTempIdAndTimestampAfter(String clientTempId, LocalDateTime timestamp);
+  @Meta(allowDiskUse = true)
+  void rebuildConversations();
 
-  // ✅ IMPROVED: Find recent messages by content and users to detect duplicates
-  @Query(value = "{ 'content': ?0, 'sender': ?1, 'receiver': ?2, 'timestamp': { $gte: ?3 } }")
-  List<Message> findRecentMessagesByContentAndUsers(
-      String content, String sender, String receiver, LocalDateTime since);
+  // clientTempIds are only unique per sender
+  List<Message> findBySenderAndClientTempIdIn(String sender, Collection<String> clientTempIds);
 }
@@ -0,0 +1,166 @@
+package com.unify.app.messages.domain;
+
+import com.unify.app.messages.domain.models.MessageSearchHit;
+import com.unify.app.messages.domain.models.MessageSearchResponse;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+
+/**
+ * Full-text search over the caller's direct and group messages. Messages carry a folded copy of
+ * their content ({@code searchText}, see {@link SearchText}) that is indexed by the {@code
+ * message_search} text index with {@code sender} and {@code receiver} as suffix keys, so the scope
+ * filter is answered from the index. The index uses language "none": no stemming or stop words,
+ * which suits Vietnamese where every syllable is a word.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MessageSearchService {
+
+  static final String INDEX_NAME = "message_search";
+
+  private static final int MAX_PAGE_SIZE = 50;
+  private static final int MAX_TERMS = 10;
+  private static final int REBUILD_BATCH_SIZE = 1000;
+
+  private final MongoTemplate mongoTemplate;
+  private final MessageMapper mapper;
+  private final ConversationService conversationService;
+
+  // Created here rather than through annotations: @CompoundIndex can't set the text options, and
+  // text indexes only support the simple collation while Message defaults to "en"
+  @EventListener(ApplicationReadyEvent.class)
+  public void ensureIndex() {
+    try {
+      mongoTemplate.indexOps(Message.class).createIndex(new SearchIndex());
+    } catch (Exception e) {
+      log.warn("Could not create message search index: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Messages of the user, including those of their group threads, containing every term of the
+   * query regardless of case and diacritics. With a partner only their conversation is searched.
+   */
+  public MessageSearchResponse search(
+      String userId, String partnerId, String query, int page, int size) {
+    List<String> terms = SearchText.terms(query, MAX_TERMS);
+    int currentPage = Math.max(page, 0);
+    if (userId == null || userId.isBlank() || terms.isEmpty()) {
+      return new MessageSearchResponse(List.of(), false, currentPage);
+    }
+    int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+    // Each term as a phrase so all of them have to match
+    TextCriteria text = TextCriteria.forDefaultLanguage();
+    terms.forEach(text::matchingPhrase);
+    Query search =
+        TextQuery.queryText(text)
+            .sortByScore()
+            .addCriteria(scope(userId, partnerId))
+            .with(Sort.by(Sort.Direction.DESC, "timestamp"))
+            .collation(Collation.simple())
+            .skip((long) currentPage * pageSize)
+            .limit(pageSize + 1);
+
+    List<Message> found = mongoTemplate.find(search, Message.class);
+    List<MessageSearchHit> hits =
+        found.stream()
+            .limit(pageSize)
+            .map(
+                message ->
+                    new MessageSearchHit(
+                        mapper.toDto(message),
+                        SearchText.highlights(message.getContent(), terms).stream()
+                            .map(range -> new MessageSearchHit.Highlight(range[0], range[1]))
+                            .toList()))
+            .toList();
+    return new MessageSearchResponse(hits, found.size() > pageSize, currentPage);
+  }
+
+  private Criteria scope(String userId, String partnerId) {
+    if (partnerId == null || partnerId.isBlank()) {
+      List<String> threadIds = conversationService.threadIdsOf(userId);
+      List<Criteria> branches = new ArrayList<>();
+      branches.add(Criteria.where("sender").is(userId));
+      branches.add(Criteria.where("receiver").is(userId));
+      if (!threadIds.isEmpty()) {
+        branches.add(Criteria.where("threadId").in(threadIds));
+      }
+      return new Criteria().orOperator(branches);
+    }
+    return new Criteria()
+        .orOperator(
+            Criteria.where("sender").is(userId).and("receiver").is(partnerId),
+            Criteria.where("sender").is(partnerId).and("receiver").is(userId));
+  }
+
+  /**
+   * Recomputes {@code searchText} for every message, in {@code _id} order and batches, and makes
+   * sure the index exists. Needed once for messages stored before search existed and whenever the
+   * folding changes. Returns the number of messages updated.
+   */
+  @PreAuthorize("hasRole('ADMIN')")
+  public long rebuildIndex() {
+    ensureIndex();
+    long updated = 0;
+    String lastId = null;
+    while (true) {
+      Query batch =
+          new Query(lastId == null ? new Criteria() : Criteria.where("id").gt(lastId))
+              .with(Sort.by(Sort.Direction.ASC, "id"))
+              .limit(REBUILD_BATCH_SIZE);
+      batch.fields().include("content");
+      List<Message> messages = mongoTemplate.find(batch, Message.class);
+      if (messages.isEmpty()) {
+        break;
+      }
+
+      BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, Message.class);
+      for (Message message : messages) {
+        bulk.updateOne(
+            Query.query(Criteria.where("id").is(message.getId())),
+            Update.update("searchText", SearchText.fold(message.getContent())));
+      }
+      updated += bulk.execute().getModifiedCount();
+      lastId = messages.get(messages.size() - 1).getId();
+    }
+    log.info("Rebuilt message search text for {} messages", updated);
+    return updated;
+  }
+
+  private static class SearchIndex implements IndexDefinition {
+
+    @Override
+    public Document getIndexKeys() {
+      return new Document("searchText", "text").append("sender", 1).append("receiver", 1);
+    }
+
+    @Override
+    public Document getIndexOptions() {
+      return new Document("name", INDEX_NAME)
+          .append("default_language", "none")
+          // Messages have no language field, but keep a stray one from changing the analyzer
+          .append("language_override", "searchLanguage")
+          .append("collation", new Document("locale", "simple"));
+    }
+  }
+}
@@ -1,22 +1,38 @@
 package com.unify.app.messages.domain;
 
+import com.mongodb.bulk.BulkWriteError;
 import com.unify.app.messages.domain.models.ChatDto;
-import com.unify.app.messages.domain.models.ChatPreviewProjection;
+import com.unify.app.messages.domain.models.MessageCursor;
 import com.unify.app.messages.domain.models.MessageDto;
-import com.unify.app.users.domain.UserService;
-import com.unify.app.users.domain.models.UserDto;
-import java.time.LocalDateTime;
+import com.unify.app.messages.domain.models.MessagePage;
+import com.unify.app.users.domain.UserProfileService;
+import com.unify.app.users.domain.models.UserProfileDto;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -26,334 +42,290 @@ public class MessageService {
 
   private final MongoTemplate mongoTemplate;
   private final MessageRepository messageRepository;
-  private final UserService userService;
+  private final UserProfileService userProfileService;
   private final MessageMapper mapper;
+  private final ConversationService conversationService;
+  private final CacheManager cacheManager;
+  private final MessageArchiveService messageArchiveService;
+
+  public static final int DEFAULT_PAGE_SIZE = 50;
+  private static final int DUPLICATE_KEY_ERROR = 11000;
+  private static final String LEGACY_CLIENT_TEMP_ID_INDEX = "client_temp_id_unique";
+  private static final int MAX_PAGE_SIZE = 200;
+
+  /**
+   * One page of the conversation between two users, in either direction. Pages are read by keyset
+   * on (timestamp, _id) through the {@code sender_receiver_ts_id} / {@code receiver_sender_ts_id}
+   * indexes, so the cost does not grow with the length of the conversation. Without a cursor the
+   * newest page is returned; only that page, at the default size, is cached. Pages continue
+   * seamlessly into archived messages.
+   */
+  @Cacheable(
+      value = "messages",
+      key = "#sender + '-' + #receiver",
+      condition =
+          "(#before == null || #before.isBlank()) && (#after == null || #after.isBlank())"
+              + " && #size == T(com.unify.app.messages.domain.MessageService).DEFAULT_PAGE_SIZE")
+  public MessagePage getMessagePage(
+      String sender, String receiver, String before, String after, int size) {
+    return readPage(
+        Conversation.idFor(sender, receiver),
+        (beforeCursor, afterCursor) ->
+            new Criteria()
+                .orOperator(
+                    bounded(
+                        Criteria.where("sender").is(sender).and("receiver").is(receiver),
+                        beforeCursor,
+                        afterCursor),
+                    bounded(
+                        Criteria.where("sender").is(receiver).and("receiver").is(sender),
+                        beforeCursor,
+                        afterCursor)),
+        before,
+        after,
+        size);
+  }
 
-  @Cacheable(value = "messages", key = "#sender + '-' + #receiver")
-  public List<MessageDto> getMessagesBySenderAndReceiver(String sender, String receiver) {
-    // Use repository method with compound indexes for faster access
-    List<Message> list =
-        messageRepository.findConversationAsc(
-            sender, receiver, Sort.by(Sort.Direction.ASC, "timestamp"));
-    return list.stream().map(mapper::toDto).collect(Collectors.toList());
+  /** {@link #getMessagePage} for a group thread, read through the {@code thread_ts_id} index. */
+  public MessagePage getThreadPage(String threadId, String before, String after, int size) {
+    return readPage(
+        threadId,
+        (beforeCursor, afterCursor) ->
+            bounded(Criteria.where("threadId").is(threadId), beforeCursor, afterCursor),
+        before,
+        after,
+        size);
   }
 
-  // ✅ PRODUCTION FIX: Remove caching to prevent race conditions and stale data
-  public List<ChatDto> getChatList(String userId) {
-    if (userId == null || userId.trim().isEmpty()) {
-      return List.of();
+  private MessagePage readPage(
+      String conversationId,
+      BiFunction<MessageCursor, MessageCursor, Criteria> criteria,
+      String before,
+      String after,
+      int size) {
+    MessageCursor beforeCursor = MessageCursor.decode(before);
+    MessageCursor afterCursor = beforeCursor == null ? MessageCursor.decode(after) : null;
+    int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+    // Read away from the cursor: newer messages ascending, everything else newest first
+    boolean forward = afterCursor != null;
+    Sort.Direction direction = forward ? Sort.Direction.ASC : Sort.Direction.DESC;
+    Query query =
+        new Query(criteria.apply(beforeCursor, afterCursor))
+            .with(Sort.by(direction, "timestamp").and(Sort.by(direction, "id")))
+            .limit(pageSize + 1);
+
+    List<MessageDto> messages =
+        mongoTemplate.find(query, Message.class).stream()
+            .map(mapper::toDto)
+            .collect(Collectors.toList());
+
+    // Older messages live in the archive: continue there when the hot tier ran out, and always
+    // when reading forward since the cursor itself may point into the archive
+    if (forward) {
+      messages.addAll(messageArchiveService.read(conversationId, null, afterCursor, pageSize + 1));
+      messages =
+          messages.stream()
+              .collect(Collectors.toMap(MessageDto::id, m -> m, (a, b) -> a))
+              .values()
+              .stream()
+              .sorted(MessageArchiveService.BY_TIME)
+              .collect(Collectors.toList());
+    } else if (messages.size() <= pageSize) {
+      MessageCursor oldest =
+          messages.isEmpty() ? beforeCursor : MessageCursor.of(messages.get(messages.size() - 1));
+      messages.addAll(
+          messageArchiveService.read(conversationId, oldest, null, pageSize + 1 - messages.size()));
     }
 
-    try {
-      List<ChatPreviewProjection> rawList = getChatListFromMongo(userId);
-
-      if (rawList == null || rawList.isEmpty()) {
-        return List.of();
-      }
-
-      List<ChatDto> result = buildChatDtos(rawList);
-      return result;
-
-    } catch (Exception e) {
-      if (log.isErrorEnabled()) {
-        log.error("Error in getChatList for user {}: {}", userId, e.getMessage());
-      }
-      return List.of();
+    boolean hasMore = messages.size() > pageSize;
+    messages = new ArrayList<>(messages.subList(0, Math.min(messages.size(), pageSize)));
+    if (!forward) {
+      Collections.reverse(messages);
     }
-  }
 
-  private List<ChatPreviewProjection> getChatListFromMongo(String userId) {
-    try {
-      List<ChatPreviewProjection> result = messageRepository.findChatList(userId);
-      return result != null ? result : List.of();
-    } catch (Exception e) {
-      if (log.isErrorEnabled()) {
-        log.error("MongoDB error for user {}: {}", userId, e.getMessage());
-      }
-      return List.of();
+    if (messages.isEmpty()) {
+      return new MessagePage(messages, false, before, after);
     }
+    return new MessagePage(
+        messages,
+        hasMore,
+        MessageCursor.of(messages.get(0)).encode(),
+        MessageCursor.of(messages.get(messages.size() - 1)).encode());
   }
 
-  private List<ChatPreviewProjection> getChatListFallback(String userId) {
-    try {
-      // Manual fallback: get all messages and group them manually
-      List<Message> allMessages = messageRepository.findAll();
-
-      return allMessages.stream()
-          .filter(msg -> userId.equals(msg.getSender()) || userId.equals(msg.getReceiver()))
-          .collect(
-              Collectors.groupingBy(
-                  msg -> userId.equals(msg.getSender()) ? msg.getReceiver() : msg.getSender()))
-          .entrySet()
-          .stream()
-          .map(
-              entry -> {
-                String otherUserId = entry.getKey();
-                List<Message> userMessages = entry.getValue();
-
-                // Get the latest message
-                Message latestMessage =
-                    userMessages.stream()
-                        .max(Comparator.comparing(Message::getTimestamp))
-                        .orElse(null);
-
-                if (latestMessage == null || otherUserId == null) {
-                  return null;
-                }
-
-                return new ChatPreviewProjection() {
-                  @Override
-                  public String get_id() {
-                    return otherUserId;
-                  }
-
-                  @Override
-                  public String getLastMessage() {
-                    return latestMessage.getContent();
-                  }
-
-                  @Override
-                  public LocalDateTime getLastMessageTime() {
-                    return latestMessage.getTimestamp();
-                  }
-
-                  @Override
-                  public String getLastMessageSender() {
-                    return latestMessage.getSender();
-                  }
-                };
-              })
-          .filter(chat -> chat != null)
-          .collect(Collectors.toList());
-
-    } catch (Exception e) {
-      System.err.println("Fallback method also failed for user " + userId + ": " + e.getMessage());
-      return List.of();
+  // The conversation's messages bounded by the cursor, so the index range stays tight
+  private static Criteria bounded(Criteria criteria, MessageCursor before, MessageCursor after) {
+    if (before != null) {
+      criteria
+          .and("timestamp")
+          .lte(before.timestamp())
+          .orOperator(
+              Criteria.where("timestamp").lt(before.timestamp()),
+              Criteria.where("id").lt(before.id()));
+    } else if (after != null) {
+      criteria
+          .and("timestamp")
+          .gte(after.timestamp())
+          .orOperator(
+              Criteria.where("timestamp").gt(after.timestamp()),
+              Criteria.where("id").gt(after.id()));
     }
+    return criteria;
   }
 
-  private List<ChatDto> buildChatDtos(List<ChatPreviewProjection> rawList) {
-    // ✅ FIX: Enhanced validation and error handling
-    if (rawList == null) {
+  /** The user's chats, most recently active first, read from the conversation summaries. */
+  public List<ChatDto> getChatList(String userId, int page, int size) {
+    if (userId == null || userId.trim().isEmpty()) {
       return List.of();
     }
 
     try {
-      return rawList.stream()
-          .map(this::buildChatDto)
-          .filter(chat -> chat != null) // Remove null entries
-          .sorted(
-              Comparator.comparing(
-                      ChatDto::getLastMessageTime, Comparator.nullsLast(LocalDateTime::compareTo))
-                  .reversed()) // Newest first
+      List<Conversation> conversations = conversationService.getConversations(userId, page, size);
+      Map<String, UserProfileDto> profiles =
+          userProfileService.findByIds(
+              conversations.stream()
+                  .filter(conversation -> !conversation.isGroup())
+                  .map(conversation -> conversation.partnerOf(userId))
+                  .collect(Collectors.toSet()));
+
+      return conversations.stream()
+          .map(
+              conversation ->
+                  conversation.isGroup()
+                      ? buildThreadChatDto(userId, conversation)
+                      : buildChatDto(
+                          userId, conversation, profiles.get(conversation.partnerOf(userId))))
           .collect(Collectors.toList());
     } catch (Exception e) {
-      log.error("Error building chat DTOs: {}", e.getMessage());
+      if (log.isErrorEnabled()) {
+        log.error("Error in getChatList for user {}: {}", userId, e.getMessage());
+      }
       return List.of();
     }
   }
 
-  private ChatDto buildChatDto(ChatPreviewProjection chat) {
-    if (chat == null) return null;
-
-    String otherUserId = chat.get_id();
-    if (otherUserId == null || otherUserId.trim().isEmpty()) return null;
-
-    try {
-      UserDto user = getUserDataWithFallback(otherUserId);
-
-      return ChatDto.builder()
-          .userId(user != null ? user.id() : otherUserId)
-          .username(user != null ? safeString(user.username()) : "Unknown User")
-          .fullName(user != null ? buildFullName(user) : "Unknown User")
-          .avatar(user != null ? user.avatar() : null)
-          .lastMessage(safeString(chat.getLastMessage()))
-          .lastMessageTime(chat.getLastMessageTime())
-          .senderId(chat.getLastMessageSender())
-          .build();
-
-    } catch (Exception e) {
-      return ChatDto.builder()
-          .userId(otherUserId)
-          .username("Unknown User")
-          .fullName("Unknown User")
-          .avatar(null)
-          .lastMessage(safeString(chat.getLastMessage()))
-          .lastMessageTime(chat.getLastMessageTime())
-          .senderId(chat.getLastMessageSender()) // fallback
-          .build();
-    }
+  private ChatDto buildChatDto(String userId, Conversation conversation, UserProfileDto user) {
+    boolean hasName = user != null && !user.fullName().isEmpty();
+    Conversation.ReadWatermark partnerWatermark =
+        conversation.readWatermarkOf(conversation.partnerOf(userId));
+
+    return ChatDto.builder()
+        .userId(conversation.partnerOf(userId))
+        .username(user != null ? safeString(user.username()) : "Unknown User")
+        .fullName(hasName ? user.fullName() : "Unknown User")
+        .avatar(user != null ? user.avatar() : null)
+        .lastMessage(safeString(conversation.getLastMessage()))
+        .lastMessageTime(conversation.getLastMessageTime())
+        .senderId(conversation.getLastMessageSender())
+        .unreadCount(conversation.unreadCountFor(userId))
+        .partnerLastReadMessageId(partnerWatermark != null ? partnerWatermark.messageId() : null)
+        .build();
   }
 
-  private UserDto getUserDataWithFallback(String userId) {
-    try {
-      return userService.findByIdSafe(userId);
-    } catch (Exception e) {
-      return null;
-    }
-  }
-
-  private String buildFullName(UserDto user) {
-    String firstName = safeString(user.firstName());
-    String lastName = safeString(user.lastName());
-
-    if (firstName.isEmpty() && lastName.isEmpty()) {
-      return "Unknown User";
-    }
-
-    return (firstName + " " + lastName).trim();
+  private ChatDto buildThreadChatDto(String userId, Conversation thread) {
+    return ChatDto.builder()
+        .threadId(thread.getId())
+        .fullName(safeString(thread.getName()))
+        .lastMessage(safeString(thread.getLastMessage()))
+        .lastMessageTime(thread.getLastMessageTime())
+        .senderId(thread.getLastMessageSender())
+        .unreadCount(thread.unreadCountFor(userId))
+        .build();
   }
 
   private String safeString(String value) {
     return value != null ? value : "";
   }
 
-  @Caching(
-      evict = {
-        @CacheEvict(value = "messages", key = "#message.sender + '-' + #message.receiver"),
-        @CacheEvict(value = "messages", key = "#message.receiver + '-' + #message.sender"),
-        @CacheEvict(value = "chatLists", key = "#message.sender"),
-        @CacheEvict(value = "chatLists", key = "#message.receiver")
-      })
-  public MessageDto saveMessage(MessageDto message) {
-    Message messageEntity = mapper.toEntity(message);
-    if (message.receiver() == null) {
-      throw new IllegalArgumentException("Receiver must not be null");
-    }
-
-    // ✅ PERFORMANCE: Optimized message saving
-    Message savedMessage = messageRepository.save(messageEntity);
-    MessageDto savedDto = mapper.toDto(savedMessage);
-
-    // ✅ REAL-TIME: Update chat list cache immediately
-    updateChatListCache(savedMessage.getSender(), savedMessage.getReceiver());
-
-    return savedDto;
-  }
-
-  // ✅ REAL-TIME: Method to update chat list cache for both users
-  private void updateChatListCache(String senderId, String receiverId) {
-    try {
-      // Update sender's chat list
-      List<ChatDto> senderChatList = getChatList(senderId);
-      // Update receiver's chat list
-      List<ChatDto> receiverChatList = getChatList(receiverId);
-
-      log.debug("Updated chat list cache for users: {} and {}", senderId, receiverId);
-    } catch (Exception e) {
-      log.warn("Failed to update chat list cache: {}", e.getMessage());
-    }
-  }
-
-  // ✅ IMPROVED: Check for duplicate messages to prevent processing duplicates
-  public boolean isDuplicateMessage(MessageDto message) {
+  // Unique on clientTempId alone, which rejected messages of different senders sharing one;
+  // replaced by sender_client_temp_id_unique
+  @EventListener(ApplicationReadyEvent.class)
+  void dropLegacyIndexes() {
     try {
-      if (message == null
-          || message.content() == null
-          || message.sender() == null
-          || message.receiver() == null) {
-        return false;
+      IndexOperations indexOps = mongoTemplate.indexOps(Message.class);
+      if (indexOps.getIndexInfo().stream()
+          .anyMatch(index -> LEGACY_CLIENT_TEMP_ID_INDEX.equals(index.getName()))) {
+        indexOps.dropIndex(LEGACY_CLIENT_TEMP_ID_INDEX);
+        log.info("Dropped index {}", LEGACY_CLIENT_TEMP_ID_INDEX);
       }
-
-      // Check for recent duplicate messages (within last 10 seconds)
-      LocalDateTime tenSecondsAgo = LocalDateTime.now().minusSeconds(10);
-
-      // Look for messages with same content, sender, and receiver in recent time
-      List<Message> recentMessages =
-          messageRepository.findRecentMessagesByContentAndUsers(
-              message.content(), message.sender(), message.receiver(), tenSecondsAgo);
-
-      // If we find any recent messages with same content, it's a duplicate
-      return !recentMessages.isEmpty();
-
     } catch (Exception e) {
-      log.warn("Error checking for duplicate message: {}", e.getMessage());
-      return false; // Allow message if we can't check for duplicates
+      log.warn("Could not drop index {}: {}", LEGACY_CLIENT_TEMP_ID_INDEX, e.getMessage());
     }
   }
 
-  // ✅ BACKEND SYNC: Find message by ID or clientTempId
-  public MessageDto findMessageByIdOrTempId(String messageId, String clientTempId) {
+  /**
+   * Inserts a batch of messages with one unordered bulk write and returns the ones stored under
+   * their own ID, by this call or by an earlier attempt of it whose outcome was lost (the write
+   * went through but the call failed). Resent messages (same clientTempId, new ID) fail as
+   * duplicates and are left out.
+   */
+  List<Message> insertMessages(List<MessageDto> messages) {
+    List<Message> entities = messages.stream().map(mapper::toEntity).collect(Collectors.toList());
     try {
-      // ✅ IMPROVED: Better message finding logic
-      Message foundMessage = null;
-
-      // First try to find by message ID
-      if (messageId != null && !messageId.trim().isEmpty()) {
-        foundMessage = messageRepository.findById(messageId).orElse(null);
-      }
-
-      // If not found by ID, try to find by clientTempId
-      if (foundMessage == null && clientTempId != null && !clientTempId.trim().isEmpty()) {
-        foundMessage = messageRepository.findByClientTempId(clientTempId).orElse(null);
-      }
-
-      // ✅ IMPROVED: Also try to find by content and recent timestamp if still not
-      // found
-      if (foundMessage == null && clientTempId != null) {
-        // Look for messages with the same clientTempId in the last 10 minutes
-        LocalDateTime tenMinutesAgo = LocalDateTime.now().minusMinutes(10);
-        List<Message> recentMessages =
-            messageRepository.findByClientTempIdAndTimestampAfter(clientTempId, tenMinutesAgo);
-
-        if (!recentMessages.isEmpty()) {
-          // Take the most recent one
-          foundMessage =
-              recentMessages.stream().max(Comparator.comparing(Message::getTimestamp)).orElse(null);
+      mongoTemplate.bulkOps(BulkMode.UNORDERED, Message.class).insert(entities).execute();
+      return entities;
+    } catch (BulkOperationException e) {
+      Set<Integer> duplicates = new HashSet<>();
+      for (BulkWriteError error : e.getErrors()) {
+        if (error.getCode() != DUPLICATE_KEY_ERROR) {
+          throw e;
         }
+        duplicates.add(error.getIndex());
       }
-
-      if (foundMessage != null) {
-        return mapper.toDto(foundMessage);
-      }
-
-      return null;
-
-    } catch (Exception e) {
-      log.warn("Error finding message by ID or clientTempId: {}", e.getMessage());
-      return null;
+      Set<String> alreadyStored =
+          storedAsIs(duplicates.stream().map(entities::get).collect(Collectors.toList()));
+      return IntStream.range(0, entities.size())
+          .filter(i -> !duplicates.contains(i) || alreadyStored.contains(entities.get(i).getId()))
+          .mapToObj(entities::get)
+          .collect(Collectors.toList());
     }
   }
 
-  // ✅ IMPROVED: Find messages by multiple IDs or clientTempIds
-  public List<MessageDto> findMessagesByIdsOrTempIds(List<String> identifiers) {
-    try {
-      if (identifiers == null || identifiers.isEmpty()) {
-        return List.of();
-      }
-
-      List<Message> foundMessages = new ArrayList<>();
-
-      // Separate IDs and clientTempIds
-      List<String> messageIds = new ArrayList<>();
-      List<String> clientTempIds = new ArrayList<>();
-
-      for (String identifier : identifiers) {
-        if (identifier.startsWith("optimistic_")) {
-          clientTempIds.add(identifier);
-        } else {
-          messageIds.add(identifier);
-        }
-      }
-
-      // Find by message IDs
-      if (!messageIds.isEmpty()) {
-        List<Message> byIds = messageRepository.findAllById(messageIds);
-        foundMessages.addAll(byIds);
-      }
-
-      // Find by clientTempIds
-      if (!clientTempIds.isEmpty()) {
-        List<Message> byTempIds = messageRepository.findByClientTempIdIn(clientTempIds);
-        foundMessages.addAll(byTempIds);
-      }
+  // IDs of the messages found stored under their own ID, from the same sender and resend key
+  private Set<String> storedAsIs(List<Message> candidates) {
+    if (candidates.isEmpty()) {
+      return Set.of();
+    }
+    Map<String, Message> byId =
+        candidates.stream().collect(Collectors.toMap(Message::getId, m -> m, (a, b) -> a));
+    Query query = Query.query(Criteria.where("id").in(byId.keySet()));
+    query.fields().include("sender", "clientTempId");
+    return mongoTemplate.find(query, Message.class).stream()
+        .filter(
+            stored -> {
+              Message candidate = byId.get(stored.getId());
+              return candidate != null
+                  && Objects.equals(candidate.getSender(), stored.getSender())
+                  && Objects.equals(candidate.getClientTempId(), stored.getClientTempId());
+            })
+        .map(Message::getId)
+        .collect(Collectors.toSet());
+  }
 
-      // Remove duplicates and return DTOs
-      return foundMessages.stream().distinct().map(mapper::toDto).collect(Collectors.toList());
+  /** The sender's stored messages for the given client temp IDs, keyed by clientTempId. */
+  Map<String, MessageDto> findByClientTempIds(String sender, Collection<String> clientTempIds) {
+    return messageRepository.findBySenderAndClientTempIdIn(sender, clientTempIds).stream()
+        .collect(Collectors.toMap(Message::getClientTempId, mapper::toDto, (a, b) -> a));
+  }
 
-    } catch (Exception e) {
-      log.warn("Error finding messages by IDs or clientTempIds: {}", e.getMessage());
-      return List.of();
+  /** Updates the conversation summaries and drops the cached newest pages of stored messages. */
+  void recordInserted(List<Message> messages) {
+    if (messages.isEmpty()) {
+      return;
+    }
+    conversationService.recordMessages(messages);
+
+    Cache cache = cacheManager.getCache("messages");
+    if (cache != null) {
+      messages.stream()
+          .filter(m -> m.getThreadId() == null)
+          .flatMap(
+              m ->
+                  Stream.of(
+                      m.getSender() + "-" + m.getReceiver(), m.getReceiver() + "-" + m.getSender()))
+          .distinct()
+          .forEach(cache::evict);
     }
   }
 }
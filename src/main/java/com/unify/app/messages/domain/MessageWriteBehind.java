@@ -0,0 +1,245 @@
+package com.unify.app.messages.domain;
+
+import com.unify.app.messages.domain.models.MessageAck;
+import com.unify.app.messages.domain.models.MessageDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Persists chat messages off the inbound STOMP thread. Messages are queued on one of a fixed set of
+ * lanes chosen by conversation, so a conversation always has a single writer and its messages are
+ * stored in the order they were sent. Each lane writes what has queued up within the flush interval
+ * as one bulk insert, retrying with backoff, and then acks every message to its sender on {@code
+ * /user/{sender}/queue/message-acks}.
+ *
+ * <p>A full lane rejects new messages instead of blocking the caller. Rejected, failed and (after a
+ * crash) lost messages are never acked as persisted, so the client resends them; messages carry
+ * their server ID from the start, which makes a resent batch safe to insert again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MessageWriteBehind {
+
+  private static final String ACK_DESTINATION = "/queue/message-acks";
+  private static final long MAX_BACKOFF_MS = 2000;
+
+  private final MessageService messageService;
+  private final SimpMessagingTemplate messagingTemplate;
+
+  @Value("${unify.chat.write-behind.lanes:4}")
+  private int laneCount;
+
+  @Value("${unify.chat.write-behind.queue-capacity:10000}")
+  private int queueCapacity;
+
+  @Value("${unify.chat.write-behind.batch-size:200}")
+  private int batchSize;
+
+  @Value("${unify.chat.write-behind.flush-interval-ms:5}")
+  private long flushIntervalMs;
+
+  @Value("${unify.chat.write-behind.max-attempts:5}")
+  private int maxAttempts;
+
+  private final List<Lane> lanes = new ArrayList<>();
+  private volatile boolean running = true;
+
+  @PostConstruct
+  void start() {
+    for (int i = 0; i < laneCount; i++) {
+      Lane lane = new Lane(new ArrayBlockingQueue<>(queueCapacity));
+      lane.thread = new Thread(lane::run, "chat-writer-" + i);
+      lane.thread.setDaemon(true);
+      lane.thread.start();
+      lanes.add(lane);
+    }
+  }
+
+  /** Drains whatever is still queued before the application shuts down. */
+  @PreDestroy
+  void stop() throws InterruptedException {
+    running = false;
+    for (Lane lane : lanes) {
+      lane.thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+  }
+
+  /**
+   * Queues the message for persistence without blocking. Returns false, and sends a {@code
+   * REJECTED} ack, when its lane is full.
+   */
+  public boolean enqueue(MessageDto message) {
+    if (message.sender() == null || (message.receiver() == null && message.threadId() == null)) {
+      throw new IllegalArgumentException("Sender and receiver or thread must not be null");
+    }
+
+    String conversationId =
+        Conversation.idOf(message.sender(), message.receiver(), message.threadId());
+    Lane lane = lanes.get(Math.floorMod(conversationId.hashCode(), lanes.size()));
+    if (!running || !lane.queue.offer(message)) {
+      log.warn("Chat write queue full, rejecting message {}", message.clientTempId());
+      ack(message, MessageAck.Status.REJECTED);
+      return false;
+    }
+    return true;
+  }
+
+  /** Messages waiting to be written, across all lanes. */
+  public int backlog() {
+    return lanes.stream().mapToInt(lane -> lane.queue.size()).sum();
+  }
+
+  private void write(List<MessageDto> batch) {
+    // A resend queued behind its original is only inserted once
+    Set<String> queuedKeys = new HashSet<>();
+    List<MessageDto> toInsert = new ArrayList<>(batch.size());
+    for (MessageDto message : batch) {
+      if (message.clientTempId() == null || queuedKeys.add(resendKey(message))) {
+        toInsert.add(message);
+      }
+    }
+
+    List<Message> inserted = withRetry("insert", () -> messageService.insertMessages(toInsert));
+    if (inserted == null) {
+      batch.forEach(message -> ack(message, MessageAck.Status.FAILED));
+      return;
+    }
+
+    // The messages are stored; a failure here only leaves the chat list behind
+    withRetry(
+        "record",
+        () -> {
+          messageService.recordInserted(inserted);
+          return true;
+        });
+
+    // Resends are acked with the message that was stored first, looked up per sender since
+    // clientTempIds are only unique per sender
+    Set<String> insertedIds = inserted.stream().map(Message::getId).collect(Collectors.toSet());
+    Map<String, Set<String>> resentTempIds = new HashMap<>();
+    for (MessageDto message : batch) {
+      if (!insertedIds.contains(message.id()) && message.clientTempId() != null) {
+        resentTempIds
+            .computeIfAbsent(message.sender(), sender -> new HashSet<>())
+            .add(message.clientTempId());
+      }
+    }
+    Map<String, MessageDto> stored = new HashMap<>();
+    resentTempIds.forEach(
+        (sender, tempIds) -> {
+          Map<String, MessageDto> found =
+              withRetry("lookup", () -> messageService.findByClientTempIds(sender, tempIds));
+          if (found != null) {
+            found.values().forEach(original -> stored.put(resendKey(original), original));
+          }
+        });
+    for (MessageDto message : batch) {
+      MessageDto original =
+          insertedIds.contains(message.id()) || message.clientTempId() == null
+              ? null
+              : stored.get(resendKey(message));
+      ack(original != null ? original : message, MessageAck.Status.PERSISTED);
+    }
+  }
+
+  private static String resendKey(MessageDto message) {
+    return message.sender() + ":" + message.clientTempId();
+  }
+
+  // Returns null once all attempts failed
+  private <T> T withRetry(String step, Supplier<T> action) {
+    long backoff = 50;
+    for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+      try {
+        return action.get();
+      } catch (Exception e) {
+        log.warn(
+            "Chat write {} failed (attempt {}/{}): {}", step, attempt, maxAttempts, e.getMessage());
+        if (attempt == maxAttempts) {
+          break;
+        }
+        try {
+          Thread.sleep(backoff);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+        backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+      }
+    }
+    log.error("Giving up on chat write {} after {} attempts", step, maxAttempts);
+    return null;
+  }
+
+  private void ack(MessageDto message, MessageAck.Status status) {
+    try {
+      messagingTemplate.convertAndSend(
+          "/user/" + message.sender() + ACK_DESTINATION, MessageAck.of(message, status));
+    } catch (Exception e) {
+      log.debug("Failed to ack message {}: {}", message.clientTempId(), e.getMessage());
+    }
+  }
+
+  private class Lane {
+    private final BlockingQueue<MessageDto> queue;
+    private Thread thread;
+
+    Lane(BlockingQueue<MessageDto> queue) {
+      this.queue = queue;
+    }
+
+    void run() {
+      List<MessageDto> batch = new ArrayList<>(batchSize);
+      while (running || !queue.isEmpty()) {
+        try {
+          MessageDto first = queue.poll(100, TimeUnit.MILLISECONDS);
+          if (first == null) {
+            continue;
+          }
+          batch.add(first);
+
+          // Give the batch a few milliseconds to fill up
+          long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+          while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+              break;
+            }
+            MessageDto next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+              break;
+            }
+            batch.add(next);
+          }
+
+          write(List.copyOf(batch));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        } catch (Exception e) {
+          log.error("Chat writer failed on a batch of {}: {}", batch.size(), e.getMessage(), e);
+        } finally {
+          batch.clear();
+        }
+      }
+    }
+  }
+}
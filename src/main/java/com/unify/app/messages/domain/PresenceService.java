@@ -1,56 +1,415 @@
 package com.unify.app.messages.domain;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.unify.app.common.utils.DateTimeUtils;
+import com.unify.app.followers.domain.FollowService;
+import com.unify.app.messages.events.PresenceDelta;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
+/**
+ * Cluster-wide presence in Redis. A user is online while their entry in the {@code
+ * unify:presence:online} sorted set, scored by its expiry time, lies in the future. Each node
+ * refreshes the entries of the users connected to it, so a user whose node or client dies drops out
+ * once the TTL passes, and a sweep on every node removes expired entries.
+ *
+ * <p>The STOMP sessions of each user are kept in a sorted set per user as well, across all nodes
+ * and scored the same way. A closing session takes its user offline only when no session is left in
+ * that set, so a user still connected to another node stays online.
+ *
+ * <p>Going online or offline is published on {@link #CHANGES_CHANNEL}. Every node updates its near
+ * cache and queues a {@link PresenceDelta} for those of its connected users who follow the user;
+ * the queued deltas are sent as one batch per user and flush interval on {@code
+ * /user/{userId}/queue/presence}. Users thereby only see the presence of people they follow, at a
+ * cost per change that grows with the number of followers online rather than with everyone online.
+ */
+@Slf4j
 @Service
-public class PresenceService {
+public class PresenceService implements MessageListener {
 
-  private final Map<String, Boolean> activeUsers = new ConcurrentHashMap<>();
-  private final Map<String, LocalDateTime> lastActive = new ConcurrentHashMap<>();
-  private final Map<String, String> typingTo = new ConcurrentHashMap<>();
+  static final String ONLINE_KEY = "unify:presence:online";
+  static final String LAST_ACTIVE_KEY = "unify:presence:last-active";
+  static final String SESSIONS_KEY_PREFIX = "unify:presence:sessions:";
+  public static final String CHANGES_CHANNEL = "unify:presence:changes";
+
+  private static final ZoneId VIETNAM_ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+
+  // Removes and returns the expired entries; atomic, so each expiry is announced by one node
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> REMOVE_EXPIRED =
+      new DefaultRedisScript<>(
+          """
+          local expired = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2])
+          if #expired > 0 then
+            redis.call('ZREM', KEYS[1], unpack(expired))
+          end
+          return expired
+          """,
+          List.class);
+
+  private static final RedisScript<Long> REFRESH =
+      new DefaultRedisScript<>(
+          """
+          for i = 3, #ARGV do
+            if redis.call('ZADD', KEYS[1], ARGV[2], ARGV[i]) == 1 then
+              redis.call('PUBLISH', KEYS[2], '1|' .. ARGV[1] .. '|' .. ARGV[i])
+            end
+          end
+          return #ARGV - 2
+          """,
+          Long.class);
+
+  // Adds the session and puts its user online, announcing them if they were not
+  static final RedisScript<Long> CONNECT =
+      new DefaultRedisScript<>(
+          """
+          redis.call('ZADD', KEYS[1], ARGV[2], ARGV[3])
+          redis.call('PEXPIRE', KEYS[1], ARGV[5])
+          if redis.call('ZADD', KEYS[2], ARGV[2], ARGV[4]) == 1 then
+            redis.call('PUBLISH', KEYS[3], '1|' .. ARGV[1] .. '|' .. ARGV[4])
+            return 1
+          end
+          return 0
+          """,
+          Long.class);
+
+  // Removes the session and, when the user has no live session left on any node, takes them
+  // offline
+  static final RedisScript<Long> DISCONNECT =
+      new DefaultRedisScript<>(
+          """
+          redis.call('ZREM', KEYS[1], ARGV[2])
+          redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[1])
+          if redis.call('ZCARD', KEYS[1]) > 0 then
+            return 0
+          end
+          if redis.call('ZREM', KEYS[2], ARGV[3]) == 1 then
+            redis.call('PUBLISH', KEYS[3], '0|' .. ARGV[1] .. '|' .. ARGV[3])
+            return 1
+          end
+          return 0
+          """,
+          Long.class);
+
+  private final StringRedisTemplate redisTemplate;
+  private final SimpMessagingTemplate messagingTemplate;
+  private final RedisMessageListenerContainer listenerContainer;
+  private final FollowService followService;
+  private final long ttlMillis;
+  private final int sweepBatchSize;
+
+  // Users with a live STOMP session on this node
+  private final Map<String, String> userBySession = new ConcurrentHashMap<>();
+  private final Map<String, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+  private final Cache<String, Boolean> nearCache;
+  // Followed user -> connected users on this node who follow them, and the reverse
+  private final Map<String, Set<String>> watchersByUser = new ConcurrentHashMap<>();
+  private final Map<String, List<String>> watchedBySubscriber = new ConcurrentHashMap<>();
+  // Subscriber -> latest state of each changed user since the last flush
+  private final Map<String, Map<String, Boolean>> pendingDeltas = new ConcurrentHashMap<>();
+
+  public PresenceService(
+      StringRedisTemplate redisTemplate,
+      SimpMessagingTemplate messagingTemplate,
+      RedisMessageListenerContainer listenerContainer,
+      FollowService followService,
+      @Value("${unify.presence.ttl-seconds:90}") long ttlSeconds,
+      @Value("${unify.presence.near-cache-seconds:5}") long nearCacheSeconds,
+      @Value("${unify.presence.sweep-batch-size:1000}") int sweepBatchSize) {
+    this.redisTemplate = redisTemplate;
+    this.messagingTemplate = messagingTemplate;
+    this.listenerContainer = listenerContainer;
+    this.followService = followService;
+    this.ttlMillis = Duration.ofSeconds(ttlSeconds).toMillis();
+    this.sweepBatchSize = sweepBatchSize;
+    this.nearCache =
+        Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofSeconds(nearCacheSeconds))
+            .build();
+  }
+
+  @PostConstruct
+  void subscribe() {
+    listenerContainer.addMessageListener(this, new ChannelTopic(CHANGES_CHANNEL));
+  }
+
+  /** Marks the user online and keeps them so for as long as the STOMP session stays open. */
+  public void connect(String userId, String sessionId) {
+    if (sessionId == null) {
+      setActive(userId);
+      return;
+    }
+    String previous = userBySession.put(sessionId, userId);
+    if (previous != null && !previous.equals(userId)) {
+      disconnect(previous, sessionId);
+    }
+    Set<String> sessions =
+        sessionsByUser.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet());
+    if (sessions.isEmpty()) {
+      watch(userId);
+    }
+    sessions.add(sessionId);
+
+    long now = System.currentTimeMillis();
+    redisTemplate.execute(
+        CONNECT,
+        List.of(sessionsKey(userId), ONLINE_KEY, CHANGES_CHANNEL),
+        Long.toString(now),
+        Long.toString(now + ttlMillis),
+        sessionId,
+        userId,
+        Long.toString(ttlMillis));
+    redisTemplate.opsForHash().put(LAST_ACTIVE_KEY, userId, Long.toString(now));
+  }
+
+  // Follows made while connected are picked up on the next connect
+  private void watch(String subscriberId) {
+    List<String> watched = followService.getFollowingIds(subscriberId);
+    watchedBySubscriber.put(subscriberId, watched);
+    watched.forEach(
+        userId ->
+            watchersByUser
+                .computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet())
+                .add(subscriberId));
+  }
+
+  private void unwatch(String subscriberId) {
+    List<String> watched = watchedBySubscriber.remove(subscriberId);
+    if (watched != null) {
+      watched.forEach(
+          userId ->
+              watchersByUser.computeIfPresent(
+                  userId,
+                  (k, watchers) -> {
+                    watchers.remove(subscriberId);
+                    return watchers.isEmpty() ? null : watchers;
+                  }));
+    }
+    pendingDeltas.remove(subscriberId);
+  }
+
+  @EventListener
+  public void onSessionDisconnect(SessionDisconnectEvent event) {
+    String userId = userBySession.remove(event.getSessionId());
+    if (userId != null) {
+      disconnect(userId, event.getSessionId());
+    }
+  }
+
+  /**
+   * The client left without closing the session, e.g. its tab went to the background. Only that
+   * session stops counting; the user stays online while they have others, here or on other nodes.
+   */
+  public void setInactive(String userId, String sessionId) {
+    if (sessionId != null && userBySession.remove(sessionId, userId)) {
+      disconnect(userId, sessionId);
+    }
+  }
+
+  private void disconnect(String userId, String sessionId) {
+    removeSession(userId, sessionId);
+    long now = System.currentTimeMillis();
+    redisTemplate.execute(
+        DISCONNECT,
+        List.of(sessionsKey(userId), ONLINE_KEY, CHANGES_CHANNEL),
+        Long.toString(now),
+        sessionId,
+        userId);
+    redisTemplate.opsForHash().put(LAST_ACTIVE_KEY, userId, Long.toString(now));
+  }
+
+  // Only this node's bookkeeping; the user stops watching once their last session here is gone
+  private void removeSession(String userId, String sessionId) {
+    Set<String> sessions = sessionsByUser.get(userId);
+    if (sessions == null) {
+      return;
+    }
+    sessions.remove(sessionId);
+    if (sessionsByUser.computeIfPresent(userId, (k, v) -> v.isEmpty() ? null : v) == null) {
+      unwatch(userId);
+    }
+  }
 
   public void setActive(String userId) {
-    activeUsers.put(userId, true);
-    lastActive.put(userId, DateTimeUtils.nowVietnam());
+    long now = System.currentTimeMillis();
+    Boolean added = redisTemplate.opsForZSet().add(ONLINE_KEY, userId, now + ttlMillis);
+    redisTemplate.opsForHash().put(LAST_ACTIVE_KEY, userId, Long.toString(now));
+    if (Boolean.TRUE.equals(added)) {
+      publish(userId, true, now);
+    }
   }
 
-  public void setInactive(String userId) {
-    activeUsers.put(userId, false);
-    lastActive.put(userId, DateTimeUtils.nowVietnam());
+  /**
+   * Pushes the expiry of every user and session connected to this node forward, the users in one
+   * script call. Users who had dropped out meanwhile, e.g. after a long GC pause, are announced as
+   * online again.
+   */
+  @Scheduled(fixedDelayString = "${unify.presence.heartbeat-interval-ms:30000}")
+  public void heartbeat() {
+    if (sessionsByUser.isEmpty()) {
+      return;
+    }
+    try {
+      long now = System.currentTimeMillis();
+      long expiresAt = now + ttlMillis;
+      redisTemplate.executePipelined(
+          (RedisCallback<Object>)
+              connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                sessionsByUser.forEach(
+                    (userId, sessionIds) -> {
+                      String key = sessionsKey(userId);
+                      sessionIds.forEach(sessionId -> redis.zAdd(key, expiresAt, sessionId));
+                      redis.pExpire(key, ttlMillis);
+                    });
+                return null;
+              });
+
+      List<String> args = new ArrayList<>(sessionsByUser.size() + 2);
+      args.add(Long.toString(now));
+      args.add(Long.toString(expiresAt));
+      args.addAll(sessionsByUser.keySet());
+      redisTemplate.execute(
+          REFRESH, List.of(ONLINE_KEY, CHANGES_CHANNEL), args.toArray(new Object[0]));
+    } catch (Exception e) {
+      log.warn("Presence heartbeat failed: {}", e.getMessage());
+    }
   }
 
-  public boolean isActive(String userId) {
-    return activeUsers.getOrDefault(userId, false);
+  /** Takes users whose entry expired offline, on whichever node gets to them first. */
+  @Scheduled(fixedDelayString = "${unify.presence.sweep-interval-ms:15000}")
+  @SuppressWarnings("unchecked")
+  public void sweep() {
+    try {
+      long now = System.currentTimeMillis();
+      List<String> expired =
+          redisTemplate.execute(
+              REMOVE_EXPIRED,
+              List.of(ONLINE_KEY),
+              Long.toString(now),
+              Integer.toString(sweepBatchSize));
+      if (expired != null) {
+        expired.forEach(userId -> publish(userId, false, now));
+      }
+    } catch (Exception e) {
+      log.warn("Presence sweep failed: {}", e.getMessage());
+    }
   }
 
-  public LocalDateTime getLastActive(String userId) {
-    return lastActive.getOrDefault(userId, DateTimeUtils.nowVietnam());
+  private void publish(String userId, boolean online, long at) {
+    redisTemplate.convertAndSend(CHANGES_CHANNEL, (online ? "1|" : "0|") + at + "|" + userId);
   }
 
-  public void setTyping(String fromUser, String toUser) {
-    typingTo.put(fromUser, toUser);
+  @Override
+  public void onMessage(@NonNull Message message, byte[] pattern) {
+    String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+    if (parts.length != 3) {
+      return;
+    }
+    boolean online = "1".equals(parts[0]);
+    String userId = parts[2];
+    nearCache.put(userId, online);
+
+    Set<String> watchers = watchersByUser.get(userId);
+    if (watchers != null) {
+      for (String subscriberId : watchers) {
+        pendingDeltas
+            .computeIfAbsent(subscriberId, k -> new ConcurrentHashMap<>())
+            .put(userId, online);
+      }
+    }
   }
 
-  public void clearTyping(String fromUser) {
-    typingTo.remove(fromUser);
+  /** Sends each subscriber the changes queued for them as a single frame. */
+  @Scheduled(fixedDelayString = "${unify.presence.delta-flush-interval-ms:250}")
+  public void flushDeltas() {
+    for (String subscriberId : pendingDeltas.keySet()) {
+      Map<String, Boolean> changes = pendingDeltas.remove(subscriberId);
+      if (changes == null || changes.isEmpty()) {
+        continue;
+      }
+      List<PresenceDelta> deltas = new ArrayList<>(changes.size());
+      changes.forEach((userId, online) -> deltas.add(new PresenceDelta(userId, online)));
+      try {
+        messagingTemplate.convertAndSend("/user/" + subscriberId + "/queue/presence", deltas);
+      } catch (Exception e) {
+        log.debug("Failed to send presence to {}: {}", subscriberId, e.getMessage());
+      }
+    }
   }
 
-  public String typingTo(String fromUser) {
-    return typingTo.get(fromUser);
+  public boolean isActive(String userId) {
+    return nearCache.get(
+        userId,
+        id -> {
+          Double expiry = redisTemplate.opsForZSet().score(ONLINE_KEY, id);
+          return expiry != null && expiry > System.currentTimeMillis();
+        });
+  }
+
+  public LocalDateTime getLastActive(String userId) {
+    Object lastActive = redisTemplate.opsForHash().get(LAST_ACTIVE_KEY, userId);
+    return lastActive != null
+        ? toLocalDateTime(Long.parseLong(lastActive.toString()))
+        : DateTimeUtils.nowVietnam();
   }
 
-  // === New Methods for Online Users Feature ===
+  /** The users followed by the given user who are online right now, in one ZMSCORE. */
+  public Set<String> getOnlineFollowing(String userId) {
+    List<String> watched = watchedBySubscriber.get(userId);
+    if (watched == null) {
+      watched = followService.getFollowingIds(userId);
+    }
+    if (watched.isEmpty()) {
+      return Set.of();
+    }
+
+    List<Double> expiries = redisTemplate.opsForZSet().score(ONLINE_KEY, watched.toArray());
+    long now = System.currentTimeMillis();
+    Set<String> online = new HashSet<>();
+    for (int i = 0; expiries != null && i < watched.size(); i++) {
+      Double expiry = expiries.get(i);
+      if (expiry != null && expiry > now) {
+        online.add(watched.get(i));
+      }
+    }
+    return online;
+  }
+
+  private static String sessionsKey(String userId) {
+    return SESSIONS_KEY_PREFIX + userId;
+  }
 
-  public Set<String> getOnlineUsers() {
-    // return only users marked as active
-    return activeUsers.entrySet().stream()
-        .filter(Map.Entry::getValue)
-        .map(Map.Entry::getKey)
-        .collect(java.util.stream.Collectors.toSet());
+  private static LocalDateTime toLocalDateTime(long epochMillis) {
+    return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), VIETNAM_ZONE);
   }
 }
@@ -0,0 +1,89 @@
+package com.unify.app.messages.domain;
+
+import com.unify.app.messages.domain.models.ReadReceiptDto;
+import com.unify.app.messages.domain.models.UnreadCountDto;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Coalesces read receipts. Clients may ack every message they see; only the furthest receipt per
+ * reader and conversation is kept and applied once per flush interval. Each applied receipt is
+ * pushed to the partner on {@code /queue/read-receipts}, or to a group thread's members on its
+ * {@code .reads} topic, and the reader's new unread count to the reader on {@code
+ * /queue/unread-counts}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReadReceiptService {
+
+  private final ConversationService conversationService;
+  private final SimpMessagingTemplate messagingTemplate;
+
+  private final Map<String, ReadReceiptDto> pending = new ConcurrentHashMap<>();
+
+  public void submit(ReadReceiptDto receipt) {
+    if (receipt.readerId() == null
+        || (receipt.partnerId() == null && receipt.threadId() == null)
+        || receipt.messageId() == null
+        || receipt.timestamp() == null) {
+      return;
+    }
+    pending.merge(
+        Conversation.idOf(receipt.readerId(), receipt.partnerId(), receipt.threadId())
+            + ":"
+            + receipt.readerId(),
+        receipt,
+        (current, next) -> next.timestamp().isAfter(current.timestamp()) ? next : current);
+  }
+
+  @PreDestroy
+  @Scheduled(fixedDelayString = "${unify.chat.read-receipt-flush-interval-ms:1000}")
+  public void flush() {
+    for (String key : pending.keySet()) {
+      ReadReceiptDto receipt = pending.remove(key);
+      if (receipt != null) {
+        apply(receipt);
+      }
+    }
+  }
+
+  private void apply(ReadReceiptDto receipt) {
+    try {
+      boolean thread = receipt.threadId() != null;
+      Long unread =
+          thread
+              ? conversationService.markThreadRead(
+                  receipt.readerId(), receipt.threadId(), receipt.messageId(), receipt.timestamp())
+              : conversationService.markRead(
+                  receipt.readerId(),
+                  receipt.partnerId(),
+                  receipt.messageId(),
+                  receipt.timestamp());
+      if (unread == null) {
+        return;
+      }
+
+      messagingTemplate.convertAndSend(
+          thread
+              ? GroupThreadService.TOPIC_PREFIX + receipt.threadId() + ".reads"
+              : "/user/" + receipt.partnerId() + "/queue/read-receipts",
+          receipt);
+      messagingTemplate.convertAndSend(
+          "/user/" + receipt.readerId() + "/queue/unread-counts",
+          new UnreadCountDto(receipt.partnerId(), receipt.threadId(), unread));
+    } catch (Exception e) {
+      log.warn(
+          "Failed to apply read receipt of {} for {}: {}",
+          receipt.readerId(),
+          receipt.partnerId(),
+          e.getMessage());
+    }
+  }
+}
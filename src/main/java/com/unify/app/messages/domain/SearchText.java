@@ -0,0 +1,69 @@
+package com.unify.app.messages.domain;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Folding of message text for search. Each character is lower-cased and stripped of its diacritics
+ * (so Vietnamese "Đã nhắn" and "da nhan" match), one character for one character, which keeps
+ * offsets in the folded text valid in the original for highlighting.
+ */
+final class SearchText {
+
+  private static final Pattern TOKEN_SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  private SearchText() {}
+
+  static String fold(String text) {
+    if (text == null) {
+      return null;
+    }
+    char[] folded = new char[text.length()];
+    for (int i = 0; i < text.length(); i++) {
+      folded[i] = fold(text.charAt(i));
+    }
+    return new String(folded);
+  }
+
+  private static char fold(char c) {
+    if (c < 0x80) {
+      return Character.toLowerCase(c);
+    }
+    if (c == 'đ' || c == 'Đ') {
+      return 'd';
+    }
+    String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+    return Character.toLowerCase(decomposed.charAt(0));
+  }
+
+  /** Distinct folded search terms of a query, at most {@code maxTerms}. */
+  static List<String> terms(String query, int maxTerms) {
+    if (query == null) {
+      return List.of();
+    }
+    return Arrays.stream(TOKEN_SPLIT.split(fold(query)))
+        .filter(term -> !term.isEmpty())
+        .distinct()
+        .limit(maxTerms)
+        .toList();
+  }
+
+  /** Start and end offsets of every occurrence of the terms in the text, in order. */
+  static List<int[]> highlights(String text, List<String> terms) {
+    List<int[]> ranges = new ArrayList<>();
+    if (text == null || terms.isEmpty()) {
+      return ranges;
+    }
+    String folded = fold(text);
+    for (String term : terms) {
+      for (int at = folded.indexOf(term); at >= 0; at = folded.indexOf(term, at + term.length())) {
+        ranges.add(new int[] {at, at + term.length()});
+      }
+    }
+    ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+    return ranges;
+  }
+}
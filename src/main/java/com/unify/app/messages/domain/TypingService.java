@@ -0,0 +1,184 @@
+package com.unify.app.messages.domain;
+
+import com.unify.app.common.utils.DateTimeUtils;
+import com.unify.app.messages.events.TypingEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Turns the typing events clients send on every keystroke into one start and one stop per typing
+ * burst. A start is forwarded when a user begins typing to a partner or thread; later keystrokes
+ * only push the pair's expiry back. The stop is forwarded when the client says so or, failing that,
+ * when the expiry passes.
+ *
+ * <p>Expiries are kept on a timer wheel: a ring of buckets, one per tick, walked by a single
+ * scheduled task. Extending an expiry does not move the entry; when its old bucket comes up it is
+ * put back in the bucket of its new expiry, so a burst costs one wheel insert per TTL, not one per
+ * keystroke.
+ *
+ * <p>Events go only to the conversation: {@code /user/{toUser}/queue/typing} for a direct chat, the
+ * thread's {@code .typing} topic for a group thread.
+ */
+@Slf4j
+@Service
+public class TypingService {
+
+  private final SimpMessagingTemplate messagingTemplate;
+  private final GroupThreadService groupThreadService;
+  private final long ttlMillis;
+  private final long tickMillis;
+
+  // (from, conversation) -> burst in progress
+  private final Map<String, Typing> typing = new ConcurrentHashMap<>();
+  private final List<Queue<Typing>> wheel;
+  // Next tick to process; only touched by the ticking thread
+  private long nextTick;
+
+  public TypingService(
+      SimpMessagingTemplate messagingTemplate,
+      GroupThreadService groupThreadService,
+      @Value("${unify.chat.typing.ttl-ms:5000}") long ttlMillis,
+      @Value("${unify.chat.typing.tick-ms:250}") long tickMillis) {
+    this.messagingTemplate = messagingTemplate;
+    this.groupThreadService = groupThreadService;
+    this.ttlMillis = ttlMillis;
+    this.tickMillis = tickMillis;
+    // The wheel spans more than one TTL, so a new expiry never lands in a bucket already passed
+    int buckets = (int) (ttlMillis / tickMillis) + 2;
+    this.wheel = new ArrayList<>(buckets);
+    for (int i = 0; i < buckets; i++) {
+      wheel.add(new ConcurrentLinkedQueue<>());
+    }
+    this.nextTick = System.currentTimeMillis() / tickMillis;
+  }
+
+  public void submit(TypingEvent event) {
+    submit(event, System.currentTimeMillis());
+  }
+
+  void submit(TypingEvent event, long now) {
+    if (event.fromUser() == null || (event.toUser() == null && event.threadId() == null)) {
+      return;
+    }
+    if (event.threadId() != null
+        && !groupThreadService.isMember(event.threadId(), event.fromUser())) {
+      return;
+    }
+
+    String key =
+        event.fromUser()
+            + ":"
+            + Conversation.idOf(event.fromUser(), event.toUser(), event.threadId());
+    if (!event.typing()) {
+      Typing stopped = typing.remove(key);
+      if (stopped != null) {
+        send(stopped, false);
+      }
+      return;
+    }
+
+    boolean[] started = {false};
+    Typing current =
+        typing.compute(
+            key,
+            (k, existing) -> {
+              if (existing != null) {
+                existing.expiresAt = now + ttlMillis;
+                return existing;
+              }
+              started[0] = true;
+              return new Typing(
+                  k, event.fromUser(), event.toUser(), event.threadId(), now + ttlMillis);
+            });
+    if (started[0]) {
+      schedule(current);
+      send(current, true);
+    }
+  }
+
+  @Scheduled(fixedRateString = "${unify.chat.typing.tick-ms:250}")
+  public void tick() {
+    tick(System.currentTimeMillis());
+  }
+
+  synchronized void tick(long now) {
+    long currentTick = now / tickMillis;
+    // After a long pause each bucket is visited once
+    nextTick = Math.max(nextTick, currentTick - wheel.size() + 1);
+    for (; nextTick <= currentTick; nextTick++) {
+      Queue<Typing> bucket = bucketOf(nextTick);
+      List<Typing> due = new ArrayList<>();
+      for (Typing entry; (entry = bucket.poll()) != null; ) {
+        due.add(entry);
+      }
+      for (Typing entry : due) {
+        if (typing.get(entry.key) != entry) {
+          // Stopped by the client already
+          continue;
+        }
+        if (entry.expiresAt > now) {
+          schedule(entry);
+        } else if (typing.remove(entry.key, entry)) {
+          send(entry, false);
+        }
+      }
+    }
+  }
+
+  /** Bursts in progress, for tests and metrics. */
+  int activeCount() {
+    return typing.size();
+  }
+
+  private void schedule(Typing entry) {
+    bucketOf(entry.expiresAt / tickMillis).add(entry);
+  }
+
+  private Queue<Typing> bucketOf(long tick) {
+    return wheel.get((int) Math.floorMod(tick, (long) wheel.size()));
+  }
+
+  private void send(Typing entry, boolean active) {
+    TypingEvent event =
+        new TypingEvent(
+            entry.fromUser,
+            entry.toUser,
+            active,
+            DateTimeUtils.nowVietnam().toString(),
+            entry.threadId);
+    try {
+      messagingTemplate.convertAndSend(
+          entry.threadId != null
+              ? GroupThreadService.TOPIC_PREFIX + entry.threadId + ".typing"
+              : "/user/" + entry.toUser + "/queue/typing",
+          event);
+    } catch (Exception e) {
+      log.debug("Failed to send typing event from {}: {}", entry.fromUser, e.getMessage());
+    }
+  }
+
+  private static final class Typing {
+    private final String key;
+    private final String fromUser;
+    private final String toUser;
+    private final String threadId;
+    private volatile long expiresAt;
+
+    Typing(String key, String fromUser, String toUser, String threadId, long expiresAt) {
+      this.key = key;
+      this.fromUser = fromUser;
+      this.toUser = toUser;
+      this.threadId = threadId;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -11,11 +11,17 @@ import lombok.Setter;
 @Setter
 @Builder
 public class ChatDto implements Serializable {
+  // Set for direct chats
   String userId;
+  // Set for group threads, whose name is in fullName
+  String threadId;
   String username;
   String fullName;
   AvatarDto avatar;
   String lastMessage;
   LocalDateTime lastMessageTime;
   String senderId;
+  long unreadCount;
+  // Last message the other user has read, for "seen" markers
+  String partnerLastReadMessageId;
 }
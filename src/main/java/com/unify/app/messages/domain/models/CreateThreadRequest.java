@@ -0,0 +1,5 @@
+package com.unify.app.messages.domain.models;
+
+import java.util.Set;
+
+public record CreateThreadRequest(String name, Set<String> memberIds) {}
@@ -0,0 +1,9 @@
+package com.unify.app.messages.domain.models;
+
+import java.util.List;
+
+/**
+ * A group chat. Members receive its messages by subscribing to {@code /topic/threads.{id}} and its
+ * read receipts on {@code /topic/threads.{id}.reads}.
+ */
+public record GroupThreadDto(String id, String name, List<String> memberIds) {}
@@ -0,0 +1,23 @@
+package com.unify.app.messages.domain.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tells the sender what happened to a message they sent, matched on {@code clientTempId}. Only a
+ * {@code PERSISTED} ack means the message is stored; after {@code REJECTED} or {@code FAILED}, or
+ * no ack at all, the client resends it.
+ */
+public record MessageAck(
+    String clientTempId, String id, LocalDateTime timestamp, MessageAck.Status status) {
+
+  public enum Status {
+    PERSISTED,
+    // The write queue was full; resend after a short delay
+    REJECTED,
+    FAILED
+  }
+
+  public static MessageAck of(MessageDto message, Status status) {
+    return new MessageAck(message.clientTempId(), message.id(), message.timestamp(), status);
+  }
+}
@@ -0,0 +1,41 @@
+package com.unify.app.messages.domain.models;
+
+import com.unify.app.common.exceptions.BadRequestException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/** Opaque keyset cursor for conversation history, positioned at a message's (timestamp, id). */
+public record MessageCursor(LocalDateTime timestamp, String id) {
+
+  private static final String SEPARATOR = "|";
+
+  public static MessageCursor of(MessageDto message) {
+    return new MessageCursor(message.timestamp(), message.id());
+  }
+
+  public String encode() {
+    String raw = timestamp + SEPARATOR + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Returns null for a missing cursor. */
+  public static MessageCursor decode(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      String[] parts = raw.split("\\|", 2);
+      if (parts.length != 2 || parts[1].isEmpty()) {
+        throw new BadRequestException("Invalid cursor");
+      }
+      return new MessageCursor(LocalDateTime.parse(parts[0]), parts[1]);
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new BadRequestException("Invalid cursor");
+    }
+  }
+}
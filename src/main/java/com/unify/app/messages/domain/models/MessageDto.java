@@ -14,7 +14,9 @@ public record MessageDto(
     List<String> fileUrls,
     MessageType type,
     String clientTempId,
-    String replyToMessageId) {
+    String replyToMessageId,
+    // Set for group messages, which have no receiver
+    String threadId) {
 
   public static MessageDto withCurrentTimestamp(MessageDto message) {
     // Ensure a server-generated id exists to keep ordering stable across clients
@@ -38,6 +40,21 @@ public record MessageDto(
         message.fileUrls(),
         message.type(),
         message.clientTempId(),
-        message.replyToMessageId());
+        message.replyToMessageId(),
+        message.threadId());
+  }
+
+  public static MessageDto withSender(MessageDto message, String sender) {
+    return new MessageDto(
+        message.id(),
+        sender,
+        message.receiver(),
+        message.content(),
+        message.timestamp(),
+        message.fileUrls(),
+        message.type(),
+        message.clientTempId(),
+        message.replyToMessageId(),
+        message.threadId());
   }
 }
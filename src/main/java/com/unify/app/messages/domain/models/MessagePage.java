@@ -0,0 +1,11 @@
+package com.unify.app.messages.domain.models;
+
+import java.util.List;
+
+/**
+ * One page of a conversation, oldest message first. {@code olderCursor} and {@code newerCursor}
+ * point at the first and last message and are passed back as {@code before} / {@code after} to page
+ * further; {@code hasMore} tells whether more messages exist in the requested direction.
+ */
+public record MessagePage(
+    List<MessageDto> messages, boolean hasMore, String olderCursor, String newerCursor) {}
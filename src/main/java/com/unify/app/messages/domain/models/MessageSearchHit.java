@@ -0,0 +1,12 @@
+package com.unify.app.messages.domain.models;
+
+import java.util.List;
+
+/**
+ * A message matching a search, with the {@code [start, end)} character ranges of the matched terms
+ * in its content.
+ */
+public record MessageSearchHit(MessageDto message, List<Highlight> highlights) {
+
+  public record Highlight(int start, int end) {}
+}
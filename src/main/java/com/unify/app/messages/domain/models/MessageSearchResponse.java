@@ -0,0 +1,7 @@
+package com.unify.app.messages.domain.models;
+
+import java.util.List;
+
+/** One page of message search results, best matches first. */
+public record MessageSearchResponse(
+    List<MessageSearchHit> hits, boolean hasNextPage, int currentPage) {}
@@ -0,0 +1,15 @@
+package com.unify.app.messages.domain.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * {@code readerId} has read the conversation with {@code partnerId}, or the group thread {@code
+ * threadId}, up to and including the given message. Sent by clients to {@code /chat.read} and
+ * pushed to the partner, or the thread's members, once applied.
+ */
+public record ReadReceiptDto(
+    String readerId,
+    String partnerId,
+    String messageId,
+    LocalDateTime timestamp,
+    String threadId) {}
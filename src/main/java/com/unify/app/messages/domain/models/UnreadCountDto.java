@@ -0,0 +1,7 @@
+package com.unify.app.messages.domain.models;
+
+/**
+ * The reader's unread count in the conversation with {@code partnerId}, or in the group thread
+ * {@code threadId}, after a read receipt.
+ */
+public record UnreadCountDto(String partnerId, String threadId, long unreadCount) {}
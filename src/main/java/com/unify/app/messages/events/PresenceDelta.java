@@ -0,0 +1,3 @@
+package com.unify.app.messages.events;
+
+public record PresenceDelta(String userId, boolean online) {}
@@ -0,0 +1,7 @@
+package com.unify.app.messages.events;
+
+/**
+ * Published on every node once the members of a group thread changed there or on another node, and
+ * the node's cached member set has been dropped.
+ */
+public record ThreadMembershipChangedEvent(String threadId) {}
@@ -1,3 +1,5 @@
 package com.unify.app.messages.events;
 
-public record TypingEvent(String fromUser, String toUser, boolean typing, String timestamp) {}
+// threadId is set instead of toUser for group threads
+public record TypingEvent(
+    String fromUser, String toUser, boolean typing, String timestamp, String threadId) {}
@@ -1,14 +1,29 @@
 package com.unify.app.messages.web;
 
+import com.unify.app.messages.domain.GroupThreadService;
+import com.unify.app.messages.domain.MessageDedupWindow;
+import com.unify.app.messages.domain.MessageSearchService;
 import com.unify.app.messages.domain.MessageService;
+import com.unify.app.messages.domain.MessageWriteBehind;
+import com.unify.app.messages.domain.ReadReceiptService;
 import com.unify.app.messages.domain.models.ChatDto;
+import com.unify.app.messages.domain.models.CreateThreadRequest;
+import com.unify.app.messages.domain.models.GroupThreadDto;
 import com.unify.app.messages.domain.models.MessageDto;
+import com.unify.app.messages.domain.models.MessagePage;
+import com.unify.app.messages.domain.models.MessageSearchResponse;
+import com.unify.app.messages.domain.models.ReadReceiptDto;
+import com.unify.app.users.domain.UserService;
+import com.unify.app.ws.ThreadSubscriptionGuard;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,28 +35,132 @@ public class MessageController {
 
   private final SimpMessagingTemplate messagingTemplate;
   private final MessageService messageService;
+  private final MessageWriteBehind messageWriteBehind;
+  private final MessageDedupWindow messageDedupWindow;
+  private final ReadReceiptService readReceiptService;
+  private final MessageSearchService messageSearchService;
+  private final GroupThreadService groupThreadService;
+  private final UserService userService;
+  private final ThreadSubscriptionGuard threadSubscriptionGuard;
 
   @GetMapping("/{user1}/{user2}")
   public List<MessageDto> getMessagesBetweenUsers(
       @PathVariable String user1, @PathVariable String user2) {
-    return messageService.getMessagesBySenderAndReceiver(user1, user2);
+    // The newest page only; older messages are read through /history
+    return messageService
+        .getMessagePage(user1, user2, null, null, MessageService.DEFAULT_PAGE_SIZE)
+        .messages();
+  }
+
+  @GetMapping("/{user1}/{user2}/history")
+  public MessagePage getMessageHistory(
+      @PathVariable String user1,
+      @PathVariable String user2,
+      @RequestParam(required = false) String before,
+      @RequestParam(required = false) String after,
+      @RequestParam(defaultValue = "" + MessageService.DEFAULT_PAGE_SIZE) int size) {
+    return messageService.getMessagePage(user1, user2, before, after, size);
+  }
+
+  // Scoped to the caller's own conversations
+  @GetMapping("/search")
+  public MessageSearchResponse searchMessages(
+      @RequestParam String q,
+      @RequestParam(required = false) String partnerId,
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "20") int size) {
+    return messageSearchService.search(userService.getMyInfo().id(), partnerId, q, page, size);
+  }
+
+  @PostMapping("/search/rebuild")
+  public ResponseEntity<Map<String, Long>> rebuildSearchIndex() {
+    return ResponseEntity.ok(Map.of("updated", messageSearchService.rebuildIndex()));
   }
 
   @MessageMapping("/chat.send")
   public void sendMessageHttp(@Payload MessageDto message) {
 
     MessageDto updateMessage = MessageDto.withCurrentTimestamp(message);
-    System.out.println("Message " + updateMessage);
+    if (messageDedupWindow.isDuplicate(message.sender(), message.clientTempId())) {
+      // A resend: don't deliver it again, only queue it so the sender gets its ack
+      messageWriteBehind.enqueue(updateMessage);
+      return;
+    }
     messagingTemplate.convertAndSend(
         "/user/" + message.sender() + "/queue/messages", updateMessage);
     messagingTemplate.convertAndSend(
         "/user/" + message.receiver() + "/queue/messages", updateMessage);
 
-    MessageDto savedMessage = messageService.saveMessage(updateMessage);
+    // Stored off the inbound thread; the sender gets an ack on /queue/message-acks
+    messageWriteBehind.enqueue(updateMessage);
+  }
+
+  /**
+   * Group messages are stored once and delivered with a single broadcast to the thread's topic,
+   * whatever the number of members. The sender is the session's user, whatever the payload says.
+   */
+  @MessageMapping("/chat.group.send")
+  public void sendGroupMessage(@Payload MessageDto payload, SimpMessageHeaderAccessor headers) {
+    String senderId = threadSubscriptionGuard.userIdOf(headers.getSessionAttributes());
+    if (senderId == null || !groupThreadService.isMember(payload.threadId(), senderId)) {
+      log.warn("Dropping group message from {} to thread {}", senderId, payload.threadId());
+      return;
+    }
+    MessageDto message = MessageDto.withSender(payload, senderId);
+    MessageDto updateMessage = MessageDto.withCurrentTimestamp(message);
+    if (!messageDedupWindow.isDuplicate(message.sender(), message.clientTempId())) {
+      messagingTemplate.convertAndSend(
+          GroupThreadService.TOPIC_PREFIX + message.threadId(), updateMessage);
+    }
+    messageWriteBehind.enqueue(updateMessage);
+  }
+
+  @PostMapping("/threads")
+  public ResponseEntity<GroupThreadDto> createThread(@RequestBody CreateThreadRequest request) {
+    return ResponseEntity.ok(
+        groupThreadService.createThread(userService.getMyInfo().id(), request));
+  }
+
+  @GetMapping("/threads/{threadId}")
+  public GroupThreadDto getThread(@PathVariable String threadId) {
+    return groupThreadService.getThread(threadId, userService.getMyInfo().id());
+  }
+
+  @GetMapping("/threads/{threadId}/history")
+  public MessagePage getThreadHistory(
+      @PathVariable String threadId,
+      @RequestParam(required = false) String before,
+      @RequestParam(required = false) String after,
+      @RequestParam(defaultValue = "" + MessageService.DEFAULT_PAGE_SIZE) int size) {
+    groupThreadService.getThread(threadId, userService.getMyInfo().id());
+    return messageService.getThreadPage(threadId, before, after, size);
+  }
+
+  @PostMapping("/threads/{threadId}/members")
+  public ResponseEntity<Void> addThreadMembers(
+      @PathVariable String threadId, @RequestBody Set<String> memberIds) {
+    groupThreadService.addMembers(threadId, userService.getMyInfo().id(), memberIds);
+    return ResponseEntity.noContent().build();
+  }
+
+  @DeleteMapping("/threads/{threadId}/members/{memberId}")
+  public ResponseEntity<Void> removeThreadMember(
+      @PathVariable String threadId, @PathVariable String memberId) {
+    groupThreadService.removeMember(threadId, userService.getMyInfo().id(), memberId);
+    return ResponseEntity.noContent().build();
+  }
+
+  /** Read receipts are coalesced and applied at most once per second per conversation. */
+  @MessageMapping("/chat.read")
+  public void markRead(@Payload ReadReceiptDto receipt) {
+    readReceiptService.submit(receipt);
   }
 
   @GetMapping("/chat-list/{userId}")
-  public ResponseEntity<?> getChatList(@PathVariable String userId) {
+  public ResponseEntity<?> getChatList(
+      @PathVariable String userId,
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "50") int size) {
     // ✅ PRODUCTION FIX: Simplified security - just check authentication
     // The frontend should send the correct user ID
     if (userId == null || userId.trim().isEmpty()) {
@@ -49,7 +168,7 @@ public class MessageController {
     }
 
     try {
-      List<ChatDto> chatList = messageService.getChatList(userId);
+      List<ChatDto> chatList = messageService.getChatList(userId, page, size);
       return ResponseEntity.ok(chatList);
 
     } catch (Exception e) {
@@ -1,11 +1,12 @@
 package com.unify.app.messages.web;
 
 import com.unify.app.messages.domain.PresenceService;
+import com.unify.app.messages.domain.TypingService;
 import com.unify.app.messages.events.TypingEvent;
-import com.unify.app.messages.events.UserStatus;
 import java.time.LocalDateTime;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -20,6 +21,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class PresenceController {
 
   private final PresenceService presenceService;
+  private final TypingService typingService;
   private final SimpMessagingTemplate messagingTemplate;
 
   // When a user subscribes to their presence channel
@@ -29,46 +31,28 @@ public class PresenceController {
     return presenceService.getLastActive(userId);
   }
 
+  // Changes of followed users reach clients on /user/{userId}/queue/presence
   @MessageMapping("/presence")
-  public void subscribePresence(@Payload String userId) {
-    presenceService.setActive(userId);
-    broadcastStatus(userId, true);
-    broadcastOnlineUsers(); // push updated online list
+  public void subscribePresence(@Payload String userId, @Header("simpSessionId") String sessionId) {
+    presenceService.connect(userId, sessionId);
   }
 
   // Custom endpoint to set inactive (when user leaves or disconnects)
   @MessageMapping("/presence/inactive")
-  public void setInactive(@Payload String userId) {
-    presenceService.setInactive(userId);
-    broadcastStatus(userId, false);
-    broadcastOnlineUsers(); // push updated online list
+  public void setInactive(@Payload String userId, @Header("simpSessionId") String sessionId) {
+    presenceService.setInactive(userId, sessionId);
   }
 
+  // Debounced per sender and conversation; the receiver gets one start and one stop per burst
   @MessageMapping("/typing")
   public void handleTyping(@Payload TypingEvent typingEvent) {
-    // Broadcast typing event to ALL users (not just the target)
-    messagingTemplate.convertAndSend("/topic/typing", typingEvent);
-
-    // Also send to specific user for direct delivery
-    messagingTemplate.convertAndSend("/topic/typing." + typingEvent.toUser(), typingEvent);
+    typingService.submit(typingEvent);
   }
 
-  // Client requests online users explicitly
+  // Client requests the online users it follows, then applies the deltas
   @MessageMapping("/presence/request-online-users")
   public void requestOnlineUsers(@Payload String requesterId) {
-    Set<String> onlineUsers = presenceService.getOnlineUsers();
+    Set<String> onlineUsers = presenceService.getOnlineFollowing(requesterId);
     messagingTemplate.convertAndSendToUser(requesterId, "/queue/online-users", onlineUsers);
   }
-
-  private void broadcastStatus(String userId, boolean active) {
-    UserStatus status = new UserStatus(userId, active, presenceService.getLastActive(userId));
-    messagingTemplate.convertAndSend("/topic/status", status);
-  }
-
-  private void broadcastOnlineUsers() {
-    Set<String> onlineUsers = presenceService.getOnlineUsers();
-    for (String userId : onlineUsers) {
-      messagingTemplate.convertAndSend("/queue/" + userId + "/online-users", onlineUsers);
-    }
-  }
 }
@@ -1,22 +1,22 @@
 package com.unify.app.notifications.domain;
 
 import com.unify.app.notifications.domain.models.NotificationDto;
-import com.unify.app.users.domain.Avatar;
-import com.unify.app.users.domain.User;
+import com.unify.app.users.domain.models.UserProfileDto;
 import java.util.Map;
 import org.mapstruct.Mapper;
 
 @Mapper(componentModel = "spring")
 public abstract class NotificationMapper {
-  public NotificationDto toNotificationDTO(Notification notification, Map<String, User> userMap) {
-    User sender = userMap.get(notification.getSender());
+  public NotificationDto toNotificationDTO(
+      Notification notification, Map<String, UserProfileDto> userMap) {
+    UserProfileDto sender = userMap.get(notification.getSender());
 
     NotificationDto.SenderDto senderDTO =
         sender != null
             ? NotificationDto.SenderDto.builder()
-                .id(sender.getId())
-                .fullName(sender.getFirstName() + " " + sender.getLastName())
-                .avatar(getAvatarUrl(sender.latestAvatar()))
+                .id(sender.id())
+                .fullName(sender.fullName())
+                .avatar(sender.avatarUrl())
                 .build()
             : null;
 
@@ -31,8 +31,4 @@ public abstract class NotificationMapper {
         .data(notification.getData())
         .build();
   }
-
-  private String getAvatarUrl(Avatar avatar) {
-    return avatar != null ? avatar.getUrl() : null;
-  }
 }
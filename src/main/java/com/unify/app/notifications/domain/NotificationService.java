@@ -2,8 +2,8 @@ package com.unify.app.notifications.domain;
 
 import com.unify.app.notifications.domain.models.NotificationDto;
 import com.unify.app.notifications.domain.models.NotificationType;
-import com.unify.app.users.domain.User;
-import com.unify.app.users.domain.UserService;
+import com.unify.app.users.domain.UserProfileService;
+import com.unify.app.users.domain.models.UserProfileDto;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -24,7 +24,7 @@ public class NotificationService {
   private final NotificationRepository notificationRepository;
   private final NotificationMapper notificationMapper;
   private final SimpMessagingTemplate simpMessagingTemplate;
-  private final UserService userService;
+  private final UserProfileService userProfileService;
 
   public Notification saveNotification(Notification notification) {
     try {
@@ -126,9 +126,7 @@ public class NotificationService {
       Notification savedNotification = saveNotification(notification);
 
       // Send via WebSocket
-      List<User> users = userService.findAllById(List.of(senderId, receiverId));
-      Map<String, User> userMap =
-          users.stream().collect(Collectors.toMap(User::getId, user -> user));
+      Map<String, UserProfileDto> userMap = userProfileService.findByIds(List.of(senderId));
       NotificationDto notificationDTO =
           notificationMapper.toNotificationDTO(savedNotification, userMap);
       sendNotification(receiverId, notificationDTO);
@@ -248,9 +246,7 @@ public class NotificationService {
 
       Notification savedNotification = saveNotification(notification);
 
-      List<User> users = userService.findAllById(List.of(senderId, receiverId));
-      Map<String, User> userMap =
-          users.stream().collect(Collectors.toMap(User::getId, user -> user));
+      Map<String, UserProfileDto> userMap = userProfileService.findByIds(List.of(senderId));
       NotificationDto notificationDTO =
           notificationMapper.toNotificationDTO(savedNotification, userMap);
       sendNotification(receiverId, notificationDTO);
@@ -281,9 +277,7 @@ public class NotificationService {
               .distinct()
               .collect(Collectors.toList());
 
-      List<User> users = userService.findAllById(senderIds);
-      Map<String, User> userMap =
-          users.stream().collect(Collectors.toMap(User::getId, user -> user));
+      Map<String, UserProfileDto> userMap = userProfileService.findByIds(senderIds);
 
       List<NotificationDto> notificationDtos =
           notifications.getContent().stream()
@@ -382,9 +376,8 @@ public class NotificationService {
   private void sendNotificationViaWebSocket(String receiverId, Notification notification) {
     try {
       // Get user data for the notification DTO
-      List<User> users = userService.findAllById(List.of(notification.getSender(), receiverId));
-      Map<String, User> userMap =
-          users.stream().collect(Collectors.toMap(User::getId, user -> user));
+      Map<String, UserProfileDto> userMap =
+          userProfileService.findByIds(List.of(notification.getSender()));
 
       NotificationDto notificationDTO = notificationMapper.toNotificationDTO(notification, userMap);
 
@@ -444,9 +437,9 @@ public class NotificationService {
   // ✅ ENHANCED: Improved message generation with better user names
   private String generateMessage(String senderId, NotificationType type) {
     try {
-      User sender = userService.findUserById(senderId);
+      UserProfileDto sender = userProfileService.findById(senderId);
       String senderName =
-          sender != null ? (sender.getFirstName() + " " + sender.getLastName()).trim() : "Someone";
+          sender != null && !sender.fullName().isEmpty() ? sender.fullName() : "Someone";
 
       return switch (type) {
         case FOLLOW -> senderName + " started following you.";
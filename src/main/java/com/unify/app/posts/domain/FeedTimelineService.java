@@ -0,0 +1,342 @@
+package com.unify.app.posts.domain;
+
+import com.unify.app.followers.domain.FollowService;
+import com.unify.app.followers.events.FollowChangedEvent;
+import com.unify.app.posts.domain.models.FeedCursor;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Materialized home timelines. Each user has a bounded Redis sorted set of post IDs scored by
+ * posting time. New posts are pushed into the timelines of the author's followers when the post is
+ * created (fan-out on write). Authors with more followers than the fan-out threshold are recorded
+ * as "pull authors" instead, and their posts are merged into the timeline at read time. Following
+ * or unfollowing someone drops the follower's timeline, which is seeded again on the next read.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FeedTimelineService {
+
+  private static final String TIMELINE_KEY_PREFIX = "unify:timeline:";
+  private static final String FEED_VERSION_KEY_PREFIX = "unify:feed-version:";
+  private static final String PULL_AUTHORS_KEY = "unify:timeline-pull-authors";
+
+  // Only touch timelines that are already materialized; missing ones are seeded from the DB on
+  // the next read, so pushing into them would hide older posts.
+  private static final RedisScript<Long> PUSH_IF_MATERIALIZED =
+      new DefaultRedisScript<>(
+          """
+          if redis.call('EXISTS', KEYS[1]) == 1 then
+            redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2])
+            redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(tonumber(ARGV[3]) + 1))
+            return 1
+          end
+          return 0
+          """,
+          Long.class);
+
+  private final StringRedisTemplate redisTemplate;
+  private final PostRepository postRepository;
+  private final FollowService followService;
+
+  @Value("${unify.feed.timeline-max-size:500}")
+  private int timelineMaxSize;
+
+  @Value("${unify.feed.timeline-ttl-in-days:7}")
+  private int timelineTtlInDays;
+
+  @Value("${unify.feed.fanout-follower-threshold:5000}")
+  private long fanoutFollowerThreshold;
+
+  public record TimelinePage(List<String> postIds, boolean hasNext, FeedCursor nextCursor) {}
+
+  private record TimelineEntry(String postId, double score) {}
+
+  private static final Comparator<TimelineEntry> NEWEST_FIRST =
+      Comparator.comparingDouble(TimelineEntry::score)
+          .thenComparing(TimelineEntry::postId)
+          .reversed();
+
+  /** Pushes a freshly created post into the author's and followers' timelines. */
+  public void fanOut(Post post) {
+    if (post.getUser() == null || post.getUser().getId() == null) {
+      return;
+    }
+    String authorId = post.getUser().getId();
+    String postId = post.getId();
+    String score = String.valueOf(toScore(post.getPostedAt()));
+
+    try {
+      List<String> targets = audienceOf(authorId, true);
+      String maxSize = String.valueOf(timelineMaxSize);
+      redisTemplate.executePipelined(
+          new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+              RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+              for (String userId : targets) {
+                ops.execute(
+                    PUSH_IF_MATERIALIZED, List.of(timelineKey(userId)), score, postId, maxSize);
+                bumpFeedVersion(ops, userId);
+              }
+              return null;
+            }
+          });
+    } catch (Exception e) {
+      log.warn("Failed to fan out post {} from {}: {}", postId, authorId, e.getMessage());
+    }
+  }
+
+  /**
+   * Makes cached feed pages that may show the given post unreachable after it was edited, hidden or
+   * deleted, by bumping the feed version of the author and their followers. Followers of pull
+   * authors are not tracked, so their cached pages catch up when they expire.
+   */
+  public void invalidateFeeds(Post post) {
+    if (post.getUser() == null || post.getUser().getId() == null) {
+      return;
+    }
+    String authorId = post.getUser().getId();
+
+    try {
+      List<String> targets = audienceOf(authorId, false);
+      redisTemplate.executePipelined(
+          new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+              RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+              targets.forEach(userId -> bumpFeedVersion(ops, userId));
+              return null;
+            }
+          });
+    } catch (Exception e) {
+      log.warn("Failed to invalidate feeds for post {}: {}", post.getId(), e.getMessage());
+    }
+  }
+
+  /**
+   * Drops the follower's timeline once a follow or unfollow is committed: the next read seeds it
+   * from the posts of the users they follow now. The feed version is bumped too, so cached pages
+   * built from the old timeline are not served either.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onFollowChanged(FollowChangedEvent event) {
+    String userId = event.followerId();
+    try {
+      redisTemplate.executePipelined(
+          new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+              RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+              ops.delete(timelineKey(userId));
+              bumpFeedVersion(ops, userId);
+              return null;
+            }
+          });
+    } catch (Exception e) {
+      log.warn("Failed to reset the timeline of {}: {}", userId, e.getMessage());
+    }
+  }
+
+  /**
+   * Current version of the user's feed, part of the {@code personalizedFeedCache} key. It changes
+   * whenever a post enters or changes in the user's timeline, so older cached pages are never read
+   * again and simply expire.
+   */
+  public long feedVersion(String userId) {
+    String version = redisTemplate.opsForValue().get(feedVersionKey(userId));
+    return version != null ? Long.parseLong(version) : 0L;
+  }
+
+  // The author plus every follower whose timeline is pushed to
+  private List<String> audienceOf(String authorId, boolean recordPullAuthor) {
+    List<String> targets = new ArrayList<>();
+    targets.add(authorId);
+
+    if (followService.countFollowers(authorId) > fanoutFollowerThreshold) {
+      if (recordPullAuthor) {
+        redisTemplate.opsForSet().add(PULL_AUTHORS_KEY, authorId);
+      }
+    } else {
+      targets.addAll(followService.getFollowerIds(authorId));
+    }
+    return targets;
+  }
+
+  // Outlives any cached page, so a version never restarts while pages from it are still cached
+  private void bumpFeedVersion(RedisOperations<String, String> ops, String userId) {
+    ops.opsForValue().increment(feedVersionKey(userId));
+    ops.expire(feedVersionKey(userId), Duration.ofDays(timelineTtlInDays));
+  }
+
+  /**
+   * Reads one page of post IDs, newest first, strictly after the given cursor. Entries are ordered
+   * by (score, postId) descending, the same order Redis uses for reverse score ranges.
+   */
+  public TimelinePage readPage(String userId, FeedCursor cursor, int pageSize) {
+    String key = timelineKey(userId);
+    ensureMaterialized(userId, key);
+
+    // A full page and one look-ahead entry from each source
+    int fetch = pageSize + 1;
+    List<TimelineEntry> entries = new ArrayList<>(readRange(key, cursor, fetch));
+    entries.addAll(readPullAuthorPosts(userId, cursor, fetch));
+
+    List<TimelineEntry> page =
+        mergeNewestFirst(entries).stream().limit(pageSize + 1L).collect(Collectors.toList());
+
+    boolean hasNext = page.size() > pageSize;
+    if (hasNext) {
+      page = page.subList(0, pageSize);
+    }
+
+    FeedCursor nextCursor = null;
+    if (hasNext) {
+      TimelineEntry last = page.get(page.size() - 1);
+      nextCursor = new FeedCursor((long) last.score(), null, last.postId());
+    }
+
+    return new TimelinePage(
+        page.stream().map(TimelineEntry::postId).collect(Collectors.toList()), hasNext, nextCursor);
+  }
+
+  private void ensureMaterialized(String userId, String key) {
+    if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+      redisTemplate.expire(key, Duration.ofDays(timelineTtlInDays));
+      return;
+    }
+
+    List<Object[]> seed =
+        postRepository.findTimelineSeed(userId, PageRequest.of(0, timelineMaxSize));
+    if (seed.isEmpty()) {
+      return;
+    }
+
+    Set<TypedTuple<String>> tuples = new HashSet<>();
+    for (Object[] row : seed) {
+      tuples.add(new DefaultTypedTuple<>((String) row[0], toScore((LocalDateTime) row[1])));
+    }
+    redisTemplate.opsForZSet().add(key, tuples);
+    redisTemplate.expire(key, Duration.ofDays(timelineTtlInDays));
+  }
+
+  /**
+   * The first {@code count} entries strictly after the cursor. Score ranges are inclusive and
+   * scores are milliseconds, so the posts sharing the cursor's millisecond that were already shown
+   * come back first, and however many there are, batches are read until enough newer ones follow.
+   */
+  private List<TimelineEntry> readRange(String key, FeedCursor cursor, int count) {
+    double maxScore = cursor != null ? cursor.score() : Double.POSITIVE_INFINITY;
+    List<TimelineEntry> after = new ArrayList<>();
+    for (long offset = 0; after.size() < count; offset += count) {
+      Set<TypedTuple<String>> tuples =
+          redisTemplate
+              .opsForZSet()
+              .reverseRangeByScoreWithScores(
+                  key, Double.NEGATIVE_INFINITY, maxScore, offset, count);
+      if (tuples == null) {
+        break;
+      }
+      tuples.stream()
+          .map(tuple -> new TimelineEntry(tuple.getValue(), tuple.getScore()))
+          .filter(entry -> isAfter(entry, cursor))
+          .forEach(after::add);
+      if (tuples.size() < count) {
+        break;
+      }
+    }
+    return after;
+  }
+
+  // Same as readRange for the posts of followed pull authors, read from the database
+  private List<TimelineEntry> readPullAuthorPosts(String userId, FeedCursor cursor, int count) {
+    Set<String> pullAuthors = redisTemplate.opsForSet().members(PULL_AUTHORS_KEY);
+    if (pullAuthors == null || pullAuthors.isEmpty()) {
+      return List.of();
+    }
+
+    List<String> followed = followService.getFollowedIdsAmong(userId, pullAuthors);
+    if (followed.isEmpty()) {
+      return List.of();
+    }
+
+    // Scores are truncated to milliseconds, so the bound is widened by one and the exact cursor
+    // comparison happens here
+    LocalDateTime before =
+        cursor != null
+            ? LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(cursor.score() + 1), ZoneId.systemDefault())
+            : null;
+
+    List<TimelineEntry> after = new ArrayList<>();
+    for (int page = 0; after.size() < count; page++) {
+      List<Object[]> rows =
+          postRepository.findRecentPostIdsByAuthors(followed, before, PageRequest.of(page, count));
+      rows.stream()
+          .map(row -> new TimelineEntry((String) row[0], toScore((LocalDateTime) row[1])))
+          .filter(entry -> isAfter(entry, cursor))
+          .forEach(after::add);
+      if (rows.size() < count) {
+        break;
+      }
+    }
+    return after;
+  }
+
+  private List<TimelineEntry> mergeNewestFirst(List<TimelineEntry> entries) {
+    Map<String, TimelineEntry> unique = new LinkedHashMap<>();
+    entries.stream()
+        .sorted(NEWEST_FIRST)
+        .forEach(entry -> unique.putIfAbsent(entry.postId(), entry));
+    return new ArrayList<>(unique.values());
+  }
+
+  private static boolean isAfter(TimelineEntry entry, FeedCursor cursor) {
+    if (cursor == null) {
+      return true;
+    }
+    long score = (long) entry.score();
+    return score < cursor.score()
+        || (score == cursor.score() && entry.postId().compareTo(cursor.id()) < 0);
+  }
+
+  private static double toScore(LocalDateTime postedAt) {
+    LocalDateTime time = postedAt != null ? postedAt : LocalDateTime.now();
+    return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+  private static String timelineKey(String userId) {
+    return TIMELINE_KEY_PREFIX + userId;
+  }
+
+  private static String feedVersionKey(String userId) {
+    return FEED_VERSION_KEY_PREFIX + userId;
+  }
+}
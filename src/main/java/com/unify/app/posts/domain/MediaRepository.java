@@ -1,10 +1,16 @@
 package com.unify.app.posts.domain;
 
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 interface MediaRepository extends JpaRepository<Media, String> {
   @Query("FROM Media o WHERE o.post.id = ?1")
   List<Media> findByPostId(String postId);
+
+  @Query(
+      "SELECT m.post.id, m.id, m.url, m.fileType, m.size, m.mediaType FROM Media m WHERE m.post.id IN :postIds")
+  List<Object[]> findRowsByPostIds(@Param("postIds") Collection<String> postIds);
 }
@@ -77,6 +77,15 @@ public class Post implements Serializable {
   @Default
   Boolean isLikeVisible = false;
 
+  // Denormalized counters, only ever changed by PostCounterService through bulk updates
+  @Column(name = "like_count", nullable = false, updatable = false)
+  @Default
+  Long likeCount = 0L;
+
+  @Column(name = "comment_count", nullable = false, updatable = false)
+  @Default
+  Long commentCount = 0L;
+
   @OneToMany(mappedBy = "post", orphanRemoval = true)
   Set<Media> media;
 
@@ -0,0 +1,145 @@
+package com.unify.app.posts.domain;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Maintains the denormalized {@code likeCount}/{@code commentCount} columns on {@link Post}.
+ * Changes are accumulated in memory as one running delta per post, which the flush takes out
+ * atomically, and written in batched UPDATEs on a short fixed delay so hot posts cost one row
+ * update per flush instead of one per like. The reconciliation job recomputes the columns from the
+ * source tables to repair any drift.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostCounterService {
+
+  private final PostRepository postRepository;
+  private final TrendingService trendingService;
+
+  private final Map<String, Long> pendingLikes = new ConcurrentHashMap<>();
+  private final Map<String, Long> pendingComments = new ConcurrentHashMap<>();
+
+  // Long enough for every node to flush the deltas committed before the drift snapshot
+  @Value("${unify.feed.counter-reconcile-settle-ms:2000}")
+  private long reconcileSettleMillis;
+
+  public void recordLike(String postId, long delta) {
+    record(pendingLikes, postId, delta);
+  }
+
+  public void recordComment(String postId, long delta) {
+    record(pendingComments, postId, delta);
+  }
+
+  @Scheduled(fixedDelayString = "${unify.feed.counter-flush-interval-ms:250}")
+  public void flush() {
+    flush(pendingLikes, postRepository::incrementLikeCounts, "like");
+    flush(pendingComments, postRepository::incrementCommentCounts, "comment");
+  }
+
+  /**
+   * Repairs every counter that drifted from the source rows. A post that merely has deltas waiting
+   * to be flushed, here or on another node, looks drifted too, and overwriting its counter would
+   * count those deltas twice once they land. So the drifted posts are read first, the deltas given
+   * time to be flushed, and a counter is only overwritten while its source counts are still the
+   * ones read: a post that changed meanwhile is left for the next run.
+   */
+  public int reconcile() {
+    List<Object[]> drifted = postRepository.findDriftedCounters();
+    if (drifted.isEmpty()) {
+      return 0;
+    }
+    settle();
+    flush();
+
+    int repaired = 0;
+    for (Object[] row : drifted) {
+      repaired +=
+          postRepository.repairCounters(
+              (String) row[0], ((Number) row[1]).longValue(), ((Number) row[2]).longValue());
+    }
+    return repaired;
+  }
+
+  @PreDestroy
+  void flushOnShutdown() {
+    flush();
+  }
+
+  // Only count changes that actually committed; outside a transaction apply immediately
+  private void record(Map<String, Long> pending, String postId, long delta) {
+    if (postId == null || delta == 0) {
+      return;
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              apply(pending, postId, delta);
+            }
+          });
+    } else {
+      apply(pending, postId, delta);
+    }
+  }
+
+  private void apply(Map<String, Long> pending, String postId, long delta) {
+    pending.merge(postId, delta, Long::sum);
+    trendingService.recordInteraction(postId, delta);
+  }
+
+  private void flush(
+      Map<String, Long> pending,
+      BiFunction<List<String>, Long, Integer> increment,
+      String counter) {
+    // Group posts by delta so each distinct delta is a single UPDATE ... WHERE id IN (...)
+    Map<Long, List<String>> postIdsByDelta = new HashMap<>();
+    for (String postId : pending.keySet()) {
+      // Atomic with merge: a delta recorded meanwhile starts a new entry for the next flush
+      Long delta = pending.remove(postId);
+      if (delta != null && delta != 0) {
+        postIdsByDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(postId);
+      }
+    }
+
+    postIdsByDelta.forEach(
+        (delta, postIds) -> {
+          try {
+            increment.apply(postIds, delta);
+          } catch (Exception e) {
+            log.warn(
+                "Failed to flush {} counters for {} posts, retrying next flush: {}",
+                counter,
+                postIds.size(),
+                e.getMessage());
+            postIds.forEach(postId -> pending.merge(postId, delta, Long::sum));
+          }
+        });
+  }
+
+  private void settle() {
+    if (reconcileSettleMillis <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(reconcileSettleMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.unify.app.posts.domain;
+
+import com.unify.app.posts.domain.models.MediaDto;
+import com.unify.app.posts.domain.models.MediaType;
+import com.unify.app.posts.domain.models.PostDto;
+import com.unify.app.users.domain.UserService;
+import com.unify.app.users.domain.models.UserDto;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds {@link PostDto}s for a whole page at once. Media and authors (with their latest avatar)
+ * are loaded with one {@code IN} query each instead of per post, and only the author's ID is read
+ * from the post, so the lazy user proxy is never initialized.
+ */
+@Component
+@RequiredArgsConstructor
+class PostHydrator {
+
+  private final MediaRepository mediaRepository;
+  private final UserService userService;
+
+  List<PostDto> toPostDtos(List<Post> posts) {
+    if (posts.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    List<String> postIds = posts.stream().map(Post::getId).collect(Collectors.toList());
+    Set<String> authorIds =
+        posts.stream().map(post -> post.getUser().getId()).collect(Collectors.toSet());
+
+    Map<String, Set<MediaDto>> mediaByPost = new HashMap<>();
+    for (Object[] row : mediaRepository.findRowsByPostIds(postIds)) {
+      mediaByPost
+          .computeIfAbsent((String) row[0], id -> new LinkedHashSet<>())
+          .add(
+              new MediaDto(
+                  (String) row[1],
+                  (String) row[2],
+                  (String) row[3],
+                  (Long) row[4],
+                  (MediaType) row[5]));
+    }
+    Map<String, UserDto> authors = userService.findProfilesByIds(authorIds);
+
+    List<PostDto> postDtos = new ArrayList<>(posts.size());
+    for (Post post : posts) {
+      PostDto postDto = new PostDto();
+      postDto.setId(post.getId());
+      postDto.setCaptions(post.getCaptions());
+      postDto.setStatus(post.getStatus());
+      postDto.setAudience(post.getAudience());
+      postDto.setUser(authors.get(post.getUser().getId()));
+      postDto.setPostedAt(post.getPostedAt());
+      postDto.setIsCommentVisible(post.getIsCommentVisible());
+      postDto.setIsLikeVisible(post.getIsLikeVisible());
+      postDto.setMedia(mediaByPost.getOrDefault(post.getId(), new LinkedHashSet<>()));
+      postDto.setLikeCount(post.getLikeCount());
+      postDto.setCommentCount(post.getCommentCount());
+      postDtos.add(postDto);
+    }
+    return postDtos;
+  }
+}
@@ -5,6 +5,7 @@ import com.unify.app.users.domain.AvatarMapper;
 import com.unify.app.users.domain.UserMapper;
 import java.util.List;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
 
 @Mapper(
@@ -13,6 +14,8 @@ import org.mapstruct.ReportingPolicy;
     unmappedTargetPolicy = ReportingPolicy.IGNORE)
 public interface PostMapper {
 
+  @Mapping(target = "likeCount", ignore = true)
+  @Mapping(target = "commentCount", ignore = true)
   Post toPost(PostDto postDTO);
 
   PostDto toPostDto(Post post);
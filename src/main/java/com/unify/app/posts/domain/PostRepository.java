@@ -1,48 +1,56 @@
 package com.unify.app.posts.domain;
 
 import com.unify.app.posts.domain.models.Audience;
-import com.unify.app.posts.domain.models.PersonalizedPostDto;
 import com.unify.app.posts.domain.models.PostDto;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 interface PostRepository extends JpaRepository<Post, String> {
 
+  // Trending rebuild: recent visible posts with their counters
   @Query(
       """
-                SELECT p, (COUNT(DISTINCT lp.id) + COUNT(DISTINCT pc.id)) AS interactionCount
+                SELECT p.id, p.postedAt, p.likeCount, p.commentCount
                 FROM Post p
-                LEFT JOIN p.likedPosts lp
-                LEFT JOIN p.comments pc
-                WHERE p.status != 2
-                GROUP BY p
-                ORDER BY interactionCount DESC
+                WHERE p.status = 1
+                  AND p.user.status = 0
+                  AND p.postedAt >= :since
             """)
-  List<Object[]> findPostsWithInteractionCounts();
+  List<Object[]> findTrendingSeed(@Param("since") LocalDateTime since);
 
+  // Keyset page over (likeCount + commentCount, postedAt, id) descending; cursor params are null
+  // on the first page
   @Query(
       """
-                SELECT p, COUNT(DISTINCT pc.id) AS commentCount,
-                       (COUNT(DISTINCT lp.id) + COUNT(DISTINCT pc.id)) AS interactionCount
+                SELECT p
                 FROM Post p
-                LEFT JOIN p.likedPosts lp
-                LEFT JOIN p.comments pc
                 WHERE p.user.id NOT IN (
                     SELECT f.userFollowing.id FROM Follower f WHERE f.userFollower.id = :userId
                 )
                 AND p.user.id != :userId
                 AND p.status != 2
-                GROUP BY p
-                ORDER BY interactionCount DESC, p.postedAt DESC
+                AND (:cursorScore IS NULL
+                    OR (p.likeCount + p.commentCount) < :cursorScore
+                    OR ((p.likeCount + p.commentCount) = :cursorScore
+                        AND (p.postedAt < :cursorPostedAt
+                            OR (p.postedAt = :cursorPostedAt AND p.id < :cursorId))))
+                ORDER BY (p.likeCount + p.commentCount) DESC, p.postedAt DESC, p.id DESC
             """)
-  Page<Object[]> findPostsWithInteractionCountsAndNotFollow(
-      @Param("userId") String userId, Pageable pageable);
+  List<Post> findPostsByInteractionCountAndNotFollow(
+      @Param("userId") String userId,
+      @Param("cursorScore") Long cursorScore,
+      @Param("cursorPostedAt") LocalDateTime cursorPostedAt,
+      @Param("cursorId") String cursorId,
+      Pageable pageable);
 
   @Query("FROM Post o WHERE o.postedAt BETWEEN :start AND :end")
   List<Post> getPostsByDate(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
@@ -67,208 +75,78 @@ interface PostRepository extends JpaRepository<Post, String> {
   @Override
   Optional<Post> findById(String id);
 
+  // Home timeline seed: newest visible posts from the user and everyone they follow
   @Query(
       """
-                SELECT new com.unify.app.posts.domain.models.PersonalizedPostDto(
-                    p,
-                    COUNT(DISTINCT lp.id) + COUNT(DISTINCT pc.id),
-                    COUNT(DISTINCT pc.id)
-                )
-                FROM Post p
-                LEFT JOIN p.likedPosts lp
-                LEFT JOIN p.comments pc
-                WHERE p.status != 2
-                AND p.user.id IN (
-                    SELECT f.userFollowing.id FROM Follower f WHERE f.userFollower.id = :userId
-                )
-                AND p.user.status = 0
-                GROUP BY p
-                ORDER BY p.postedAt DESC
-            """)
-  Page<PersonalizedPostDto> findPersonalizedPostsFromFollowing(
-      @Param("userId") String userId, Pageable pageable);
-
-  @Query(
-      """
-                SELECT new com.unify.app.posts.domain.models.PersonalizedPostDto(
-                    p,
-                    COUNT(DISTINCT lp.id) + COUNT(DISTINCT pc.id),
-                    COUNT(DISTINCT pc.id)
-                )
+                SELECT p.id, p.postedAt
                 FROM Post p
-                LEFT JOIN p.likedPosts lp
-                LEFT JOIN p.comments pc
-                WHERE p.status != 2
-                AND p.user.id NOT IN (
-                    SELECT f.userFollowing.id FROM Follower f WHERE f.userFollower.id = :userId
-                )
-                AND p.user.id != :userId
-                AND p.user.status = 0
-                GROUP BY p
-                ORDER BY COUNT(DISTINCT lp.id) + COUNT(DISTINCT pc.id) DESC, p.postedAt DESC
-            """)
-  Page<PersonalizedPostDto> findPersonalizedPostsFromOthers(
-      @Param("userId") String userId, Pageable pageable);
-
-  @Query(
-      """
-                SELECT new com.unify.app.posts.domain.models.PersonalizedPostDto(
-                    p,
-                    COUNT(DISTINCT lp.id) + COUNT(DISTINCT pc.id),
-                    COUNT(DISTINCT pc.id)
-                )
-                FROM Post p
-                LEFT JOIN p.likedPosts lp
-                LEFT JOIN p.comments pc
-                WHERE p.status != 2
-                AND p.user.id != :userId
-                AND p.user.status = 0
-                GROUP BY p
-                ORDER BY
-                    CASE WHEN p.user.id IN (
-                        SELECT f.userFollowing.id FROM Follower f WHERE f.userFollower.id = :userId
-                    ) THEN 0 ELSE 1 END,
-                    p.postedAt DESC,
-                    COUNT(DISTINCT lp.id) + COUNT(DISTINCT pc.id) DESC
-            """)
-  Page<PersonalizedPostDto> findPersonalizedPostsCombined(
-      @Param("userId") String userId, Pageable pageable);
-
-  @Query(
-      """
-                SELECT new com.unify.app.posts.domain.models.PersonalizedPostDto(
-                    p,
-                    COUNT(DISTINCT lp.id) + COUNT(DISTINCT pc.id),
-                    COUNT(DISTINCT pc.id)
-                )
-                FROM Post p
-                LEFT JOIN p.likedPosts lp
-                LEFT JOIN p.comments pc
                 WHERE p.status = 1
-                  AND p.user.id != :userId
                   AND p.user.status = 0
-                GROUP BY p
-                ORDER BY
-                  CASE WHEN p.user.id IN (
+                  AND (p.user.id = :userId OR p.user.id IN (
                       SELECT f.userFollowing.id FROM Follower f WHERE f.userFollower.id = :userId
-                  ) THEN 0 ELSE 1 END,
-                  CASE WHEN p.user.id NOT IN (
-                      SELECT f2.userFollowing.id FROM Follower f2 WHERE f2.userFollower.id = :userId
-                  ) THEN function('random') ELSE 1 END,
-                  p.postedAt DESC,
-                  COUNT(DISTINCT lp.id) + COUNT(DISTINCT pc.id) DESC
-            """)
-  Page<PersonalizedPostDto> findPersonalizedPostsSimple(
-      @Param("userId") String userId, Pageable pageable);
-
-  // New methods for improved newsfeed algorithm
-  @Query(
-      """
-                SELECT new com.unify.app.posts.domain.models.PersonalizedPostDto(
-                    p,
-                    COUNT(DISTINCT lp.id) + COUNT(DISTINCT pc.id),
-                    COUNT(DISTINCT pc.id)
-                )
-                FROM Post p
-                LEFT JOIN p.likedPosts lp
-                LEFT JOIN p.comments pc
-                WHERE p.status = 1
-                  AND p.user.id = :userId
-                  AND p.user.status = 0
-                GROUP BY p
+                  ))
                 ORDER BY p.postedAt DESC
             """)
-  List<PersonalizedPostDto> findUserOwnPosts(@Param("userId") String userId);
+  List<Object[]> findTimelineSeed(@Param("userId") String userId, Pageable pageable);
 
   @Query(
       """
-                SELECT new com.unify.app.posts.domain.models.PersonalizedPostDto(
-                    p,
-                    COUNT(DISTINCT lp.id) + COUNT(DISTINCT pc.id),
-                    COUNT(DISTINCT pc.id)
-                )
+                SELECT p.id, p.postedAt
                 FROM Post p
-                LEFT JOIN p.likedPosts lp
-                LEFT JOIN p.comments pc
                 WHERE p.status = 1
-                  AND p.user.id IN (
-                      SELECT f.userFollowing.id FROM Follower f WHERE f.userFollower.id = :userId
-                  )
                   AND p.user.status = 0
-                GROUP BY p
-                ORDER BY p.postedAt DESC
+                  AND p.user.id IN :authorIds
+                  AND (:before IS NULL OR p.postedAt < :before)
+                ORDER BY p.postedAt DESC, p.id DESC
             """)
-  List<PersonalizedPostDto> findFollowedUsersPosts(@Param("userId") String userId);
+  List<Object[]> findRecentPostIdsByAuthors(
+      @Param("authorIds") Collection<String> authorIds,
+      @Param("before") LocalDateTime before,
+      Pageable pageable);
 
-  @Query(
-      """
-                SELECT new com.unify.app.posts.domain.models.PersonalizedPostDto(
-                    p,
-                    COUNT(DISTINCT lp.id) + COUNT(DISTINCT pc.id),
-                    COUNT(DISTINCT pc.id)
-                )
-                FROM Post p
-                LEFT JOIN p.likedPosts lp
-                LEFT JOIN p.comments pc
-                WHERE p.status = 1
-                  AND p.user.id NOT IN (
-                      SELECT f.userFollowing.id FROM Follower f WHERE f.userFollower.id = :userId
-                  )
-                  AND p.user.id != :userId
-                  AND p.user.status = 0
-                GROUP BY p
-                ORDER BY COUNT(DISTINCT lp.id) + COUNT(DISTINCT pc.id) DESC, p.postedAt DESC
-            """)
-  List<PersonalizedPostDto> findRecommendedPosts(@Param("userId") String userId);
+  @Query("SELECT p FROM Post p JOIN p.user u WHERE p.id IN :ids AND p.status = 1 AND u.status = 0")
+  List<Post> findVisiblePostsByIds(@Param("ids") Collection<String> ids);
 
-  @Query(
-      """
-    SELECT p, COUNT(pc)
+  @Query("""
+    SELECT p
     FROM Post p
-    LEFT JOIN p.comments pc
-    WHERE p.status != 2 AND (pc.status = 0 OR pc IS NULL)
+    WHERE p.status != 2
     AND p.user.status = 0
-    GROUP BY p
 """)
-  List<Object[]> findPostsWithCommentCount();
+  List<Post> findVisibleUserPosts();
 
   @Query(
       """
-    SELECT p, COUNT(pc)
+    SELECT p, p.commentCount
     FROM Post p
-    LEFT JOIN p.comments pc
-    WHERE p.id = :postId AND p.status != 2 AND (pc.status = 0 OR pc IS NULL)
+    WHERE p.id = :postId AND p.status != 2
     AND p.user.status = 0
-    GROUP BY p
 """)
   Object[] findPostWithCommentCountById(@Param("postId") String postId);
 
   @Query(
-      value =
-          """
-                  SELECT p, COUNT(c) as commentCount
-                  FROM Post p
-                  JOIN p.media m
-                  LEFT JOIN p.comments c ON c.status = 0
-                  WHERE m.mediaType = 'VIDEO' AND p.status != 2
-                  AND p.user.status = 0
-                  GROUP BY p
-                  """,
-      countQuery =
-          """
-                  SELECT COUNT(p)
-                  FROM Post p
-                  JOIN p.media m
-                  WHERE m.mediaType = 'VIDEO' AND p.status != 2
-                  AND p.user.status = 0
-                  """)
-  Page<Object[]> findReelsPostsWithCommentCount(Pageable pageable);
+      """
+                SELECT p
+                FROM Post p
+                WHERE EXISTS (
+                    SELECT 1 FROM Media m WHERE m.post = p AND m.mediaType = 'VIDEO'
+                )
+                AND p.status != 2
+                AND p.user.status = 0
+                AND (:cursorPostedAt IS NULL
+                    OR p.postedAt < :cursorPostedAt
+                    OR (p.postedAt = :cursorPostedAt AND p.id < :cursorId))
+                ORDER BY p.postedAt DESC, p.id DESC
+            """)
+  List<Post> findReelsPosts(
+      @Param("cursorPostedAt") LocalDateTime cursorPostedAt,
+      @Param("cursorId") String cursorId,
+      Pageable pageable);
 
   @Query(
       value =
           """
                 SELECT p.* FROM Posts p
-                LEFT JOIN comments c ON p.id = c.post_id
                 LEFT JOIN users u ON p.user_id = u.id
                 WHERE (:captions IS NULL OR LOWER(CAST(p.captions AS TEXT)) LIKE LOWER(CONCAT('%', :captions, '%')))
                 AND (:status IS NULL OR p.status = :status)
@@ -276,14 +154,13 @@ interface PostRepository extends JpaRepository<Post, String> {
                 AND (:isCommentVisible IS NULL OR p.is_comment_visible = CAST(:isCommentVisible AS boolean))
                 AND (:isLikeVisible IS NULL OR p.is_like_visible = CAST(:isLikeVisible AS boolean))
                 AND u.status = 0
-                GROUP BY p.id, p.captions, p.status, p.audience, p.posted_at, p.is_comment_visible, p.is_like_visible, p.updated_at, p.user_id
-                HAVING (:commentCount IS NULL OR
+                AND (:commentCount IS NULL OR
                     CASE
-                        WHEN :commentCountOperator = '>' THEN COUNT(c.id) > :commentCount
-                        WHEN :commentCountOperator = '<' THEN COUNT(c.id) < :commentCount
-                        WHEN :commentCountOperator = '=' THEN COUNT(c.id) = :commentCount
-                        WHEN :commentCountOperator = '>=' THEN COUNT(c.id) >= :commentCount
-                        WHEN :commentCountOperator = '<=' THEN COUNT(c.id) <= :commentCount
+                        WHEN :commentCountOperator = '>' THEN p.comment_count > :commentCount
+                        WHEN :commentCountOperator = '<' THEN p.comment_count < :commentCount
+                        WHEN :commentCountOperator = '=' THEN p.comment_count = :commentCount
+                        WHEN :commentCountOperator = '>=' THEN p.comment_count >= :commentCount
+                        WHEN :commentCountOperator = '<=' THEN p.comment_count <= :commentCount
                         ELSE TRUE
                     END)
                 ORDER BY p.posted_at DESC
@@ -301,11 +178,11 @@ interface PostRepository extends JpaRepository<Post, String> {
                 AND u.status = 0
                 AND (:commentCount IS NULL OR
                     CASE
-                        WHEN :commentCountOperator = '>' THEN (SELECT COUNT(*) FROM comments WHERE post_id = p.id) > :commentCount
-                        WHEN :commentCountOperator = '<' THEN (SELECT COUNT(*) FROM comments WHERE post_id = p.id) < :commentCount
-                        WHEN :commentCountOperator = '=' THEN (SELECT COUNT(*) FROM comments WHERE post_id = p.id) = :commentCount
-                        WHEN :commentCountOperator = '>=' THEN (SELECT COUNT(*) FROM comments WHERE post_id = p.id) >= :commentCount
-                        WHEN :commentCountOperator = '<=' THEN (SELECT COUNT(*) FROM comments WHERE post_id = p.id) <= :commentCount
+                        WHEN :commentCountOperator = '>' THEN p.comment_count > :commentCount
+                        WHEN :commentCountOperator = '<' THEN p.comment_count < :commentCount
+                        WHEN :commentCountOperator = '=' THEN p.comment_count = :commentCount
+                        WHEN :commentCountOperator = '>=' THEN p.comment_count >= :commentCount
+                        WHEN :commentCountOperator = '<=' THEN p.comment_count <= :commentCount
                         ELSE TRUE
                     END)
             """,
@@ -323,49 +200,62 @@ interface PostRepository extends JpaRepository<Post, String> {
   @Query(
       value =
           """
-                SELECT DISTINCT p.id, p.captions, p.status, p.audience, p.posted_at,
+                SELECT p.id, p.captions, p.status, p.audience, p.posted_at,
                        p.is_comment_visible, p.is_like_visible, p.updated_at, p.user_id,
-                       u.first_name, u.last_name, u.user_name, COUNT(c.id) as comment_count
+                       u.first_name, u.last_name, u.user_name, p.comment_count
                 FROM Posts p
                 LEFT JOIN users u ON p.user_id = u.id
-                LEFT JOIN comments c ON p.id = c.post_id
-                LEFT JOIN hashtag_details hd ON p.id = hd.post_id
-                LEFT JOIN Hashtags h ON hd.hashtag_id = h.id
                 WHERE (:captions IS NULL OR LOWER(CAST(p.captions AS TEXT)) LIKE LOWER(CONCAT('%', :captions, '%')))
                 AND (:status IS NULL OR p.status = :status)
                 AND (:audience IS NULL OR p.audience = :audience)
                 AND (:isCommentVisible IS NULL OR p.is_comment_visible = CAST(:isCommentVisible AS boolean))
                 AND (:isLikeVisible IS NULL OR p.is_like_visible = CAST(:isLikeVisible AS boolean))
-                AND (:hashtag IS NULL OR LOWER(h.content) LIKE LOWER(CONCAT('%', :hashtag, '%')))
+                AND (:hashtag IS NULL OR EXISTS (
+                    SELECT 1 FROM hashtag_details hd
+                    INNER JOIN Hashtags h ON hd.hashtag_id = h.id
+                    WHERE hd.post_id = p.id AND LOWER(h.content) LIKE LOWER(CONCAT('%', :hashtag, '%'))
+                ))
                 AND u.status = 0
-                GROUP BY p.id, p.captions, p.status, p.audience, p.posted_at,
-                         p.is_comment_visible, p.is_like_visible, p.updated_at, p.user_id,
-                         u.first_name, u.last_name, u.user_name
-                HAVING (:commentCount IS NULL OR
+                AND (CAST(:cursorPostedAt AS timestamp) IS NULL
+                    OR p.posted_at < CAST(:cursorPostedAt AS timestamp)
+                    OR (p.posted_at = CAST(:cursorPostedAt AS timestamp)
+                        AND CAST(p.id AS TEXT) < :cursorId))
+                AND (:commentCount IS NULL OR
                     CASE
-                        WHEN :commentCountOperator = '>' THEN COUNT(c.id) > :commentCount
-                        WHEN :commentCountOperator = '<' THEN COUNT(c.id) < :commentCount
-                        WHEN :commentCountOperator = '=' THEN COUNT(c.id) = :commentCount
-                        WHEN :commentCountOperator = '>=' THEN COUNT(c.id) >= :commentCount
-                        WHEN :commentCountOperator = '<=' THEN COUNT(c.id) <= :commentCount
+                        WHEN :commentCountOperator = '>' THEN p.comment_count > :commentCount
+                        WHEN :commentCountOperator = '<' THEN p.comment_count < :commentCount
+                        WHEN :commentCountOperator = '=' THEN p.comment_count = :commentCount
+                        WHEN :commentCountOperator = '>=' THEN p.comment_count >= :commentCount
+                        WHEN :commentCountOperator = '<=' THEN p.comment_count <= :commentCount
                         ELSE TRUE
                     END)
-                ORDER BY p.posted_at DESC
+                ORDER BY p.posted_at DESC, p.id DESC
                 LIMIT :#{#pageable.pageSize} OFFSET :#{#pageable.offset}
             """,
       countQuery =
           """
-                SELECT COUNT(DISTINCT p.id) FROM Posts p
+                SELECT COUNT(p.id) FROM Posts p
                 LEFT JOIN users u ON p.user_id = u.id
-                LEFT JOIN hashtag_details hd ON p.id = hd.post_id
-                LEFT JOIN Hashtags h ON hd.hashtag_id = h.id
                 WHERE (:captions IS NULL OR LOWER(CAST(p.captions AS TEXT)) LIKE LOWER(CONCAT('%', :captions, '%')))
                 AND (:status IS NULL OR p.status = :status)
                 AND (:audience IS NULL OR p.audience = :audience)
                 AND (:isCommentVisible IS NULL OR p.is_comment_visible = CAST(:isCommentVisible AS boolean))
                 AND (:isLikeVisible IS NULL OR p.is_like_visible = CAST(:isLikeVisible AS boolean))
-                AND (:hashtag IS NULL OR LOWER(h.content) LIKE LOWER(CONCAT('%', :hashtag, '%')))
+                AND (:hashtag IS NULL OR EXISTS (
+                    SELECT 1 FROM hashtag_details hd
+                    INNER JOIN Hashtags h ON hd.hashtag_id = h.id
+                    WHERE hd.post_id = p.id AND LOWER(h.content) LIKE LOWER(CONCAT('%', :hashtag, '%'))
+                ))
                 AND u.status = 0
+                AND (:commentCount IS NULL OR
+                    CASE
+                        WHEN :commentCountOperator = '>' THEN p.comment_count > :commentCount
+                        WHEN :commentCountOperator = '<' THEN p.comment_count < :commentCount
+                        WHEN :commentCountOperator = '=' THEN p.comment_count = :commentCount
+                        WHEN :commentCountOperator = '>=' THEN p.comment_count >= :commentCount
+                        WHEN :commentCountOperator = '<=' THEN p.comment_count <= :commentCount
+                        ELSE TRUE
+                    END)
             """,
       nativeQuery = true)
   Page<Object[]> findPostsForTable(
@@ -377,39 +267,84 @@ interface PostRepository extends JpaRepository<Post, String> {
       @Param("hashtag") String hashtag,
       @Param("commentCount") Long commentCount,
       @Param("commentCountOperator") String commentCountOperator,
+      @Param("cursorPostedAt") LocalDateTime cursorPostedAt,
+      @Param("cursorId") String cursorId,
       Pageable pageable);
 
+  // Keyset page of post IDs for a hashtag; cursor params are null on the first page
   @Query(
       value =
           """
-                SELECT DISTINCT p.id, p.captions, p.status, p.audience, p.posted_at,
-                       p.is_comment_visible, p.is_like_visible, p.updated_at, p.user_id,
-                       u.first_name, u.last_name, u.user_name, COALESCE(COUNT(c.id), 0) as comment_count
+                SELECT p.id, p.posted_at
                 FROM Posts p
                 INNER JOIN users u ON p.user_id = u.id
-                LEFT JOIN comments c ON p.id = c.post_id AND c.status = 0
-                INNER JOIN hashtag_details hd ON p.id = hd.post_id
-                INNER JOIN Hashtags h ON hd.hashtag_id = h.id
-                WHERE LOWER(h.content) = LOWER(:hashtag)
-                AND p.status = 1
+                WHERE p.status = 1
                 AND u.status = 0
-                GROUP BY p.id, p.captions, p.status, p.audience, p.posted_at,
-                         p.is_comment_visible, p.is_like_visible, p.updated_at, p.user_id,
-                         u.first_name, u.last_name, u.user_name
-                ORDER BY p.posted_at DESC
-                LIMIT :#{#pageable.pageSize} OFFSET :#{#pageable.offset}
+                AND EXISTS (
+                    SELECT 1 FROM hashtag_details hd
+                    INNER JOIN Hashtags h ON hd.hashtag_id = h.id
+                    WHERE hd.post_id = p.id AND LOWER(h.content) = LOWER(:hashtag)
+                )
+                AND (CAST(:cursorPostedAt AS timestamp) IS NULL
+                    OR p.posted_at < CAST(:cursorPostedAt AS timestamp)
+                    OR (p.posted_at = CAST(:cursorPostedAt AS timestamp)
+                        AND CAST(p.id AS TEXT) < :cursorId))
+                ORDER BY p.posted_at DESC, p.id DESC
+                LIMIT :limit
             """,
-      countQuery =
+      nativeQuery = true)
+  List<Object[]> findPostIdsByHashtag(
+      @Param("hashtag") String hashtag,
+      @Param("cursorPostedAt") LocalDateTime cursorPostedAt,
+      @Param("cursorId") String cursorId,
+      @Param("limit") int limit);
+
+  @Modifying
+  @Transactional
+  @Query(
+      value = "UPDATE Posts SET like_count = like_count + :delta WHERE id IN :ids",
+      nativeQuery = true)
+  int incrementLikeCounts(@Param("ids") Collection<String> ids, @Param("delta") long delta);
+
+  @Modifying
+  @Transactional
+  @Query(
+      value = "UPDATE Posts SET comment_count = comment_count + :delta WHERE id IN :ids",
+      nativeQuery = true)
+  int incrementCommentCounts(@Param("ids") Collection<String> ids, @Param("delta") long delta);
+
+  // Posts whose counters differ from the source tables, with the counts they should have:
+  // (id, likes, comments)
+  @Query(
+      value =
           """
-                SELECT COUNT(DISTINCT p.id) FROM Posts p
-                INNER JOIN users u ON p.user_id = u.id
-                INNER JOIN hashtag_details hd ON p.id = hd.post_id
-                INNER JOIN Hashtags h ON hd.hashtag_id = h.id
-                WHERE LOWER(h.content) = LOWER(:hashtag)
-                AND p.status = 1
-                AND u.status = 0
+                SELECT counts.id, counts.likes, counts.comments
+                FROM (
+                    SELECT p2.id, p2.like_count, p2.comment_count,
+                           (SELECT COUNT(*) FROM liked_posts lp WHERE lp.post_id = p2.id) AS likes,
+                           (SELECT COUNT(*) FROM comments c
+                            WHERE c.post_id = p2.id AND c.status = 0) AS comments
+                    FROM Posts p2
+                ) counts
+                WHERE counts.like_count <> counts.likes OR counts.comment_count <> counts.comments
+            """,
+      nativeQuery = true)
+  List<Object[]> findDriftedCounters();
+
+  // Sets both counters, but only while the source tables still hold the given counts
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          """
+                UPDATE Posts
+                SET like_count = :likes, comment_count = :comments
+                WHERE id = :id
+                AND (SELECT COUNT(*) FROM liked_posts lp WHERE lp.post_id = :id) = :likes
+                AND (SELECT COUNT(*) FROM comments c WHERE c.post_id = :id AND c.status = 0)
+                    = :comments
             """,
       nativeQuery = true)
-  Page<Object[]> findPostsByHashtagWithPagination(
-      @Param("hashtag") String hashtag, Pageable pageable);
+  int repairCounters(
+      @Param("id") String id, @Param("likes") long likes, @Param("comments") long comments);
 }
@@ -4,16 +4,14 @@ import com.unify.app.posts.domain.models.*;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
-import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -31,8 +29,10 @@ public class PostService {
   private final PostMapper mapper;
   private final MediaMapper mediaMapper;
   private final MediaRepository mediaRepository;
+  private final FeedTimelineService feedTimelineService;
+  private final TrendingService trendingService;
+  private final PostHydrator postHydrator;
 
-  @CacheEvict(value = "personalizedFeedCache", allEntries = true)
   public PostDto createPost(PostDto postDTO) {
     Post post = mapper.toPost(postDTO);
     Post savedPost = postRepository.save(post);
@@ -46,6 +46,9 @@ public class PostService {
       }
     }
 
+    feedTimelineService.fanOut(savedPost);
+    trendingService.recordPost(savedPost);
+
     return mapper.toPostDto(savedPost);
   }
 
@@ -64,14 +67,15 @@ public class PostService {
 
   public Post update(Post post) {
     var postUpdate = this.findById(post.getId());
-    return postRepository.save(postUpdate);
+    Post saved = postRepository.save(postUpdate);
+    feedTimelineService.invalidateFeeds(saved);
+    return saved;
   }
 
   public Optional<Post> findByOptionalPostId(String id) {
     return postRepository.findById(id);
   }
 
-  @CacheEvict(value = "personalizedFeedCache", allEntries = true)
   public PostDto updatePost(PostDto postDto) {
     Post post =
         postRepository
@@ -97,15 +101,13 @@ public class PostService {
     }
 
     Post updatedPost = postRepository.save(post);
+    feedTimelineService.invalidateFeeds(updatedPost);
     return mapper.toPostDto(updatedPost);
   }
 
-  public List<PostDto> getPostsTrending() {
-    List<Object[]> results = postRepository.findPostsWithInteractionCounts();
-    return results.stream()
-        .filter(Objects::nonNull)
-        .map(result -> mapper.toPostDto((Post) result[0]))
-        .collect(Collectors.toList());
+  /** Top trending posts, answered from the in-memory ranking (see {@link TrendingService}). */
+  public List<PostDto> getPostsTrending(int limit) {
+    return hydratePosts(trendingService.top(limit));
   }
 
   @CacheEvict(value = "posts", key = "#id")
@@ -116,6 +118,8 @@ public class PostService {
             post -> {
               post.setStatus(2);
               postRepository.save(post);
+              trendingService.remove(id);
+              feedTimelineService.invalidateFeeds(post);
             },
             () -> {
               throw new PostNotFoundException("Post not found with id: " + id);
@@ -129,6 +133,7 @@ public class PostService {
             post -> {
               post.setStatus(post.getStatus() == 1 ? 0 : 1);
               postRepository.save(post);
+              feedTimelineService.invalidateFeeds(post);
             },
             () -> {
               throw new PostNotFoundException("Post not found with id: " + id);
@@ -142,11 +147,11 @@ public class PostService {
   }
 
   public List<PostDto> getMyPosts(String userId, Integer status, Audience audience) {
-    return mapper.toPostDtoList(postRepository.findMyPosts(userId, status, audience));
+    return postHydrator.toPostDtos(postRepository.findMyPosts(userId, status, audience));
   }
 
   public List<PostDto> getArchiveMyPosts(String userId, Integer status) {
-    return mapper.toPostDtoList(postRepository.findArchiveMyPosts(userId, status));
+    return postHydrator.toPostDtos(postRepository.findArchiveMyPosts(userId, status));
   }
 
   public List<PostDto> getPostsByHashtag(String hashtag) {
@@ -154,262 +159,147 @@ public class PostService {
     return new ArrayList<>();
   }
 
-  public PostFeedResponse getPostsByHashtagWithPagination(String hashtag, Pageable pageable) {
-    try {
-      int pageSize = pageable.getPageSize();
-      int pageNumber = pageable.getPageNumber();
-
-      // Fetch posts by hashtag with pagination support
-      Page<Object[]> results = postRepository.findPostsByHashtagWithPagination(hashtag, pageable);
-
-      // Convert to PostDto with comment count
-      List<PostDto> posts =
-          results.getContent().stream()
-              .map(
-                  result -> {
-                    Post post = (Post) result[0];
-                    Long commentCount = (Long) result[1];
-                    PostDto postDto = mapper.toPostDto(post);
-                    postDto.setCommentCount(commentCount);
-                    return postDto;
-                  })
-              .collect(Collectors.toList());
-
-      // Check if there are more posts available
-      boolean hasNext = results.hasNext();
-
-      return new PostFeedResponse(posts, hasNext, pageNumber);
-    } catch (Exception e) {
-      // Log the error for debugging
-      System.err.println("Error fetching posts by hashtag: " + hashtag + " - " + e.getMessage());
-      e.printStackTrace();
-
-      // Try fallback method - search in post captions
-      try {
-        System.out.println("Trying fallback method for hashtag: " + hashtag);
-        List<Post> fallbackPosts =
-            postRepository.findAll().stream()
-                .filter(
-                    post ->
-                        post.getCaptions() != null
-                            && post.getCaptions().toLowerCase().contains(hashtag.toLowerCase())
-                            && post.getStatus() == 1)
-                .limit(pageable.getPageSize())
-                .collect(Collectors.toList());
-
-        List<PostDto> fallbackPostDtos =
-            fallbackPosts.stream().map(mapper::toPostDto).collect(Collectors.toList());
-
-        return new PostFeedResponse(fallbackPostDtos, false, pageable.getPageNumber());
-      } catch (Exception fallbackError) {
-        System.err.println("Fallback method also failed: " + fallbackError.getMessage());
-        // Return empty response as last resort
-        return new PostFeedResponse(new ArrayList<>(), false, pageable.getPageNumber());
-      }
+  public PostFeedResponse getPostsByHashtag(String hashtag, String cursor, int page, int size) {
+    FeedCursor after = FeedCursor.decode(cursor);
+
+    List<Object[]> rows =
+        postRepository.findPostIdsByHashtag(
+            hashtag,
+            after != null ? after.postedAt() : null,
+            after != null ? after.id() : null,
+            size + 1);
+
+    boolean hasNext = rows.size() > size;
+    if (hasNext) {
+      rows = rows.subList(0, size);
     }
-  }
 
-  public List<PostDto> getRecommendedPosts(String userId) {
-    List<Post> posts =
-        postRepository.findPostsWithInteractionCounts().stream()
-            .map(result -> (Post) result[0])
-            .toList();
-    return posts.stream().map(mapper::toPostDto).collect(Collectors.toList());
-  }
+    List<String> postIds = rows.stream().map(row -> (String) row[0]).collect(Collectors.toList());
+    String nextCursor = null;
+    if (hasNext) {
+      Object[] last = rows.get(rows.size() - 1);
+      nextCursor = FeedCursor.of(convertToLocalDateTime(last[1]), (String) last[0]).encode();
+    }
 
-  public PostFeedResponse getRecommendedPostsForExplore(String userId, Pageable pageable) {
-    int pageSize = pageable.getPageSize();
-    int pageNumber = pageable.getPageNumber();
-
-    // Fetch posts with pagination support
-    Page<Object[]> results =
-        postRepository.findPostsWithInteractionCountsAndNotFollow(userId, pageable);
-
-    // Convert to PostDto with comment count
-    List<PostDto> posts =
-        results.getContent().stream()
-            .map(
-                result -> {
-                  Post post = (Post) result[0];
-                  Long commentCount = (Long) result[1];
-                  PostDto postDto = mapper.toPostDto(post);
-                  postDto.setCommentCount(commentCount);
-                  return postDto;
-                })
-            .collect(Collectors.toList());
-
-    // Check if there are more posts available
-    boolean hasNext = results.hasNext();
-
-    return new PostFeedResponse(posts, hasNext, pageNumber);
+    return new PostFeedResponse(hydratePosts(postIds), hasNext, page, nextCursor);
   }
 
-  public List<PostDto> getPostsWithCommentCount() {
-    List<Object[]> results = postRepository.findPostsWithCommentCount();
-    return results.stream()
-        .map(
-            result -> {
-              Post post = (Post) result[0];
-              Long commentCount = (Long) result[1];
-              PostDto postDto = mapper.toPostDto(post);
-              postDto.setCommentCount(commentCount);
-              return postDto;
-            })
+  public List<PostDto> getRecommendedPosts(String userId, int limit) {
+    // Over-fetched so the caller's own trending posts don't leave the list short
+    return hydratePosts(trendingService.top(limit * 2)).stream()
+        .filter(post -> post.getUser() == null || !userId.equals(post.getUser().id()))
+        .limit(limit)
         .collect(Collectors.toList());
   }
 
-  /**
-   * Improved personalized feed algorithm that addresses: 1. Interleaving posts from different
-   * sources instead of clustering by user 2. Including user's own posts (2-3 recent posts) 3.
-   * Semi-randomized ordering for more dynamic feed
-   */
-  public PostFeedResponse getPersonalizedFeed(String userId, Pageable pageable) {
-    int pageSize = pageable.getPageSize();
-    int pageNumber = pageable.getPageNumber();
+  public PostFeedResponse getRecommendedPostsForExplore(
+      String userId, String cursor, int page, int size) {
+    FeedCursor after = FeedCursor.decode(cursor);
+
+    List<Post> results =
+        postRepository.findPostsByInteractionCountAndNotFollow(
+            userId,
+            after != null ? after.score() : null,
+            after != null ? after.postedAt() : null,
+            after != null ? after.id() : null,
+            PageRequest.of(0, size + 1));
+
+    boolean hasNext = results.size() > size;
+    if (hasNext) {
+      results = results.subList(0, size);
+    }
 
-    // Fetch posts from different sources
-    List<PersonalizedPostDto> ownPosts = postRepository.findUserOwnPosts(userId);
-    List<PersonalizedPostDto> followedPosts = postRepository.findFollowedUsersPosts(userId);
-    List<PersonalizedPostDto> recommendedPosts = postRepository.findRecommendedPosts(userId);
+    List<PostDto> posts = postHydrator.toPostDtos(results);
 
-    // Create a balanced feed by interleaving posts from different sources
-    List<PostDto> interleavedPosts =
-        createBalancedFeed(ownPosts, followedPosts, recommendedPosts, pageSize, pageNumber, userId);
+    String nextCursor = null;
+    if (hasNext) {
+      Post last = results.get(results.size() - 1);
+      long interactionCount = last.getLikeCount() + last.getCommentCount();
+      nextCursor = FeedCursor.of(interactionCount, last.getPostedAt(), last.getId()).encode();
+    }
 
-    // Determine if there are more posts available
-    boolean hasNext =
-        hasMorePostsAvailable(ownPosts, followedPosts, recommendedPosts, pageSize, pageNumber);
+    return new PostFeedResponse(posts, hasNext, page, nextCursor);
+  }
 
-    return new PostFeedResponse(interleavedPosts, hasNext, pageNumber);
+  public List<PostDto> getPostsWithCommentCount() {
+    return postRepository.findVisibleUserPosts().stream()
+        .map(mapper::toPostDto)
+        .collect(Collectors.toList());
   }
 
   /**
-   * Creates a balanced feed by interleaving posts from different sources with infinite scroll
-   * support and deduplication
+   * Home feed read from the user's materialized timeline (see {@link FeedTimelineService}). Only
+   * the post IDs of the requested page are hydrated from the database. First pages are cached under
+   * the user's current feed version (see {@link FeedTimelineService#feedVersion}).
    */
-  private List<PostDto> createBalancedFeed(
-      List<PersonalizedPostDto> ownPosts,
-      List<PersonalizedPostDto> followedPosts,
-      List<PersonalizedPostDto> recommendedPosts,
-      int pageSize,
-      int pageNumber,
-      String userId) {
-
-    // Create a highly dynamic random seed that changes on every request
-    long baseSeed = ((long) (userId == null ? 0 : userId.hashCode())) ^ pageNumber;
-    long timeSeed = System.currentTimeMillis(); // Use full millisecond precision
-    long nanoSeed = System.nanoTime(); // Add nanosecond precision for even more randomness
-    long randomSeed = baseSeed ^ timeSeed ^ nanoSeed ^ (pageNumber * 31);
-    Random random = new Random(randomSeed);
-
-    // Combine all posts into a single pool for infinite scroll
-    List<PersonalizedPostDto> allPostsPool = new ArrayList<>();
-
-    // Add posts with different weights for variety
-    addPostsToPool(allPostsPool, ownPosts, 1, random); // Own posts get weight 1
-    addPostsToPool(allPostsPool, followedPosts, 3, random); // Followed posts get weight 3
-    addPostsToPool(allPostsPool, recommendedPosts, 2, random); // Recommended posts get weight 2
-
-    // If no posts available, return empty list
-    if (allPostsPool.isEmpty()) {
-      return new ArrayList<>();
+  @Cacheable(
+      value = "personalizedFeedCache",
+      key = "#userId + ':' + @feedTimelineService.feedVersion(#userId) + ':' + #page + ':' + #size",
+      condition = "#cursor == null || #cursor.isBlank()")
+  public PostFeedResponse getPersonalizedFeed(String userId, String cursor, int page, int size) {
+    FeedCursor after = FeedCursor.decode(cursor);
+
+    FeedTimelineService.TimelinePage timelinePage =
+        feedTimelineService.readPage(userId, after, size);
+
+    // Cold start: nothing followed or posted yet, so show recommendations instead. A timeline
+    // page whose posts were all deleted or hidden is not one; it is returned empty with its cursor.
+    if (timelinePage.postIds().isEmpty() && after == null) {
+      PostFeedResponse recommended = getRecommendedPostsForExplore(userId, null, page, size);
+      return new PostFeedResponse(recommended.posts(), false, page);
     }
 
-    // Shuffle the entire pool for maximum randomness
-    Collections.shuffle(allPostsPool, random);
-
-    // For infinite scroll, we'll cycle through posts with different starting positions
-    // Add extra randomization to starting position to prevent same posts on reload
-    int baseStartIndex = (pageNumber * pageSize) % allPostsPool.size();
-    int randomOffset = random.nextInt(allPostsPool.size()); // Random offset within pool size
-    int startIndex = (baseStartIndex + randomOffset) % allPostsPool.size();
-
-    List<PostDto> interleavedPosts = new ArrayList<>();
+    List<PostDto> posts = hydratePosts(timelinePage.postIds());
+    FeedCursor nextCursor = timelinePage.nextCursor();
+    return new PostFeedResponse(
+        posts, timelinePage.hasNext(), page, nextCursor != null ? nextCursor.encode() : null);
+  }
 
-    // Fill the page with posts, cycling through the pool if needed
-    // We'll fetch more than pageSize to account for deduplication
-    int maxAttempts = Math.min(pageSize * 3, allPostsPool.size());
-    for (int i = 0; i < maxAttempts; i++) {
-      int postIndex = (startIndex + i) % allPostsPool.size();
-      PersonalizedPostDto post = allPostsPool.get(postIndex);
-      interleavedPosts.add(convertToPostDto(post));
+  /** Loads the given posts, keeping the order of the IDs. */
+  private List<PostDto> hydratePosts(List<String> postIds) {
+    if (postIds.isEmpty()) {
+      return new ArrayList<>();
     }
 
-    // Apply additional randomization to the final order with a different seed
-    Collections.shuffle(interleavedPosts, new Random(randomSeed + timeSeed));
+    Map<String, Post> postsById =
+        postRepository.findVisiblePostsByIds(postIds).stream()
+            .collect(Collectors.toMap(Post::getId, Function.identity()));
 
-    // Deduplicate by postId and trim to pageSize
-    Set<String> seenPostIds = new HashSet<>();
-    List<PostDto> uniquePosts = new ArrayList<>();
-    for (PostDto post : interleavedPosts) {
-      if (post.getId() == null) {
+    List<Post> posts = new ArrayList<>(postIds.size());
+    for (String postId : postIds) {
+      Post post = postsById.get(postId);
+      if (post == null) {
+        // Deleted, hidden or owner locked since it entered the timeline
         continue;
       }
-      if (!seenPostIds.contains(post.getId())) {
-        seenPostIds.add(post.getId());
-        uniquePosts.add(post);
-        if (uniquePosts.size() >= pageSize) {
-          break;
-        }
-      }
+      posts.add(post);
     }
-
-    return uniquePosts;
+    return postHydrator.toPostDtos(posts);
   }
 
-  /**
-   * Adds posts to the pool with specified weight (number of times to add each post) This creates
-   * more variety and ensures certain posts appear more frequently
-   */
-  private void addPostsToPool(
-      List<PersonalizedPostDto> pool, List<PersonalizedPostDto> posts, int weight, Random random) {
-    if (posts.isEmpty()) return;
-
-    // Create a shuffled copy of posts to avoid clustering
-    List<PersonalizedPostDto> shuffledPosts = new ArrayList<>(posts);
-    Collections.shuffle(shuffledPosts, random);
-
-    // Add each post multiple times based on weight
-    for (PersonalizedPostDto post : shuffledPosts) {
-      for (int i = 0; i < weight; i++) {
-        pool.add(post);
-      }
+  public PostFeedResponse getReelsPosts(String cursor, int page, int size) {
+    FeedCursor after = FeedCursor.decode(cursor);
+
+    List<Post> results =
+        postRepository.findReelsPosts(
+            after != null ? after.postedAt() : null,
+            after != null ? after.id() : null,
+            PageRequest.of(0, size + 1));
+
+    boolean hasNext = results.size() > size;
+    if (hasNext) {
+      results = results.subList(0, size);
     }
-  }
 
-  /** Converts PersonalizedPostDto to PostDto */
-  private PostDto convertToPostDto(PersonalizedPostDto dto) {
-    PostDto postDTO = mapper.toPostDto(dto.post());
-    postDTO.setCommentCount(dto.commentCount());
-    return postDTO;
-  }
+    List<PostDto> posts = postHydrator.toPostDtos(results);
 
-  /**
-   * Determines if there are more posts available for pagination - always true for infinite scroll
-   */
-  private boolean hasMorePostsAvailable(
-      List<PersonalizedPostDto> ownPosts,
-      List<PersonalizedPostDto> followedPosts,
-      List<PersonalizedPostDto> recommendedPosts,
-      int pageSize,
-      int pageNumber) {
-
-    // For infinite scroll, we always return true as long as there are any posts available
-    // The algorithm will cycle through posts infinitely
-    return !ownPosts.isEmpty() || !followedPosts.isEmpty() || !recommendedPosts.isEmpty();
-  }
+    String nextCursor = null;
+    if (hasNext) {
+      PostDto last = posts.get(posts.size() - 1);
+      nextCursor = FeedCursor.of(last.getPostedAt(), last.getId()).encode();
+    }
 
-  public Page<PostDto> getReelsPosts(int page, int size) {
-    Pageable pageable = PageRequest.of(page, size);
-    Page<Object[]> postPage = postRepository.findReelsPostsWithCommentCount(pageable);
-    return postPage.map(
-        result -> {
-          Post post = (Post) result[0];
-          Long commentCount = (Long) result[1];
-          PostDto postDto = mapper.toPostDto(post);
-          postDto.setCommentCount(commentCount);
-          return postDto;
-        });
+    return new PostFeedResponse(posts, hasNext, page, nextCursor);
   }
 
   // Removed problematic methods to focus on core newsfeed functionality
@@ -423,10 +313,13 @@ public class PostService {
       String hashtag,
       Long commentCount,
       String commentCountOperator,
+      String cursor,
       int page,
       int size) {
 
-    Pageable pageable = PageRequest.of(page, size);
+    // With a cursor the page is found by keyset instead of skipping page * size rows
+    FeedCursor after = FeedCursor.decode(cursor);
+    Pageable pageable = PageRequest.of(after != null ? 0 : page, size);
 
     // Convert Audience enum to string for native query
     String audienceString = audience != null ? audience.name() : null;
@@ -441,6 +334,8 @@ public class PostService {
             hashtag,
             commentCount,
             commentCountOperator,
+            after != null ? after.postedAt() : null,
+            after != null ? after.id() : null,
             pageable);
 
     List<PostRowDto> rows = new ArrayList<>();
@@ -491,11 +386,18 @@ public class PostService {
       rows.add(postRow);
     }
 
+    String nextCursor = null;
+    if (result.getContent().size() == size) {
+      Object[] last = result.getContent().get(size - 1);
+      nextCursor = FeedCursor.of(convertToLocalDateTime(last[4]), (String) last[0]).encode();
+    }
+
     return new PostTableResponse(
         rows,
         page + 1, // Convert 0-based to 1-based page number
         size,
-        result.getTotalElements());
+        result.getTotalElements(),
+        nextCursor);
   }
 
   /**
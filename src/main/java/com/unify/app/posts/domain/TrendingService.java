@@ -0,0 +1,210 @@
+package com.unify.app.posts.domain;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-process trending ranking. Every post creation, like and comment adds to a time-decayed score,
+ * and the highest scoring posts are kept in a bounded skip list so the top K can be read without
+ * touching the database.
+ *
+ * <p>Instead of decaying every score as time passes, each event is weighted by {@code exp(lambda *
+ * (t - epoch))}. All scores share the same decay factor, so the ranking is unchanged and only
+ * events need updating. The epoch is moved forward before the weights overflow.
+ *
+ * <p>A removed interaction (unlike, deleted comment) was credited at its own, unknown time, and
+ * weighting its removal at the current time would take back more than it added. Instead it takes
+ * back the average weight of the post's remaining interactions, so removals never cost a post more
+ * than its interactions contributed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrendingService {
+
+  private static final double MAX_EXPONENT = 40;
+
+  private static final Comparator<Entry> HIGHEST_FIRST =
+      Comparator.comparingDouble(Entry::score).reversed().thenComparing(Entry::postId);
+
+  private final PostRepository postRepository;
+
+  @Value("${unify.feed.trending-half-life-hours:12}")
+  private double halfLifeHours;
+
+  @Value("${unify.feed.trending-window-days:7}")
+  private int windowDays;
+
+  @Value("${unify.feed.trending-capacity:5000}")
+  private int capacity;
+
+  // The score includes the post's own weight; interactionWeight is the part its interactions added
+  private record Entry(
+      String postId, double score, double interactionWeight, double interactions) {}
+
+  // Both replaced as a whole by rebuild and rebase; readers of the ranking never see it empty or
+  // half filled. Writes happen under the service's lock.
+  private Map<String, Entry> entries = new HashMap<>();
+  private volatile NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(HIGHEST_FIRST);
+  private long epochMillis = System.currentTimeMillis();
+
+  /** Reloads the ranking from the posts of the trending window. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    LocalDateTime since = LocalDateTime.now().minusDays(windowDays);
+    try {
+      List<Object[]> rows = postRepository.findTrendingSeed(since);
+      long epoch = System.currentTimeMillis();
+      Map<String, Entry> seeded = new HashMap<>();
+      NavigableSet<Entry> seededRanking = new ConcurrentSkipListSet<>(HIGHEST_FIRST);
+      // Event times aren't stored, so the counters are credited at posting time
+      for (Object[] row : rows) {
+        long interactions = (Long) row[2] + (Long) row[3];
+        double weight = Math.exp(exponent(toMillis((LocalDateTime) row[1]), epoch));
+        add(
+            seeded,
+            seededRanking,
+            (String) row[0],
+            (1 + interactions) * weight,
+            interactions * weight,
+            interactions);
+      }
+      synchronized (this) {
+        entries = seeded;
+        epochMillis = epoch;
+        ranking = seededRanking;
+      }
+      log.info("Rebuilt trending ranking from {} posts since {}", rows.size(), since);
+    } catch (Exception e) {
+      log.warn("Failed to rebuild trending ranking: {}", e.getMessage());
+    }
+  }
+
+  public synchronized void recordPost(Post post) {
+    if (post.getId() == null) {
+      return;
+    }
+    double weight = weightAt(toMillis(post.getPostedAt()));
+    add(entries, ranking, post.getId(), weight, 0, 0);
+  }
+
+  public void recordInteraction(String postId, long delta) {
+    record(postId, delta, System.currentTimeMillis());
+  }
+
+  public synchronized void remove(String postId) {
+    Entry entry = entries.remove(postId);
+    if (entry != null) {
+      ranking.remove(entry);
+    }
+  }
+
+  /** Returns up to {@code limit} post IDs, highest score first. */
+  public List<String> top(int limit) {
+    return ranking.stream().limit(limit).map(Entry::postId).collect(Collectors.toList());
+  }
+
+  /** Adds {@code count} interactions made at the given time, or removes them when negative. */
+  synchronized void record(String postId, double count, long atMillis) {
+    if (postId == null || count == 0) {
+      return;
+    }
+    if (count > 0) {
+      double weight = count * weightAt(atMillis);
+      add(entries, ranking, postId, weight, weight, count);
+      return;
+    }
+
+    Entry previous = entries.get(postId);
+    if (previous == null || previous.interactions() <= 0) {
+      return;
+    }
+    double removed = Math.min(-count, previous.interactions());
+    double weight = previous.interactionWeight() * removed / previous.interactions();
+    add(entries, ranking, postId, -weight, -weight, -removed);
+  }
+
+  // Moves the epoch first when the weight of the given time would overflow
+  private double weightAt(long atMillis) {
+    if (exponent(atMillis, epochMillis) > MAX_EXPONENT) {
+      rebase(atMillis);
+    }
+    return Math.exp(exponent(atMillis, epochMillis));
+  }
+
+  private void add(
+      Map<String, Entry> entries,
+      NavigableSet<Entry> ranking,
+      String postId,
+      double delta,
+      double interactionDelta,
+      double interactionCount) {
+    Entry previous = entries.get(postId);
+    double score = (previous != null ? previous.score() : 0) + delta;
+    if (previous != null) {
+      ranking.remove(previous);
+    }
+    if (score <= 0) {
+      entries.remove(postId);
+      return;
+    }
+
+    Entry entry =
+        new Entry(
+            postId,
+            score,
+            Math.max(0, (previous != null ? previous.interactionWeight() : 0) + interactionDelta),
+            Math.max(0, (previous != null ? previous.interactions() : 0) + interactionCount));
+    entries.put(postId, entry);
+    ranking.add(entry);
+
+    while (entries.size() > capacity) {
+      Entry lowest = ranking.pollLast();
+      entries.remove(lowest.postId());
+    }
+  }
+
+  // Scales every score down to the new epoch; relative order is preserved
+  private void rebase(long newEpochMillis) {
+    double factor = Math.exp(-exponent(newEpochMillis, epochMillis));
+    Map<String, Entry> rebased = new HashMap<>();
+    NavigableSet<Entry> rebasedRanking = new ConcurrentSkipListSet<>(HIGHEST_FIRST);
+    entries.forEach(
+        (postId, entry) -> {
+          Entry scaled =
+              new Entry(
+                  postId,
+                  entry.score() * factor,
+                  entry.interactionWeight() * factor,
+                  entry.interactions());
+          rebased.put(postId, scaled);
+          rebasedRanking.add(scaled);
+        });
+    entries = rebased;
+    epochMillis = newEpochMillis;
+    ranking = rebasedRanking;
+  }
+
+  private double exponent(long atMillis, long epoch) {
+    double lambda = Math.log(2) / (halfLifeHours * 3_600_000);
+    return lambda * (atMillis - epoch);
+  }
+
+  private static long toMillis(LocalDateTime time) {
+    LocalDateTime value = time != null ? time : LocalDateTime.now();
+    return value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+}
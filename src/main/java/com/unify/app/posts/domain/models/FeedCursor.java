@@ -0,0 +1,55 @@
+package com.unify.app.posts.domain.models;
+
+import com.unify.app.common.exceptions.BadRequestException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for post feeds. Time ordered feeds resume after (postedAt, id); ranked feeds
+ * also carry the score of the last post so the next page starts strictly after it.
+ */
+public record FeedCursor(Long score, LocalDateTime postedAt, String id) {
+
+  private static final String SEPARATOR = "|";
+
+  public static FeedCursor of(LocalDateTime postedAt, String id) {
+    return new FeedCursor(null, postedAt, id);
+  }
+
+  public static FeedCursor of(long score, LocalDateTime postedAt, String id) {
+    return new FeedCursor(score, postedAt, id);
+  }
+
+  public String encode() {
+    String raw =
+        (score != null ? score.toString() : "")
+            + SEPARATOR
+            + (postedAt != null ? postedAt.toString() : "")
+            + SEPARATOR
+            + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Returns null for a missing cursor (first page). */
+  public static FeedCursor decode(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      String[] parts = raw.split("\\|", 3);
+      if (parts.length != 3 || parts[2].isEmpty()) {
+        throw new BadRequestException("Invalid cursor");
+      }
+      Long score = parts[0].isEmpty() ? null : Long.valueOf(parts[0]);
+      LocalDateTime postedAt = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+      return new FeedCursor(score, postedAt, parts[2]);
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new BadRequestException("Invalid cursor");
+    }
+  }
+}
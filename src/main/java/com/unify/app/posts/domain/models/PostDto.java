@@ -34,5 +34,7 @@ public class PostDto {
 
   Set<HashtagDetailDto> hashtags;
 
+  Long likeCount;
+
   Long commentCount;
 }
@@ -2,4 +2,14 @@ package com.unify.app.posts.domain.models;
 
 import java.util.List;
 
-public record PostFeedResponse(List<PostDto> posts, boolean hasNextPage, int currentPage) {}
+/**
+ * One page of a post feed. {@code nextCursor} is passed back as the {@code cursor} request param to
+ * fetch the following page; it is null when there are no more posts.
+ */
+public record PostFeedResponse(
+    List<PostDto> posts, boolean hasNextPage, int currentPage, String nextCursor) {
+
+  public PostFeedResponse(List<PostDto> posts, boolean hasNextPage, int currentPage) {
+    this(posts, hasNextPage, currentPage, null);
+  }
+}
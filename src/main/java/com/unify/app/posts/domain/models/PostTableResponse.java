@@ -2,4 +2,5 @@ package com.unify.app.posts.domain.models;
 
 import java.util.List;
 
-public record PostTableResponse(List<PostRowDto> rows, int page, int pageSize, long total) {}
+public record PostTableResponse(
+    List<PostRowDto> rows, int page, int pageSize, long total, String nextCursor) {}
@@ -2,6 +2,7 @@ package com.unify.app.posts.liked;
 
 import com.unify.app.notifications.domain.NotificationService;
 import com.unify.app.notifications.domain.models.NotificationType;
+import com.unify.app.posts.domain.PostCounterService;
 import com.unify.app.posts.domain.PostMapper;
 import com.unify.app.posts.domain.PostService;
 import com.unify.app.posts.domain.models.PostDto;
@@ -25,6 +26,7 @@ public class LikedPostService {
   private final LikedPostRepository likedPostRepository;
   private final PostMapper postMapper;
   private final NotificationService notificationService;
+  private final PostCounterService postCounterService;
 
   public List<PostDto> getListLikedPosts(String userId) {
     List<LikedPost> likedPosts = likedPostRepository.findAllByUserId(userId);
@@ -58,6 +60,7 @@ public class LikedPostService {
               .build();
 
       likedPostRepository.save(likedPost);
+      postCounterService.recordLike(request.postId(), 1);
 
       // ✅ NOTIFICATION: Send notification to post owner (only if not already liked)
       String postOwnerId = likedPost.getPost().getUser().getId();
@@ -101,7 +104,8 @@ public class LikedPostService {
         throw new IllegalStateException("No liked post found for this user and post");
       }
 
-      likedPostRepository.deleteByUserIdAndPostId(request.userId(), request.postId());
+      int deleted = likedPostRepository.deleteByUserIdAndPostId(request.userId(), request.postId());
+      postCounterService.recordLike(request.postId(), -deleted);
 
     } catch (Exception e) {
       log.error("Failed to delete liked post: {}", e.getMessage(), e);
@@ -12,10 +12,6 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -34,26 +30,29 @@ class PostController {
 
   @GetMapping("/personalized")
   ResponseEntity<?> getPersonalizedFeed(
-      @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "7") int size) {
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "7") int size) {
 
     String userId = securityService.getCurrentUserId();
 
-    Pageable pageable = PageRequest.of(page, size, Sort.by("postedAt").descending());
-
-    PostFeedResponse response = postService.getPersonalizedFeed(userId, pageable);
+    PostFeedResponse response = postService.getPersonalizedFeed(userId, cursor, page, size);
 
     return ResponseEntity.ok(response);
   }
 
+  @GetMapping("/trending")
+  public ResponseEntity<List<PostDto>> getPostsTrending(
+      @RequestParam(defaultValue = "20") int size) {
+    return ResponseEntity.ok(postService.getPostsTrending(size));
+  }
+
   @GetMapping("/reels")
   public ResponseEntity<PostFeedResponse> getReelsPosts(
-      @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "7") int size) {
-    Page<PostDto> postPage = postService.getReelsPosts(page, size);
-
-    PostFeedResponse response =
-        new PostFeedResponse(postPage.getContent(), postPage.hasNext(), postPage.getNumber());
-
-    return ResponseEntity.ok(response);
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "7") int size) {
+    return ResponseEntity.ok(postService.getReelsPosts(cursor, page, size));
   }
 
   @PostMapping
@@ -120,11 +119,11 @@ class PostController {
   @GetMapping("/hashtag/{content}")
   public ResponseEntity<PostFeedResponse> getPostsByHashtag(
       @PathVariable("content") String content,
+      @RequestParam(required = false) String cursor,
       @RequestParam(defaultValue = "0") int page,
       @RequestParam(defaultValue = "12") int size) {
     try {
       String userId = securityService.getCurrentUserId();
-      Pageable pageable = PageRequest.of(page, size, Sort.by("postedAt").descending());
 
       System.out.println("Fetching posts for hashtag: #" + content + " for user: " + userId);
 
@@ -132,7 +131,7 @@ class PostController {
       String cleanHashtag = content.startsWith("#") ? content.substring(1) : content;
 
       PostFeedResponse response =
-          postService.getPostsByHashtagWithPagination("#" + cleanHashtag, pageable);
+          postService.getPostsByHashtag("#" + cleanHashtag, cursor, page, size);
 
       System.out.println(
           "Found " + response.posts().size() + " posts for hashtag: #" + cleanHashtag);
@@ -149,10 +148,12 @@ class PostController {
 
   @GetMapping("/explorer")
   public ResponseEntity<PostFeedResponse> getRecommendedPostsForExplore(
-      @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "12") int size) {
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "12") int size) {
     String userId = securityService.getCurrentUserId();
-    Pageable pageable = PageRequest.of(page, size, Sort.by("postedAt").descending());
-    PostFeedResponse response = postService.getRecommendedPostsForExplore(userId, pageable);
+    PostFeedResponse response =
+        postService.getRecommendedPostsForExplore(userId, cursor, page, size);
     return ResponseEntity.ok(response);
   }
 
@@ -194,6 +195,7 @@ class PostController {
       @RequestParam(required = false) String hashtag,
       @RequestParam(required = false) Long commentCount,
       @RequestParam(required = false, defaultValue = "=") String commentCountOperator,
+      @RequestParam(required = false) String cursor,
       @RequestParam(defaultValue = "0") int page,
       @RequestParam(defaultValue = "20") int pageSize) {
 
@@ -207,6 +209,7 @@ class PostController {
             hashtag,
             commentCount,
             commentCountOperator,
+            cursor,
             page,
             pageSize);
 
@@ -7,6 +7,7 @@ import com.unify.app.notifications.domain.NotificationService;
 import com.unify.app.notifications.domain.ReportEmailService;
 import com.unify.app.notifications.domain.ReportNotificationService;
 import com.unify.app.posts.domain.Post;
+import com.unify.app.posts.domain.PostCounterService;
 import com.unify.app.posts.domain.PostMapper;
 import com.unify.app.posts.domain.PostService;
 import com.unify.app.reports.domain.models.AggregatedReportDto;
@@ -16,8 +17,10 @@ import com.unify.app.reports.domain.models.ReportSummaryDto;
 import com.unify.app.users.domain.User;
 import com.unify.app.users.domain.UserMapper;
 import com.unify.app.users.domain.UserService;
+import com.unify.app.users.domain.models.UserDto;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -43,6 +46,7 @@ public class ReportService {
   private final NotificationService notificationService;
   private final ReportNotificationService reportNotificationService;
   private final ReportEmailService reportEmailService;
+  private final PostCounterService postCounterService;
 
   public static final int PENDING = 0;
   public static final int APPROVED = 1;
@@ -90,16 +94,21 @@ public class ReportService {
     List<String> reporterIds =
         reportRepository.findReporterUserIdsForTarget(
             report.getReportedId(), report.getEntityType().name());
-    var reporterDtos =
-        reporterIds.stream()
-            .map(userService::findUserById)
-            .map(userMapper::toUserDTO)
-            .collect(java.util.stream.Collectors.toList());
+    var reporterDtos = findReporters(reporterIds);
     extended.setReporters(reporterDtos);
 
     return extended;
   }
 
+  // One query for all reporters, in the order the IDs were given
+  private List<UserDto> findReporters(List<String> reporterIds) {
+    Map<String, UserDto> profiles = userService.findProfilesByIds(reporterIds);
+    return reporterIds.stream()
+        .map(profiles::get)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+  }
+
   /**
    * Fetch all reports for a given reportedId and return enriched results (same shape as detailed
    * response, per report).
@@ -117,11 +126,7 @@ public class ReportService {
     // Load reporter user IDs for this target and map to UserDto
     List<String> reporterIds =
         reportRepository.findReporterUserIdsForTarget(reportedId, entityType);
-    var reporterDtos =
-        reporterIds.stream()
-            .map(userService::findUserById)
-            .map(userMapper::toUserDTO)
-            .collect(Collectors.toList());
+    var reporterDtos = findReporters(reporterIds);
 
     // Build enriched DTOs for each report
     return reports.stream()
@@ -435,6 +440,9 @@ public class ReportService {
       }
       case COMMENT -> {
         Comment comment = commentService.findById(report.getReportedId());
+        if (comment.getStatus() == 0) {
+          postCounterService.recordComment(comment.getPost().getId(), -1);
+        }
         comment.setStatus(2); // Hide comment
         commentService.update(comment);
 
@@ -459,6 +467,9 @@ public class ReportService {
             .findByParentId(comment.getId())
             .forEach(
                 reply -> {
+                  if (reply.getStatus() == 0) {
+                    postCounterService.recordComment(reply.getPost().getId(), -1);
+                  }
                   reply.setStatus(2);
                   commentService.update(reply);
                 });
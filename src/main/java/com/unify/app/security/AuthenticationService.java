@@ -10,6 +10,7 @@ public class AuthenticationService {
 
   private final TokenRepository tokenRepository;
   private final SecurityService securityService;
+  private final JwtService jwtService;
 
   public void saveUserToken(User user, String jti, String jwtToken) {
     Token token =
@@ -29,6 +30,7 @@ public class AuthenticationService {
           t.setRevoked(true);
         });
     tokenRepository.saveAll(validUserTokens);
+    jwtService.evict(validUserTokens.stream().map(Token::getToken).toList());
   }
 
   public void processTokenCleanup() {
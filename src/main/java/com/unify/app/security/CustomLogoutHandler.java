@@ -2,6 +2,7 @@ package com.unify.app.security;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.Authentication;
@@ -31,6 +32,7 @@ public class CustomLogoutHandler implements LogoutHandler {
       storedToken.setExpired(true);
       storedToken.setRevoked(true);
       tokenRepository.save(storedToken);
+      jwtService.evict(List.of(token));
     }
   }
 }
@@ -21,7 +21,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
   private final JwtService jwtService;
   private final CustomUserDetailsService customUserDetailsService;
-  private final TokenRepository tokenRepository;
 
   @Override
   protected void doFilterInternal(
@@ -37,15 +36,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
 
     try {
-      var isTokenValid =
-          tokenRepository
-              .findByToken(token)
-              .map(t -> !t.getExpired() && !t.getRevoked())
-              .orElse(false);
+      VerifiedToken verified = jwtService.verify(token).orElse(null);
 
-      if (StringUtils.hasText(token) && jwtService.validToken(token) && isTokenValid) {
+      if (verified != null) {
 
-        String email = jwtService.extractUsername(token);
+        String email = verified.subject();
         if (email == null || email.isEmpty()) {
           throw new RuntimeException("Invalid token: unable to extract username");
         }
@@ -4,7 +4,6 @@ import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.JWSHeader;
 import com.nimbusds.jose.JWSObject;
-import com.nimbusds.jose.JWSVerifier;
 import com.nimbusds.jose.Payload;
 import com.nimbusds.jose.crypto.MACSigner;
 import com.nimbusds.jose.crypto.MACVerifier;
@@ -14,16 +13,23 @@ import jakarta.servlet.http.HttpServletRequest;
 import java.text.ParseException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.Date;
+import java.util.Optional;
 import java.util.UUID;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
+  private final TokenRepository tokenRepository;
+  private final VerifiedTokenCache verifiedTokenCache;
+
   @Value("${jwt.signer-key}")
   private String singerKey;
 
@@ -54,16 +60,53 @@ public class JwtService {
   }
 
   public boolean validToken(String token) {
+    return verify(token).isPresent();
+  }
+
+  /**
+   * The token's claims if it is signed by us, not expired and not revoked. Results are cached until
+   * the token expires, so reconnects and repeated requests skip the signature check and the token
+   * lookup.
+   */
+  public Optional<VerifiedToken> verify(String token) {
+    if (!StringUtils.hasText(token)) {
+      return Optional.empty();
+    }
+    VerifiedToken verified = verifiedTokenCache.get(token, this::verifyUncached);
+    if (verified == null || !verified.expiresAt().isAfter(Instant.now())) {
+      return Optional.empty();
+    }
+    return Optional.of(verified);
+  }
+
+  private VerifiedToken verifyUncached(String token) {
     try {
       SignedJWT signed = SignedJWT.parse(token);
-      JWSVerifier verifier = new MACVerifier(singerKey);
-      Date expirationTime = signed.getJWTClaimsSet().getExpirationTime();
-      return signed.verify(verifier) && expirationTime.after(new Date());
+      JWTClaimsSet claims = signed.getJWTClaimsSet();
+      Date expirationTime = claims.getExpirationTime();
+      if (expirationTime == null
+          || !expirationTime.after(new Date())
+          || !signed.verify(new MACVerifier(singerKey))) {
+        return null;
+      }
+      boolean active =
+          tokenRepository
+              .findByToken(token)
+              .map(t -> !t.getExpired() && !t.getRevoked())
+              .orElse(false);
+      return active
+          ? new VerifiedToken(claims.getSubject(), claims.getJWTID(), expirationTime.toInstant())
+          : null;
     } catch (ParseException | JOSEException e) {
-      throw new RuntimeException("Invalid token format or verification failed", e);
+      return null;
     }
   }
 
+  /** Revocation hook: the tokens are verified again, and refused, on their next use. */
+  public void evict(Collection<String> tokens) {
+    verifiedTokenCache.revoke(tokens);
+  }
+
   public String getTokenFromRequest(HttpServletRequest request) {
 
     String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
@@ -0,0 +1,6 @@
+package com.unify.app.security;
+
+import java.time.Instant;
+
+/** Claims of a token whose signature, expiry and revocation status have been checked. */
+public record VerifiedToken(String subject, String jti, Instant expiresAt) {}
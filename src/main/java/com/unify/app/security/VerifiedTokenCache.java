@@ -0,0 +1,107 @@
+package com.unify.app.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tokens that passed verification, keyed by the SHA-256 of the token so the cache holds no bearer
+ * credentials. An entry lives until its token expires, capped at {@code max-ttl-seconds}, which
+ * bounds how long a revocation missed by this node can go unnoticed. Revoking tokens invalidates
+ * them here and, through {@link #REVOCATION_CHANNEL}, on every other node.
+ */
+@Slf4j
+@Component
+class VerifiedTokenCache implements MessageListener {
+
+  static final String REVOCATION_CHANNEL = "unify:security:revoked-tokens";
+
+  private final StringRedisTemplate redisTemplate;
+  private final RedisMessageListenerContainer listenerContainer;
+  private final Cache<String, VerifiedToken> cache;
+
+  VerifiedTokenCache(
+      StringRedisTemplate redisTemplate,
+      RedisMessageListenerContainer listenerContainer,
+      @Value("${jwt.verification-cache.max-size:50000}") long maxSize,
+      @Value("${jwt.verification-cache.max-ttl-seconds:300}") long maxTtlSeconds) {
+    this.redisTemplate = redisTemplate;
+    this.listenerContainer = listenerContainer;
+    long maxTtlNanos = Duration.ofSeconds(maxTtlSeconds).toNanos();
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(
+                Expiry.creating(
+                    (String key, VerifiedToken token) -> {
+                      long untilExpiry =
+                          Duration.between(Instant.now(), token.expiresAt()).toNanos();
+                      return Duration.ofNanos(Math.max(0, Math.min(untilExpiry, maxTtlNanos)));
+                    }))
+            .build();
+  }
+
+  @PostConstruct
+  void subscribe() {
+    listenerContainer.addMessageListener(this, new ChannelTopic(REVOCATION_CHANNEL));
+  }
+
+  /**
+   * The cached verification of the token, or the result of {@code verifier}, which is cached when
+   * not null. Concurrent lookups of the same token share one verification.
+   */
+  VerifiedToken get(String token, Function<String, VerifiedToken> verifier) {
+    return cache.get(hash(token), key -> verifier.apply(token));
+  }
+
+  /** Forgets the tokens on every node, so their next use is verified again. */
+  void revoke(Collection<String> tokens) {
+    for (String token : tokens) {
+      String hash = hash(token);
+      cache.invalidate(hash);
+      try {
+        redisTemplate.convertAndSend(REVOCATION_CHANNEL, hash);
+      } catch (Exception e) {
+        // Other nodes drop the entry after the max TTL
+        log.warn("Failed to publish token revocation: {}", e.getMessage());
+      }
+    }
+  }
+
+  @Override
+  public void onMessage(@NonNull Message message, byte[] pattern) {
+    cache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+  }
+
+  long size() {
+    return cache.estimatedSize();
+  }
+
+  static String hash(String token) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().withoutPadding().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -5,10 +5,12 @@ import java.io.Serializable;
 import java.time.LocalDateTime;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 
 @Entity
 @Table(name = "avatars")
+@BatchSize(size = 50)
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Setter
 @Getter
@@ -28,7 +30,7 @@ public class Avatar implements Serializable {
   @CreationTimestamp
   LocalDateTime createdAt;
 
-  @ManyToOne(optional = false)
+  @ManyToOne(optional = false, fetch = FetchType.LAZY)
   @JoinColumn(name = "user_id")
   User user;
 }
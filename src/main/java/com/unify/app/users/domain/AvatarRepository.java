@@ -1,6 +1,8 @@
 package com.unify.app.users.domain;
 
 import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -11,4 +13,6 @@ interface AvatarRepository extends JpaRepository<Avatar, String> {
 
   @Query("SELECT a FROM Avatar a WHERE a.user.id = :userId ORDER BY a.createdAt DESC LIMIT 1")
   Optional<Avatar> findLatestByUserId(@Param("userId") String userId);
+
+  Page<Avatar> findByUserIdOrderByCreatedAtDesc(String userId, Pageable pageable);
 }
@@ -11,6 +11,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
@@ -100,26 +101,19 @@ public class User implements Serializable {
       inverseJoinColumns = @JoinColumn(name = "role_id", referencedColumnName = "id"))
   Set<Role> roles;
 
-  @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, mappedBy = "user")
+  // Full avatar history; only loaded when explicitly paged through
+  @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY, mappedBy = "user")
   Set<Avatar> avatars;
 
+  // Denormalized pointer to the newest avatar, kept in sync by UserService
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "current_avatar_id")
+  Avatar currentAvatar;
+
   @OneToOne(mappedBy = "user")
   Stream stream;
 
   public Avatar latestAvatar() {
-    if (avatars == null || avatars.isEmpty()) {
-      return null;
-    }
-
-    // Find the avatar with the latest createdAt timestamp
-    return avatars.stream()
-        .max(
-            (a1, a2) -> {
-              if (a1.getCreatedAt() == null && a2.getCreatedAt() == null) return 0;
-              if (a1.getCreatedAt() == null) return -1;
-              if (a2.getCreatedAt() == null) return 1;
-              return a1.getCreatedAt().compareTo(a2.getCreatedAt());
-            })
-        .orElse(null);
+    return currentAvatar;
   }
 }
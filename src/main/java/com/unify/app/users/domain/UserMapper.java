@@ -4,12 +4,8 @@ import com.unify.app.media.domain.StreamMapper;
 import com.unify.app.users.domain.models.UserDto;
 import com.unify.app.users.domain.models.UserWithStreamDto;
 import com.unify.app.users.domain.models.auth.CreateUserCmd;
-
-import java.util.Comparator;
-import java.util.Set;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
-import org.mapstruct.Named;
 import org.mapstruct.ReportingPolicy;
 
 @Mapper(
@@ -18,24 +14,13 @@ import org.mapstruct.ReportingPolicy;
     uses = {AvatarMapper.class, StreamMapper.class})
 public interface UserMapper {
 
-  @Mapping(source = "avatars", target = "avatar", qualifiedByName = "mapLatestAvatar")
+  @Mapping(source = "currentAvatar", target = "avatar")
   @Mapping(target = "password", ignore = true)
   UserDto toUserDTO(User user);
 
   User toUser(UserDto userDto);
 
   User toUser(CreateUserCmd cmd);
-  @Mapping(source = "avatars", target = "avatar", qualifiedByName = "mapLatestAvatar")
+  @Mapping(source = "currentAvatar", target = "avatar")
   UserWithStreamDto toWithStreamDto(User user);
-
-    @Named("mapLatestAvatar")
-    default Avatar mapLatestAvatar(Set<Avatar> avatars) {
-        if (avatars == null || avatars.isEmpty()) {
-            return null;
-        }
-
-        return avatars.stream()
-                .max(Comparator.comparing(Avatar::getCreatedAt))
-                .orElse(null);
-    }
-    }
+}
@@ -0,0 +1,75 @@
+package com.unify.app.users.domain;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.unify.app.users.domain.models.AvatarDto;
+import com.unify.app.users.domain.models.UserProfileDto;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Bulk lookup of {@link UserProfileDto}s for lists that show many users at once. Misses are loaded
+ * with a single query per batch and kept in an in-process cache; profile changes made through
+ * {@link UserService} evict the local entry, other nodes catch up when theirs expires.
+ */
+@Service
+public class UserProfileService {
+
+  private final UserRepository userRepository;
+  private final Cache<String, UserProfileDto> profiles;
+
+  public UserProfileService(
+      UserRepository userRepository,
+      @Value("${unify.users.profile-cache-spec:maximumSize=50000,expireAfterWrite=60s}")
+          String cacheSpec) {
+    this.userRepository = userRepository;
+    this.profiles = Caffeine.from(cacheSpec).build();
+  }
+
+  /** Profiles of the given users keyed by ID; unknown IDs are left out. */
+  public Map<String, UserProfileDto> findByIds(Collection<String> ids) {
+    Set<String> wanted = ids.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+    if (wanted.isEmpty()) {
+      return Map.of();
+    }
+    return profiles.getAll(wanted, this::load);
+  }
+
+  public UserProfileDto findById(String id) {
+    return id != null ? findByIds(Set.of(id)).get(id) : null;
+  }
+
+  void evict(String id) {
+    if (id != null) {
+      profiles.invalidate(id);
+    }
+  }
+
+  private Map<String, UserProfileDto> load(Set<? extends String> ids) {
+    Map<String, UserProfileDto> loaded = new HashMap<>();
+    for (Object[] row : userRepository.findProfileSummaryRowsByIds(ids)) {
+      String id = (String) row[0];
+      loaded.put(
+          id,
+          new UserProfileDto(
+              id,
+              (String) row[1],
+              fullName((String) row[2], (String) row[3]),
+              row[4] != null
+                  ? new AvatarDto((String) row[4], (String) row[5], (LocalDateTime) row[6])
+                  : null));
+    }
+    return loaded;
+  }
+
+  private static String fullName(String firstName, String lastName) {
+    return ((firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "")).trim();
+  }
+}
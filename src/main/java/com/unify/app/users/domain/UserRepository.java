@@ -3,6 +3,7 @@ package com.unify.app.users.domain;
 import com.unify.app.users.domain.models.UserReportCountDto;
 import jakarta.transaction.Transactional;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
@@ -23,6 +24,29 @@ interface UserRepository extends JpaRepository<User, String> {
 
   boolean existsByUsername(String username);
 
+  // Scalar columns only, so none of the EAGER associations are loaded for batch lookups
+  @Query(
+      """
+                        SELECT u.id, u.firstName, u.lastName, u.username, u.phone, u.email,
+                               u.gender, u.birthDay, u.location, u.education, u.workAt,
+                               u.biography, u.status, u.reportApprovalCount,
+                               a.id, a.url, a.createdAt
+                        FROM User u
+                        LEFT JOIN u.currentAvatar a
+                        WHERE u.id IN :ids
+                        """)
+  List<Object[]> findProfileRowsByIds(@Param("ids") Collection<String> ids);
+
+  // Columns of UserProfileDto only, for lists that show many users at once
+  @Query(
+      """
+                        SELECT u.id, u.username, u.firstName, u.lastName, a.id, a.url, a.createdAt
+                        FROM User u
+                        LEFT JOIN u.currentAvatar a
+                        WHERE u.id IN :ids
+                        """)
+  List<Object[]> findProfileSummaryRowsByIds(@Param("ids") Collection<? extends String> ids);
+
   // == Password Update ==
   @Modifying
   @Transactional
@@ -4,9 +4,12 @@ import com.unify.app.users.domain.models.*;
 import com.unify.app.users.domain.models.auth.CreateUserCmd;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
@@ -31,6 +34,7 @@ public class UserService {
   private final PasswordEncoder passwordEncoder;
   private final AvatarMapper avatarMapper;
   private final AvatarRepository avatarRepository;
+  private final UserProfileService userProfileService;
 
   @Value("${var.avatar}")
   private String avatarUrl;
@@ -86,10 +90,7 @@ public class UserService {
     avatar.setUser(savedUser);
     avatar = avatarRepository.save(avatar);
 
-    // Set avatar to user using a mutable set to avoid Hibernate issues
-    Set<Avatar> avatars = new HashSet<>();
-    avatars.add(avatar);
-    savedUser.setAvatars(avatars);
+    savedUser.setCurrentAvatar(avatar);
     savedUser = userRepository.save(savedUser);
 
     // streamService.createInitStream(user.getUsername(), user);
@@ -114,7 +115,7 @@ public class UserService {
 
   // @PreAuthorize("hasRole('ADMIN')")
 
-  @Cacheable(value = "user", key = "#id")
+  @Cacheable(value = "user", key = "#id", sync = true)
   public UserDto findById(String id) {
     return userMapper.toUserDTO(
         userRepository
@@ -222,17 +223,13 @@ public class UserService {
       Avatar newAvatar = avatarMapper.toAvatar(avatarDto);
       newAvatar.setUser(existingUser);
 
-      // Save the new avatar
+      // Save the new avatar and make it the current one
       newAvatar = avatarRepository.save(newAvatar);
-
-      // Add to existing user's avatars
-      if (existingUser.getAvatars() == null) {
-        existingUser.setAvatars(new HashSet<>());
-      }
-      existingUser.getAvatars().add(newAvatar);
+      existingUser.setCurrentAvatar(newAvatar);
     }
 
     User updatedUser = userRepository.save(existingUser);
+    userProfileService.evict(updatedUser.getId());
 
     return userMapper.toUserDTO(updatedUser);
   }
@@ -302,16 +299,12 @@ public class UserService {
         Avatar newAvatar = Avatar.builder().url(avatarDto.url()).user(existingUser).build();
 
         Avatar savedAvatar = avatarRepository.save(newAvatar);
-
-        // Add to user's avatar collection
-        if (existingUser.getAvatars() == null) {
-          existingUser.setAvatars(new HashSet<>());
-        }
-        existingUser.getAvatars().add(savedAvatar);
+        existingUser.setCurrentAvatar(savedAvatar);
       }
     }
 
     User updatedUser = userRepository.save(existingUser);
+    userProfileService.evict(updatedUser.getId());
     return userMapper.toUserDTO(updatedUser);
   }
 
@@ -319,6 +312,54 @@ public class UserService {
   @CacheEvict(value = "user", key = "#userId")
   public void clearUserCache(String userId) {
     // This method is used to manually clear user cache
+    userProfileService.evict(userId);
+  }
+
+  /**
+   * Loads a batch of users with their current avatar in one query, without initializing any of the
+   * user's associations. Roles are not included.
+   */
+  public Map<String, UserDto> findProfilesByIds(Collection<String> ids) {
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
+
+    Map<String, UserDto> profiles = new HashMap<>();
+    for (Object[] row : userRepository.findProfileRowsByIds(ids)) {
+      String id = (String) row[0];
+      profiles.put(
+          id,
+          new UserDto(
+              id,
+              (String) row[1],
+              (String) row[2],
+              (String) row[3],
+              (String) row[4],
+              (String) row[5],
+              null,
+              (Boolean) row[6],
+              (LocalDate) row[7],
+              (String) row[8],
+              (String) row[9],
+              (String) row[10],
+              (String) row[11],
+              (Integer) row[12],
+              (Integer) row[13],
+              null,
+              null,
+              null,
+              row[14] != null
+                  ? new AvatarDto((String) row[14], (String) row[15], (LocalDateTime) row[16])
+                  : null));
+    }
+    return profiles;
+  }
+
+  // Avatar history of a user, newest first
+  public Page<AvatarDto> getAvatarHistory(String userId, int page, int size) {
+    return avatarRepository
+        .findByUserIdOrderByCreatedAtDesc(userId, PageRequest.of(page, size))
+        .map(avatarMapper::toAvatarDTO);
   }
 
   // Get the latest avatar for a user from database
@@ -373,13 +414,6 @@ public class UserService {
             .findByEmail(name)
             .orElseThrow(() -> new UserNotFoundException("User not found !"));
 
-    // Ensure we have the latest avatar
-    Avatar latestAvatar = getLatestAvatar(user.getId());
-    if (latestAvatar != null) {
-      // Update the user's avatar set to only contain the latest avatar
-      user.setAvatars(Set.of(latestAvatar));
-    }
-
     return userMapper.toUserDTO(user);
   }
 
@@ -535,8 +569,8 @@ public class UserService {
   }
 
   public UserWithStreamDto getUserWithStreamByUserName(String username) {
-      User user = this.findUserByUsername(username);
-      return  userMapper.toWithStreamDto(user);
+    User user = this.findUserByUsername(username);
+    return userMapper.toWithStreamDto(user);
   }
 
   private String encryptPassword(String password) {
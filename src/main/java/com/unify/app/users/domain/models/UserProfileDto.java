@@ -0,0 +1,9 @@
+package com.unify.app.users.domain.models;
+
+/** Just enough of a user to render them next to a message, comment or notification. */
+public record UserProfileDto(String id, String username, String fullName, AvatarDto avatar) {
+
+  public String avatarUrl() {
+    return avatar != null ? avatar.url() : null;
+  }
+}
@@ -41,6 +41,14 @@ class UserController {
     return userService.findById(id);
   }
 
+  @GetMapping("/{id}/avatars")
+  Page<AvatarDto> getAvatarHistory(
+      @PathVariable String id,
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "12") int size) {
+    return userService.getAvatarHistory(id, page, size);
+  }
+
   @GetMapping("/suggestions")
   ResponseEntity<List<UserDto>> getSuggestedUsers(@RequestParam String currentUserId) {
     List<UserDto> users = userService.getSuggestedUsers(currentUserId);
@@ -180,8 +188,7 @@ class UserController {
   }
 
   @GetMapping("/user-stream/{username}")
-    ResponseEntity<UserWithStreamDto> getUserWithStream(@PathVariable String username) {
-      return  ResponseEntity.ok(userService.getUserWithStreamByUserName(username));
+  ResponseEntity<UserWithStreamDto> getUserWithStream(@PathVariable String username) {
+    return ResponseEntity.ok(userService.getUserWithStreamByUserName(username));
   }
-
 }
@@ -0,0 +1,129 @@
+package com.unify.app.ws;
+
+import jakarta.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+/**
+ * Replicates broker sends across backend nodes. Every frame the application sends to a {@code
+ * /topic}, {@code /queue} or {@code /user} destination on one node is published on {@link #CHANNEL}
+ * and handed to the local simple broker of every other node, so it reaches subscribers wherever
+ * they are connected. Clients subscribe to literal {@code /user/{id}/...} destinations, so no user
+ * registry is needed for this to work across nodes.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "unify.websocket.cluster-bridge.enabled", havingValue = "true")
+public class RedisBrokerBridge implements ChannelInterceptor, MessageListener {
+
+  public static final String CHANNEL = "unify:ws:broker";
+  // Set on frames received from another node so they are not published again
+  static final String REMOTE_HEADER = "unifyRemote";
+
+  private static final List<String> PREFIXES = List.of("/topic", "/queue", "/user");
+
+  private final String nodeId = UUID.randomUUID().toString();
+  private final byte[] channel = CHANNEL.getBytes(StandardCharsets.UTF_8);
+  private final StringRedisTemplate redisTemplate;
+  private final MessageChannel brokerChannel;
+  private final RedisMessageListenerContainer listenerContainer;
+
+  public RedisBrokerBridge(
+      StringRedisTemplate redisTemplate,
+      @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel,
+      RedisMessageListenerContainer listenerContainer) {
+    this.redisTemplate = redisTemplate;
+    this.brokerChannel = brokerChannel;
+    this.listenerContainer = listenerContainer;
+  }
+
+  @PostConstruct
+  void subscribe() {
+    listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+  }
+
+  @Override
+  public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+    String destination = accessor.getDestination();
+    if (accessor.getMessageType() == SimpMessageType.MESSAGE
+        && destination != null
+        && PREFIXES.stream().anyMatch(destination::startsWith)
+        && accessor.getHeader(REMOTE_HEADER) == null
+        && message.getPayload() instanceof byte[] payload) {
+      publish(destination, accessor.getContentType(), payload);
+    }
+    return message;
+  }
+
+  private void publish(String destination, MimeType contentType, byte[] payload) {
+    try {
+      byte[] frame = encode(destination, contentType, payload);
+      redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, frame));
+    } catch (Exception e) {
+      // Local subscribers still get the frame
+      log.warn("Failed to replicate frame for {}: {}", destination, e.getMessage());
+    }
+  }
+
+  @Override
+  public void onMessage(
+      @NonNull org.springframework.data.redis.connection.Message message, byte[] pattern) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message.getBody()))) {
+      if (nodeId.equals(in.readUTF())) {
+        return;
+      }
+      String destination = in.readUTF();
+      String contentType = in.readUTF();
+      byte[] payload = in.readAllBytes();
+
+      SimpMessageHeaderAccessor accessor =
+          SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+      accessor.setDestination(destination);
+      if (!contentType.isEmpty()) {
+        accessor.setContentType(MimeType.valueOf(contentType));
+      }
+      accessor.setHeader(REMOTE_HEADER, true);
+      brokerChannel.send(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+    } catch (IOException | RuntimeException e) {
+      log.warn("Dropping malformed replicated frame: {}", e.getMessage());
+    }
+  }
+
+  // origin node, destination, content type, then the payload as is
+  private byte[] encode(String destination, MimeType contentType, byte[] payload)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 128);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeUTF(nodeId);
+      out.writeUTF(destination);
+      out.writeUTF(contentType != null ? contentType.toString() : "");
+      out.write(payload);
+    }
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,200 @@
+package com.unify.app.ws;
+
+import com.unify.app.messages.domain.GroupThreadService;
+import com.unify.app.messages.events.ThreadMembershipChangedEvent;
+import com.unify.app.users.domain.UserService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+/**
+ * Lets a session subscribe to a group thread's topics ({@code /topic/threads.{id}} and its {@code
+ * .reads} and {@code .typing} topics) only when its user is a member of the thread. Thread IDs are
+ * ObjectIds and easy to guess, so the topic name alone protects nothing. Pattern subscriptions on
+ * {@code /topic} are refused as well, since the broker would match them against every thread.
+ *
+ * <p>The handshake stores the user's email; their ID, which the member lists hold, is looked up on
+ * the first thread subscription or group message and kept with the session.
+ *
+ * <p>Accepted thread subscriptions are remembered per thread. When a thread's members change, on
+ * this node or another, those of sessions whose user is no longer a member are removed from the
+ * broker, so a removed member stops receiving the thread's messages, reads and typing.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ThreadSubscriptionGuard implements ChannelInterceptor {
+
+  static final String USER_ID_ATTRIBUTE = "unify.ws.user-id";
+
+  private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+  private final GroupThreadService groupThreadService;
+  private final UserService userService;
+  private final ObjectProvider<SimpleBrokerMessageHandler> broker;
+
+  // Thread ID -> its subscriptions on this node, keyed by session and subscription ID
+  private final Map<String, Map<String, Subscription>> subscriptionsByThread =
+      new ConcurrentHashMap<>();
+  // Session ID -> subscription ID -> thread ID, to forget them on UNSUBSCRIBE and DISCONNECT
+  private final Map<String, Map<String, String>> threadsBySession = new ConcurrentHashMap<>();
+
+  @Override
+  public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+    SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+    String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+    if (type == SimpMessageType.UNSUBSCRIBE) {
+      forget(sessionId, SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders()));
+      return message;
+    }
+    if (type == SimpMessageType.DISCONNECT) {
+      forgetSession(sessionId);
+      return message;
+    }
+    if (type != SimpMessageType.SUBSCRIBE) {
+      return message;
+    }
+    String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+    if (destination == null || !destination.startsWith("/topic")) {
+      return message;
+    }
+    if (PATH_MATCHER.isPattern(destination)) {
+      throw new AccessDeniedException("Pattern subscriptions are not allowed on " + destination);
+    }
+    if (!destination.startsWith(GroupThreadService.TOPIC_PREFIX)) {
+      return message;
+    }
+
+    String rest = destination.substring(GroupThreadService.TOPIC_PREFIX.length());
+    int end = rest.indexOf('.');
+    String threadId = end < 0 ? rest : rest.substring(0, end);
+    String userId = userIdOf(SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders()));
+    if (!groupThreadService.isMember(threadId, userId)) {
+      log.warn("Refusing subscription of user {} to {}", userId, destination);
+      throw new AccessDeniedException("Not a member of thread " + threadId);
+    }
+    String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+    if (sessionId != null && subscriptionId != null) {
+      remember(new Subscription(sessionId, subscriptionId, userId, threadId, destination));
+    }
+    return message;
+  }
+
+  /** Revokes the thread subscriptions of sessions whose user has left or been removed. */
+  @EventListener
+  public void onMembershipChanged(ThreadMembershipChangedEvent event) {
+    Map<String, Subscription> subscriptions = subscriptionsByThread.get(event.threadId());
+    if (subscriptions == null) {
+      return;
+    }
+    for (Subscription subscription : subscriptions.values()) {
+      if (!groupThreadService.isMember(subscription.threadId(), subscription.userId())) {
+        forget(subscription.sessionId(), subscription.subscriptionId());
+        unsubscribe(subscription);
+      }
+    }
+  }
+
+  /**
+   * The ID of the user a STOMP session belongs to, resolved from the email stored at the handshake,
+   * or null when the session has none.
+   */
+  public String userIdOf(Map<String, Object> attributes) {
+    if (attributes == null) {
+      return null;
+    }
+    Object userId = attributes.get(USER_ID_ATTRIBUTE);
+    if (userId != null) {
+      return userId.toString();
+    }
+    Object email = attributes.get(WebSocketConnectionManager.USER_ATTRIBUTE);
+    if (email == null) {
+      return null;
+    }
+    try {
+      String id = userService.findByEmail(email.toString()).getId();
+      attributes.put(USER_ID_ATTRIBUTE, id);
+      return id;
+    } catch (RuntimeException e) {
+      log.debug("No user for WebSocket session of {}: {}", email, e.getMessage());
+      return null;
+    }
+  }
+
+  private void remember(Subscription subscription) {
+    subscriptionsByThread
+        .computeIfAbsent(subscription.threadId(), k -> new ConcurrentHashMap<>())
+        .put(subscription.key(), subscription);
+    threadsBySession
+        .computeIfAbsent(subscription.sessionId(), k -> new ConcurrentHashMap<>())
+        .put(subscription.subscriptionId(), subscription.threadId());
+  }
+
+  private void forget(String sessionId, String subscriptionId) {
+    if (sessionId == null || subscriptionId == null) {
+      return;
+    }
+    Map<String, String> threads = threadsBySession.get(sessionId);
+    String threadId = threads != null ? threads.remove(subscriptionId) : null;
+    if (threadId != null) {
+      threadsBySession.computeIfPresent(sessionId, (k, v) -> v.isEmpty() ? null : v);
+      removeFromThread(threadId, sessionId + ":" + subscriptionId);
+    }
+  }
+
+  private void forgetSession(String sessionId) {
+    Map<String, String> threads = sessionId != null ? threadsBySession.remove(sessionId) : null;
+    if (threads != null) {
+      threads.forEach(
+          (subscriptionId, threadId) ->
+              removeFromThread(threadId, sessionId + ":" + subscriptionId));
+    }
+  }
+
+  private void removeFromThread(String threadId, String key) {
+    subscriptionsByThread.computeIfPresent(
+        threadId,
+        (k, subscriptions) -> {
+          subscriptions.remove(key);
+          return subscriptions.isEmpty() ? null : subscriptions;
+        });
+  }
+
+  private void unsubscribe(Subscription subscription) {
+    SimpleBrokerMessageHandler handler = broker.getIfAvailable();
+    if (handler == null) {
+      return;
+    }
+    SimpMessageHeaderAccessor accessor =
+        SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+    accessor.setSessionId(subscription.sessionId());
+    accessor.setSubscriptionId(subscription.subscriptionId());
+    accessor.setDestination(subscription.destination());
+    handler.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    log.info(
+        "Revoked subscription of user {} to {}", subscription.userId(), subscription.destination());
+  }
+
+  private record Subscription(
+      String sessionId, String subscriptionId, String userId, String threadId, String destination) {
+
+    String key() {
+      return sessionId + ":" + subscriptionId;
+    }
+  }
+}
@@ -1,20 +1,32 @@
 package com.unify.app.ws;
 
 import com.unify.app.security.JwtService;
+import com.unify.app.security.VerifiedToken;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.lang.NonNull;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.springframework.web.socket.server.HandshakeInterceptor;
 
 @Slf4j
@@ -24,6 +36,19 @@ import org.springframework.web.socket.server.HandshakeInterceptor;
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
   private final JwtService jwtService;
+  private final ObjectProvider<RedisBrokerBridge> brokerBridge;
+  private final WebSocketPerformanceMonitor performanceMonitor;
+  private final WebSocketConnectionManager connectionManager;
+  private final ThreadSubscriptionGuard threadSubscriptionGuard;
+  private final WebSocketProperties properties;
+  private TaskScheduler heartbeatScheduler;
+
+  // Lazy: the broker's scheduler is defined by the configuration this class contributes to
+  @Autowired
+  void setHeartbeatScheduler(
+      @Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler heartbeatScheduler) {
+    this.heartbeatScheduler = heartbeatScheduler;
+  }
 
   @Override
   public void registerStompEndpoints(StompEndpointRegistry registry) {
@@ -40,13 +65,75 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         .withSockJS()
         .setSuppressCors(false)
         .setSessionCookieNeeded(false);
+    registry.setPreserveReceiveOrder(properties.preserveOrder());
   }
 
   @Override
   public void configureMessageBroker(MessageBrokerRegistry registry) {
-    registry.enableSimpleBroker("/topic", "/queue", "/user");
+    // Without heartbeats a client that only listens would look idle to the connection manager
+    long heartbeat = properties.heartbeatMs();
+    registry
+        .enableSimpleBroker("/topic", "/queue", "/user")
+        .setHeartbeatValue(new long[] {heartbeat, heartbeat})
+        .setTaskScheduler(heartbeatScheduler);
     registry.setApplicationDestinationPrefixes("/app");
     registry.setUserDestinationPrefix("/user");
+    registry.setPreservePublishOrder(properties.preserveOrder());
+    // With more than one node, broker sends are replicated through Redis
+    brokerBridge.ifAvailable(bridge -> registry.configureBrokerChannel().interceptors(bridge));
+  }
+
+  @Override
+  public void configureClientInboundChannel(ChannelRegistration registration) {
+    configureChannel(registration, "inbound", properties.inbound());
+    registration.interceptors(
+        connectionManager, threadSubscriptionGuard, performanceMonitor.inbound());
+  }
+
+  @Override
+  public void configureClientOutboundChannel(ChannelRegistration registration) {
+    configureChannel(registration, "outbound", properties.outbound());
+    registration.interceptors(performanceMonitor.outbound());
+  }
+
+  @Override
+  public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+    WebSocketProperties.Transport transport = properties.transport();
+    registration
+        .setMessageSizeLimit(transport.messageSizeLimit())
+        .setSendBufferSizeLimit(transport.sendBufferSizeLimit())
+        .setSendTimeLimit(transport.sendTimeLimitMs())
+        .addDecoratorFactory(connectionManager);
+  }
+
+  @Bean
+  MeterBinder webSocketExecutorMetrics(
+      @Qualifier("clientInboundChannelExecutor") Executor inboundExecutor,
+      @Qualifier("clientOutboundChannelExecutor") Executor outboundExecutor) {
+    return registry -> {
+      performanceMonitor.monitorExecutor("inbound", inboundExecutor);
+      performanceMonitor.monitorExecutor("outbound", outboundExecutor);
+    };
+  }
+
+  // Slow handlers (Mongo, Redis) must not hold up other sessions, so both channels get sized pools,
+  // or a virtual thread per message where the JVM supports it
+  private void configureChannel(
+      ChannelRegistration registration, String name, WebSocketProperties.Pool pool) {
+    if (properties.virtualThreads()) {
+      try {
+        registration.executor(new VirtualThreadTaskExecutor("ws-" + name + "-"));
+        return;
+      } catch (UnsupportedOperationException e) {
+        log.warn("Virtual threads are not available, using a pool for the {} channel", name);
+      }
+    }
+    registration
+        .taskExecutor()
+        .corePoolSize(pool.corePoolSize())
+        .maxPoolSize(pool.maxPoolSize())
+        .queueCapacity(pool.queueCapacity())
+        .keepAliveSeconds(pool.keepAliveSeconds());
   }
 
   private class AuthHandshakeInterceptor implements HandshakeInterceptor {
@@ -58,13 +145,15 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         @NonNull WebSocketHandler wsHandler,
         @NonNull Map<String, Object> attributes) {
 
-      String token = extractToken(request);
-      if (token == null || !jwtService.validToken(token)) {
+      // Verified once per token; SockJS fallbacks and reconnects hit the cache
+      VerifiedToken verified = jwtService.verify(extractToken(request)).orElse(null);
+      if (verified == null) {
         log.warn("WebSocket handshake rejected. Invalid or missing token.");
         response.setStatusCode(HttpStatus.UNAUTHORIZED);
         return false;
       }
 
+      attributes.put(WebSocketConnectionManager.USER_ATTRIBUTE, verified.subject());
       return true;
     }
 
@@ -1,202 +1,370 @@
-// package com.unify.app.ws;
-//
-// import java.util.Map;
-// import java.util.concurrent.ConcurrentHashMap;
-// import java.util.concurrent.atomic.AtomicInteger;
-// import lombok.extern.slf4j.Slf4j;
-// import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
-// import org.springframework.stereotype.Component;
-// import org.springframework.web.socket.messaging.SessionConnectedEvent;
-// import org.springframework.web.socket.messaging.SessionDisconnectEvent;
-// import org.springframework.web.socket.messaging.SessionSubscribeEvent;
-// import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
-//
-// @Slf4j
-// @Component
-// public class WebSocketConnectionManager {
-//
-//  private final Map<String, UserConnectionInfo> userConnections = new ConcurrentHashMap<>();
-//  private final AtomicInteger totalConnections = new AtomicInteger(0);
-//
-//  private static final int MAX_TOTAL_CONNECTIONS = 1000;
-//  private static final int MAX_CONNECTIONS_PER_USER = 5;
-//  private static final long CONNECTION_TIMEOUT_MS = 600000;
-//
-//  public static class UserConnectionInfo {
-//    private final String userId;
-//    private final long connectedAt;
-//    private final String sessionId;
-//    private int subscriptionCount;
-//
-//    public UserConnectionInfo(String userId, String sessionId) {
-//      this.userId = userId;
-//      this.sessionId = sessionId;
-//      this.connectedAt = System.currentTimeMillis();
-//      this.subscriptionCount = 0;
-//    }
-//
-//    public boolean isExpired() {
-//      return System.currentTimeMillis() - connectedAt > CONNECTION_TIMEOUT_MS;
-//    }
-//
-//    public void incrementSubscriptions() {
-//      subscriptionCount++;
-//    }
-//
-//    public void decrementSubscriptions() {
-//      if (subscriptionCount > 0) {
-//        subscriptionCount--;
-//      }
-//    }
-//
-//    public String getUserId() {
-//      return userId;
-//    }
-//
-//    public long getConnectedAt() {
-//      return connectedAt;
-//    }
-//
-//    public String getSessionId() {
-//      return sessionId;
-//    }
-//
-//    public int getSubscriptionCount() {
-//      return subscriptionCount;
-//    }
-//  }
-//
-//  public boolean canAcceptConnection(String userId, String sessionId) {
-//    if (totalConnections.get() >= MAX_TOTAL_CONNECTIONS) {
-//      log.warn("Total connection limit reached: {}", MAX_TOTAL_CONNECTIONS);
-//      return false;
-//    }
-//
-//    UserConnectionInfo existingInfo = userConnections.get(userId);
-//    if (existingInfo != null) {
-//      if (existingInfo.getSubscriptionCount() >= MAX_CONNECTIONS_PER_USER) {
-//        log.warn("User {} connection limit reached: {}", userId, MAX_CONNECTIONS_PER_USER);
-//        return false;
-//      }
-//    }
-//
-//    return true;
-//  }
-//
-//  public void onSessionConnected(SessionConnectedEvent event) {
-//    try {
-//      StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
-//      String sessionId = accessor.getSessionId();
-//      String userId = accessor.getUser() != null ? accessor.getUser().getName() : "anonymous";
-//
-//      if (canAcceptConnection(userId, sessionId)) {
-//        UserConnectionInfo info = new UserConnectionInfo(userId, sessionId);
-//        userConnections.put(userId, info);
-//        totalConnections.incrementAndGet();
-//      } else {
-//        log.warn("Connection rejected for user: {}, session: {}", userId, sessionId);
-//      }
-//    } catch (Exception e) {
-//      log.error("Error handling session connected event: {}", e.getMessage());
-//    }
-//  }
-//
-//  public void onSessionDisconnect(SessionDisconnectEvent event) {
-//    try {
-//      StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
-//      String sessionId = accessor.getSessionId();
-//
-//      userConnections
-//          .entrySet()
-//          .removeIf(
-//              entry -> {
-//                if (entry.getValue().getSessionId().equals(sessionId)) {
-//                  totalConnections.decrementAndGet();
-//                  return true;
-//                }
-//                return false;
-//              });
-//    } catch (Exception e) {
-//      log.error("Error handling session disconnect event: {}", e.getMessage());
-//    }
-//  }
-//
-//  public void onSessionSubscribe(SessionSubscribeEvent event) {
-//    try {
-//      StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
-//      String sessionId = accessor.getSessionId();
-//
-//      userConnections.values().stream()
-//          .filter(info -> info.getSessionId().equals(sessionId))
-//          .findFirst()
-//          .ifPresent(UserConnectionInfo::incrementSubscriptions);
-//
-//    } catch (Exception e) {
-//      log.error("Error handling session subscribe event: {}", e.getMessage());
-//    }
-//  }
-//
-//  public void onSessionUnsubscribe(SessionUnsubscribeEvent event) {
-//    try {
-//      StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
-//      String sessionId = accessor.getSessionId();
-//
-//      userConnections.values().stream()
-//          .filter(info -> info.getSessionId().equals(sessionId))
-//          .findFirst()
-//          .ifPresent(UserConnectionInfo::decrementSubscriptions);
-//
-//    } catch (Exception e) {
-//      log.error("Error handling session unsubscribe event: {}", e.getMessage());
-//    }
-//  }
-//
-//  public void cleanupExpiredConnections() {
-//    try {
-//      int beforeSize = userConnections.size();
-//      int beforeTotal = totalConnections.get();
-//
-//      userConnections
-//          .entrySet()
-//          .removeIf(
-//              entry -> {
-//                if (entry.getValue().isExpired()) {
-//                  totalConnections.decrementAndGet();
-//                  return true;
-//                }
-//                return false;
-//              });
-//
-//      int afterSize = userConnections.size();
-//      int afterTotal = totalConnections.get();
-//
-//      if (beforeSize != afterSize || beforeTotal != afterTotal) {
-//        log.info(
-//            "Cleaned up expired connections: users {}->{}, total {}->{}",
-//            beforeSize,
-//            afterSize,
-//            beforeTotal,
-//            afterTotal);
-//      }
-//
-//    } catch (Exception e) {
-//      log.error("Error cleaning up expired connections: {}", e.getMessage());
-//    }
-//  }
-//
-//  public int getTotalConnections() {
-//    return totalConnections.get();
-//  }
-//
-//  public int getUserConnectionCount() {
-//    return userConnections.size();
-//  }
-//
-//  public Map<String, UserConnectionInfo> getUserConnections() {
-//    return new ConcurrentHashMap<>(userConnections);
-//  }
-//
-//  public boolean isHealthy() {
-//    return totalConnections.get() <= MAX_TOTAL_CONNECTIONS;
-//  }
-// }
+package com.unify.app.ws;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+/**
+ * Registry of the WebSocket sessions open on this node, indexed by session ID and by user, so a
+ * user's tabs each have their own entry and no lookup needs to scan the registry.
+ *
+ * <p>Sessions are registered by the transport decorator when they open and counted once their STOMP
+ * CONNECT is accepted. CONNECT is refused, and the session closed, when the node holds {@code
+ * max-sessions} or the user already has {@code max-sessions-per-user} sessions across the cluster.
+ * The per-user limit is kept in a Redis sorted set of session IDs per user, scored by expiry and
+ * refreshed by each node's sweep, so slots held by a node that died free up on their own. The sweep
+ * also closes sessions that have sent nothing, heartbeats included, for {@code idle-timeout-ms}.
+ * The broker asks clients for heartbeats well within that; a client that declines them in its
+ * CONNECT may only listen and is left to the transport's send time limit instead.
+ */
+@Slf4j
+@Component
+public class WebSocketConnectionManager
+    implements ChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+  // Handshake attribute holding the authenticated user the session belongs to
+  static final String USER_ATTRIBUTE = "unify.ws.user";
+  static final String USER_SESSIONS_KEY_PREFIX = "unify:ws:sessions:";
+  // Node ID -> "sessions|expiresAt" for the cluster-wide count
+  static final String NODES_KEY = "unify:ws:nodes";
+
+  private static final CloseStatus LIMIT_REACHED =
+      CloseStatus.POLICY_VIOLATION.withReason("Session limit reached");
+  private static final CloseStatus IDLE = CloseStatus.SESSION_NOT_RELIABLE.withReason("Idle");
+
+  // Drops slots past their expiry, then claims one for the session unless the user is at the limit
+  private static final RedisScript<Long> CLAIM =
+      new DefaultRedisScript<>(
+          """
+          redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[1])
+          if not redis.call('ZSCORE', KEYS[1], ARGV[3])
+              and redis.call('ZCARD', KEYS[1]) >= tonumber(ARGV[4]) then
+            return 0
+          end
+          redis.call('ZADD', KEYS[1], ARGV[2], ARGV[3])
+          redis.call('PEXPIRE', KEYS[1], ARGV[5])
+          return 1
+          """,
+          Long.class);
+
+  private final StringRedisTemplate redisTemplate;
+  private final int maxSessions;
+  private final int maxSessionsPerUser;
+  private final long idleTimeoutMillis;
+  private final long slotTtlMillis;
+  private final String nodeId = UUID.randomUUID().toString();
+
+  private final Map<String, SessionEntry> sessions = new ConcurrentHashMap<>();
+  private final Map<String, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+  // Sessions whose CONNECT was accepted
+  private final AtomicInteger connected = new AtomicInteger();
+
+  public WebSocketConnectionManager(
+      StringRedisTemplate redisTemplate,
+      MeterRegistry meterRegistry,
+      @Value("${management.websocket.max-sessions:1000}") int maxSessions,
+      @Value("${management.websocket.max-sessions-per-user:5}") int maxSessionsPerUser,
+      @Value("${unify.websocket.sessions.idle-timeout-ms:120000}") long idleTimeoutMillis,
+      @Value("${unify.websocket.sessions.sweep-interval-ms:30000}") long sweepIntervalMillis) {
+    this.redisTemplate = redisTemplate;
+    this.maxSessions = maxSessions;
+    this.maxSessionsPerUser = maxSessionsPerUser;
+    this.idleTimeoutMillis = idleTimeoutMillis;
+    // Outlives a couple of missed sweeps
+    this.slotTtlMillis = 3 * sweepIntervalMillis;
+
+    Gauge.builder("unify.ws.sessions", connected, AtomicInteger::get).register(meterRegistry);
+    Gauge.builder("unify.ws.users", sessionsByUser, Map::size).register(meterRegistry);
+  }
+
+  @Override
+  @NonNull
+  public WebSocketHandler decorate(@NonNull WebSocketHandler handler) {
+    return new WebSocketHandlerDecorator(handler) {
+      @Override
+      public void afterConnectionEstablished(@NonNull WebSocketSession session) throws Exception {
+        register(session);
+        super.afterConnectionEstablished(session);
+      }
+
+      @Override
+      public void handleMessage(
+          @NonNull WebSocketSession session, @NonNull WebSocketMessage<?> message)
+          throws Exception {
+        touch(session.getId());
+        super.handleMessage(session, message);
+      }
+
+      @Override
+      public void afterConnectionClosed(
+          @NonNull WebSocketSession session, @NonNull CloseStatus closeStatus) throws Exception {
+        try {
+          super.afterConnectionClosed(session, closeStatus);
+        } finally {
+          unregister(session.getId());
+        }
+      }
+    };
+  }
+
+  /** Lets CONNECT through only while the node and the user are under their session limits. */
+  @Override
+  public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+    if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.CONNECT) {
+      return message;
+    }
+    String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+    if (sessionId == null) {
+      return message;
+    }
+    SessionEntry entry = sessions.get(sessionId);
+    if (entry != null) {
+      // heart-beat: cx,cy with cx the interval the client can send at, 0 for never
+      entry.sendsHeartbeats = StompHeaderAccessor.wrap(message).getHeartbeat()[0] > 0;
+    }
+    if (accept(sessionId)) {
+      return message;
+    }
+    close(sessionId, LIMIT_REACHED);
+    return null;
+  }
+
+  void register(WebSocketSession session) {
+    Object user = session.getAttributes().get(USER_ATTRIBUTE);
+    String userKey = user != null ? user.toString() : session.getId();
+    sessions.put(session.getId(), new SessionEntry(session, userKey));
+  }
+
+  void touch(String sessionId) {
+    SessionEntry entry = sessions.get(sessionId);
+    if (entry != null) {
+      entry.lastActiveAt = System.currentTimeMillis();
+    }
+  }
+
+  boolean accept(String sessionId) {
+    SessionEntry entry = sessions.get(sessionId);
+    if (entry == null) {
+      return false;
+    }
+    if (entry.connected.get()) {
+      return true;
+    }
+
+    if (connected.incrementAndGet() > maxSessions) {
+      connected.decrementAndGet();
+      log.warn("Refusing WebSocket session {}: node is at {} sessions", sessionId, maxSessions);
+      return false;
+    }
+
+    boolean[] added = {false};
+    sessionsByUser.compute(
+        entry.userKey,
+        (k, ids) -> {
+          Set<String> sessionIds = ids != null ? ids : ConcurrentHashMap.newKeySet();
+          if (sessionIds.size() < maxSessionsPerUser) {
+            added[0] = sessionIds.add(sessionId);
+          }
+          return sessionIds.isEmpty() ? null : sessionIds;
+        });
+    if (!added[0] || !claimSlot(entry.userKey, sessionId)) {
+      removeFromUser(entry.userKey, sessionId);
+      connected.decrementAndGet();
+      log.warn(
+          "Refusing WebSocket session {}: user is at {} sessions", sessionId, maxSessionsPerUser);
+      return false;
+    }
+
+    entry.connected.set(true);
+    // The session may have closed meanwhile, before it was counted
+    if (!sessions.containsKey(sessionId)) {
+      release(entry, sessionId);
+    }
+    return true;
+  }
+
+  void unregister(String sessionId) {
+    SessionEntry entry = sessions.remove(sessionId);
+    if (entry != null) {
+      release(entry, sessionId);
+    }
+  }
+
+  private void release(SessionEntry entry, String sessionId) {
+    if (!entry.connected.compareAndSet(true, false)) {
+      return;
+    }
+    connected.decrementAndGet();
+    removeFromUser(entry.userKey, sessionId);
+    try {
+      redisTemplate.opsForZSet().remove(USER_SESSIONS_KEY_PREFIX + entry.userKey, sessionId);
+    } catch (Exception e) {
+      // The slot expires after the TTL
+      log.debug("Failed to release session slot {}: {}", sessionId, e.getMessage());
+    }
+  }
+
+  private void removeFromUser(String userKey, String sessionId) {
+    sessionsByUser.computeIfPresent(
+        userKey,
+        (k, ids) -> {
+          ids.remove(sessionId);
+          return ids.isEmpty() ? null : ids;
+        });
+  }
+
+  // Fails open: without Redis the limit is only enforced per node
+  private boolean claimSlot(String userKey, String sessionId) {
+    long now = System.currentTimeMillis();
+    try {
+      Long claimed =
+          redisTemplate.execute(
+              CLAIM,
+              List.of(USER_SESSIONS_KEY_PREFIX + userKey),
+              Long.toString(now),
+              Long.toString(now + slotTtlMillis),
+              sessionId,
+              Integer.toString(maxSessionsPerUser),
+              Long.toString(slotTtlMillis));
+      return claimed == null || claimed == 1L;
+    } catch (Exception e) {
+      log.warn("Failed to claim session slot for {}: {}", sessionId, e.getMessage());
+      return true;
+    }
+  }
+
+  /**
+   * Closes idle sessions, then extends the Redis slots of the live ones and publishes this node's
+   * session count.
+   */
+  @Scheduled(fixedDelayString = "${unify.websocket.sessions.sweep-interval-ms:30000}")
+  public void sweep() {
+    long now = System.currentTimeMillis();
+    sessions.forEach(
+        (sessionId, entry) -> {
+          if (entry.sendsHeartbeats && now - entry.lastActiveAt > idleTimeoutMillis) {
+            close(sessionId, IDLE);
+          }
+        });
+
+    long expiresAt = now + slotTtlMillis;
+    try {
+      redisTemplate.executePipelined(
+          (RedisCallback<Object>)
+              connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                sessions.forEach(
+                    (sessionId, entry) -> {
+                      if (entry.connected.get()) {
+                        String key = USER_SESSIONS_KEY_PREFIX + entry.userKey;
+                        redis.zAdd(key, expiresAt, sessionId);
+                        redis.pExpire(key, slotTtlMillis);
+                      }
+                    });
+                redis.hSet(NODES_KEY, nodeId, connected.get() + "|" + expiresAt);
+                return null;
+              });
+    } catch (Exception e) {
+      log.warn("Failed to refresh WebSocket session slots: {}", e.getMessage());
+    }
+  }
+
+  private void close(String sessionId, CloseStatus status) {
+    SessionEntry entry = sessions.get(sessionId);
+    if (entry == null) {
+      return;
+    }
+    try {
+      entry.session.close(status);
+    } catch (IOException e) {
+      log.debug("Failed to close WebSocket session {}: {}", sessionId, e.getMessage());
+      unregister(sessionId);
+    }
+  }
+
+  /** Sessions connected to this node. */
+  public int getSessionCount() {
+    return connected.get();
+  }
+
+  /** Users with at least one session on this node. */
+  public int getUserCount() {
+    return sessionsByUser.size();
+  }
+
+  public int getSessionCount(String userKey) {
+    Set<String> ids = sessionsByUser.get(userKey);
+    return ids != null ? ids.size() : 0;
+  }
+
+  public int getMaxSessions() {
+    return maxSessions;
+  }
+
+  /**
+   * Sessions across the cluster as last published by each node, dropping nodes that stopped
+   * publishing. Null when Redis cannot be reached.
+   */
+  public Long getClusterSessionCount() {
+    try {
+      Map<Object, Object> nodes = redisTemplate.opsForHash().entries(NODES_KEY);
+      long now = System.currentTimeMillis();
+      long total = 0;
+      for (Map.Entry<Object, Object> node : nodes.entrySet()) {
+        String[] parts = node.getValue().toString().split("\\|", 2);
+        if (parts.length == 2 && Long.parseLong(parts[1]) > now) {
+          total += Long.parseLong(parts[0]);
+        } else {
+          redisTemplate.opsForHash().delete(NODES_KEY, node.getKey());
+        }
+      }
+      return total;
+    } catch (Exception e) {
+      log.debug("Failed to read the cluster session count: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  private static final class SessionEntry {
+    private final WebSocketSession session;
+    private final String userKey;
+    private volatile long lastActiveAt = System.currentTimeMillis();
+    // Until its CONNECT says otherwise, a session is expected to send something
+    private volatile boolean sendsHeartbeats = true;
+    private final AtomicBoolean connected = new AtomicBoolean();
+
+    SessionEntry(WebSocketSession session, String userKey) {
+      this.session = session;
+      this.userKey = userKey;
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.unify.app.ws;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/** Live session counts under {@code /actuator/health/websocket}. */
+@Component("websocketHealthIndicator")
+@RequiredArgsConstructor
+public class WebSocketHealthIndicator implements HealthIndicator {
+
+  private final WebSocketConnectionManager connectionManager;
+
+  @Override
+  public Health health() {
+    Health.Builder health =
+        Health.up()
+            .withDetail("sessions", connectionManager.getSessionCount())
+            .withDetail("users", connectionManager.getUserCount())
+            .withDetail("maxSessions", connectionManager.getMaxSessions());
+    Long clusterSessions = connectionManager.getClusterSessionCount();
+    if (clusterSessions != null) {
+      health.withDetail("clusterSessions", clusterSessions);
+    }
+    return health.build();
+  }
+}
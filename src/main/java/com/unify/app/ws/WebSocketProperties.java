@@ -0,0 +1,32 @@
+package com.unify.app.ws;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Threading and transport limits of the STOMP endpoint. With {@code virtualThreads} each inbound
+ * and outbound message runs on its own virtual thread instead of the pools (Java 21 and later);
+ * {@code preserveOrder} keeps a session's frames in the order they were sent either way. {@code
+ * heartbeatMs} is the STOMP heartbeat the broker sends and asks of clients; it has to stay well
+ * below the idle timeout of {@link WebSocketConnectionManager}.
+ */
+@ConfigurationProperties(prefix = "unify.websocket")
+public record WebSocketProperties(
+    @DefaultValue("false") boolean virtualThreads,
+    @DefaultValue("true") boolean preserveOrder,
+    @DefaultValue Pool inbound,
+    @DefaultValue Pool outbound,
+    @DefaultValue Transport transport,
+    @DefaultValue("25000") long heartbeatMs) {
+
+  public record Pool(
+      @DefaultValue("16") int corePoolSize,
+      @DefaultValue("64") int maxPoolSize,
+      @DefaultValue("2000") int queueCapacity,
+      @DefaultValue("60") int keepAliveSeconds) {}
+
+  public record Transport(
+      @DefaultValue("65536") int messageSizeLimit,
+      @DefaultValue("1048576") int sendBufferSizeLimit,
+      @DefaultValue("15000") int sendTimeLimitMs) {}
+}
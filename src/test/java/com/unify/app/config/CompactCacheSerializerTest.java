@@ -0,0 +1,165 @@
+package com.unify.app.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.unify.app.messages.domain.models.MessageDto;
+import com.unify.app.messages.domain.models.MessageType;
+import com.unify.app.posts.domain.models.MediaDto;
+import com.unify.app.posts.domain.models.MediaType;
+import com.unify.app.posts.domain.models.PostDto;
+import com.unify.app.posts.domain.models.PostFeedResponse;
+import com.unify.app.users.domain.models.UserDto;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+class CompactCacheSerializerTest {
+
+  private static final JavaType USER_TYPE =
+      TypeFactory.defaultInstance().constructType(UserDto.class);
+  private static final JavaType MESSAGES_TYPE =
+      TypeFactory.defaultInstance().constructCollectionType(List.class, MessageDto.class);
+
+  @Test
+  void serialize_ShouldRoundTripUserAndBeSmallerThanJson() {
+    // Arrange
+    CompactCacheSerializer serializer = new CompactCacheSerializer(USER_TYPE, 1, 1024);
+    UserDto user = createUserDto("user-1");
+
+    // Act
+    byte[] bytes = serializer.serialize(user);
+    Object result = serializer.deserialize(bytes);
+
+    // Assert
+    assertEquals(user, result);
+    byte[] json = jsonSerializer().serialize(user);
+    assertTrue(bytes.length < json.length, bytes.length + " >= " + json.length);
+  }
+
+  @Test
+  void serialize_ShouldDeflateLargeMessageLists() {
+    // Arrange
+    List<MessageDto> messages = createMessages(200);
+    CompactCacheSerializer compressed = new CompactCacheSerializer(MESSAGES_TYPE, 1, 1024);
+    CompactCacheSerializer uncompressed = new CompactCacheSerializer(MESSAGES_TYPE, 1, 0);
+
+    // Act
+    byte[] deflatedBytes = compressed.serialize(messages);
+    byte[] plainBytes = uncompressed.serialize(messages);
+
+    // Assert
+    assertEquals(messages, compressed.deserialize(deflatedBytes));
+    assertEquals(messages, uncompressed.deserialize(plainBytes));
+    assertEquals(1, deflatedBytes[2]);
+    assertEquals(0, plainBytes[2]);
+    assertTrue(deflatedBytes.length < plainBytes.length / 2);
+  }
+
+  @Test
+  void serialize_ShouldRoundTripFeedPage() {
+    // Arrange
+    JavaType feedType = TypeFactory.defaultInstance().constructType(PostFeedResponse.class);
+    CompactCacheSerializer serializer = new CompactCacheSerializer(feedType, 1, 1024);
+    PostDto post = new PostDto();
+    post.setId("post-1");
+    post.setUser(createUserDto("user-1"));
+    post.setPostedAt(LocalDateTime.of(2025, 1, 1, 12, 0));
+    post.setIsCommentVisible(true);
+    post.setMedia(Set.of(new MediaDto("m-1", "url-1", "image/png", 10L, MediaType.IMAGE)));
+    post.setLikeCount(3L);
+    PostFeedResponse page = new PostFeedResponse(List.of(post), true, 0, "cursor");
+
+    // Act
+    PostFeedResponse result = (PostFeedResponse) serializer.deserialize(serializer.serialize(page));
+
+    // Assert
+    assertEquals("cursor", result.nextCursor());
+    assertTrue(result.hasNextPage());
+    PostDto cached = result.posts().get(0);
+    assertEquals("post-1", cached.getId());
+    assertEquals(post.getUser(), cached.getUser());
+    assertEquals(post.getPostedAt(), cached.getPostedAt());
+    assertEquals(true, cached.getIsCommentVisible());
+    assertEquals(post.getMedia(), cached.getMedia());
+    assertEquals(3L, cached.getLikeCount());
+  }
+
+  @Test
+  void deserialize_ShouldTreatOtherVersionsAndFormatsAsMiss() {
+    // Arrange
+    UserDto user = createUserDto("user-1");
+    byte[] v1 = new CompactCacheSerializer(USER_TYPE, 1, 1024).serialize(user);
+    byte[] legacyJson = jsonSerializer().serialize(user);
+    CompactCacheSerializer v2 = new CompactCacheSerializer(USER_TYPE, 2, 1024);
+
+    // Act & Assert
+    assertNull(v2.deserialize(v1));
+    assertNull(v2.deserialize(legacyJson));
+    assertNull(v2.deserialize(null));
+  }
+
+  // Same shape as the default cache serializer, plus java.time support so UserDto can be written
+  private GenericJackson2JsonRedisSerializer jsonSerializer() {
+    ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    objectMapper.activateDefaultTyping(
+        BasicPolymorphicTypeValidator.builder().allowIfBaseType(Object.class).build(),
+        ObjectMapper.DefaultTyping.NON_FINAL,
+        JsonTypeInfo.As.PROPERTY);
+    return new GenericJackson2JsonRedisSerializer(objectMapper);
+  }
+
+  private List<MessageDto> createMessages(int count) {
+    List<MessageDto> messages = new ArrayList<>();
+    LocalDateTime start = LocalDateTime.of(2025, 1, 1, 12, 0);
+    for (int i = 0; i < count; i++) {
+      messages.add(
+          new MessageDto(
+              "message-" + i,
+              "user-1",
+              "user-2",
+              "Hello there, this is message number " + i,
+              start.plusSeconds(i),
+              List.of(),
+              MessageType.CHAT,
+              null,
+              null,
+              null));
+    }
+    return messages;
+  }
+
+  private UserDto createUserDto(String id) {
+    return new UserDto(
+        id,
+        "Test",
+        "User",
+        "testuser",
+        "0123456789",
+        "test@example.com",
+        null,
+        true,
+        LocalDate.of(2000, 1, 1),
+        "Ho Chi Minh City",
+        null,
+        null,
+        "Hello",
+        0,
+        0,
+        null,
+        null,
+        null,
+        null);
+  }
+}
@@ -0,0 +1,126 @@
+package com.unify.app.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class TwoLevelCacheManagerTest {
+
+  @Mock private RedisCacheManager redisCacheManager;
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private Cache remote;
+
+  private final LocalCacheProperties properties =
+      new LocalCacheProperties("maximumSize=100", Map.of());
+
+  // Two nodes sharing one Redis
+  private TwoLevelCacheManager nodeA;
+  private TwoLevelCacheManager nodeB;
+
+  @BeforeEach
+  void setUp() {
+    lenient().when(redisCacheManager.getCache("users")).thenReturn(remote);
+    nodeA = new TwoLevelCacheManager(redisCacheManager, redisTemplate, properties, null);
+    nodeB = new TwoLevelCacheManager(redisCacheManager, redisTemplate, properties, null);
+  }
+
+  @Test
+  void getCache_ShouldWrapTheRedisCacheOfTheSameName() {
+    // Act
+    Cache cache = nodeA.getCache("users");
+
+    // Assert
+    assertInstanceOf(TwoLevelCache.class, cache);
+    assertEquals("users", cache.getName());
+  }
+
+  @Test
+  void getCache_ShouldReturnNull_WithoutARedisCache() {
+    // Act & Assert
+    assertNull(nodeA.getCache("unknown"));
+  }
+
+  @Test
+  void onMessage_ShouldDropTheLocalEntry_ChangedOnAnotherNode() {
+    // Arrange: B has read the value into its local tier
+    when(remote.get("42"))
+        .thenReturn(new SimpleValueWrapper("alice"))
+        .thenReturn(new SimpleValueWrapper("alicia"));
+    Cache onA = nodeA.getCache("users");
+    Cache onB = nodeB.getCache("users");
+    onB.get("42");
+
+    // Act: A changes it and B receives the invalidation
+    onA.put("42", "alicia");
+    nodeB.onMessage(message(published(1)), null);
+
+    // Assert
+    assertEquals("alicia", onB.get("42").get());
+    verify(remote, times(2)).get("42");
+  }
+
+  @Test
+  void onMessage_ShouldIgnoreItsOwnInvalidations() {
+    // Arrange
+    Cache onA = nodeA.getCache("users");
+    onA.put("42", "alice");
+
+    // Act
+    nodeA.onMessage(message(published(1)), null);
+
+    // Assert: still served locally
+    assertEquals("alice", onA.get("42").get());
+    verify(remote, times(0)).get("42");
+  }
+
+  @Test
+  void onMessage_ShouldDropEverything_WhenAnotherNodeCleared() {
+    // Arrange
+    when(remote.get("1")).thenReturn(new SimpleValueWrapper("a"));
+    Cache onA = nodeA.getCache("users");
+    Cache onB = nodeB.getCache("users");
+    onB.get("1");
+
+    // Act
+    onA.clear();
+    nodeB.onMessage(message(published(1)), null);
+    onB.get("1");
+
+    // Assert
+    verify(remote, times(2)).get("1");
+  }
+
+  private String published(int count) {
+    ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+    verify(redisTemplate, times(count))
+        .convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), body.capture());
+    return body.getValue();
+  }
+
+  private static Message message(String body) {
+    Message message = mock(Message.class);
+    when(message.getBody()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+    return message;
+  }
+}
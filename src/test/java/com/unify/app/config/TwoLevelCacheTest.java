@@ -0,0 +1,146 @@
+package com.unify.app.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+@ExtendWith(MockitoExtension.class)
+class TwoLevelCacheTest {
+
+  @Mock private Cache remote;
+
+  private com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+  private final List<String> published = new ArrayList<>();
+  private TwoLevelCache cache;
+
+  @BeforeEach
+  void setUp() {
+    local = Caffeine.newBuilder().build();
+    cache =
+        new TwoLevelCache("users", local, remote, (name, key) -> published.add(name + "/" + key));
+  }
+
+  @Test
+  void get_ShouldServeLocalHits_WithoutRedis() {
+    // Arrange
+    local.put("42", "alice");
+
+    // Act
+    Cache.ValueWrapper value = cache.get(42);
+
+    // Assert
+    assertEquals("alice", value.get());
+    verify(remote, never()).get(any());
+  }
+
+  @Test
+  void get_ShouldFillTheLocalTier_FromRedis() {
+    // Arrange
+    when(remote.get(42)).thenReturn(new SimpleValueWrapper("alice"));
+
+    // Act
+    cache.get(42);
+    Cache.ValueWrapper second = cache.get(42);
+
+    // Assert
+    assertEquals("alice", second.get());
+    assertEquals("alice", local.getIfPresent("42"));
+    verify(remote, times(1)).get(42);
+  }
+
+  @Test
+  void get_ShouldNotCacheMisses_Locally() {
+    // Act
+    Cache.ValueWrapper value = cache.get(42);
+
+    // Assert
+    assertNull(value);
+    assertNull(local.getIfPresent("42"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void getWithLoader_ShouldLoadThroughRedisOnce() throws Exception {
+    // Arrange
+    when(remote.get(any(), any(Callable.class))).thenReturn("alice");
+
+    // Act
+    cache.get(42, () -> "ignored");
+    String value = cache.get(42, () -> "ignored");
+
+    // Assert
+    assertEquals("alice", value);
+    verify(remote, times(1)).get(any(), any(Callable.class));
+  }
+
+  @Test
+  void put_ShouldWriteThroughAndAnnounceTheKey() {
+    // Act
+    cache.put(42, "alice");
+
+    // Assert
+    verify(remote).put(42, "alice");
+    assertEquals("alice", local.getIfPresent("42"));
+    assertEquals(List.of("users/42"), published);
+  }
+
+  @Test
+  void evict_ShouldDropBothTiersAndAnnounceTheKey() {
+    // Arrange
+    local.put("42", "alice");
+
+    // Act
+    cache.evict(42);
+
+    // Assert
+    verify(remote).evict(42);
+    assertNull(local.getIfPresent("42"));
+    assertEquals(List.of("users/42"), published);
+  }
+
+  @Test
+  void clear_ShouldDropEverythingAndAnnounceTheWholeCache() {
+    // Arrange
+    local.put("1", "a");
+    local.put("2", "b");
+
+    // Act
+    cache.clear();
+
+    // Assert
+    verify(remote).clear();
+    assertEquals(0, local.estimatedSize());
+    assertEquals(List.of("users/null"), published);
+  }
+
+  @Test
+  void evictLocal_ShouldLeaveRedisAlone() {
+    // Arrange
+    local.put("1", "a");
+    local.put("2", "b");
+
+    // Act
+    cache.evictLocal("1");
+
+    // Assert
+    assertNull(local.getIfPresent("1"));
+    assertEquals("b", local.getIfPresent("2"));
+    verify(remote, never()).evict(any());
+  }
+}
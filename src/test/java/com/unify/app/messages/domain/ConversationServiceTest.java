@@ -0,0 +1,346 @@
+package com.unify.app.messages.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.result.UpdateResult;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationServiceTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+  @Mock private MongoTemplate mongoTemplate;
+  @Mock private ConversationRepository conversationRepository;
+  @Mock private MessageRepository messageRepository;
+
+  private ConversationService conversationService;
+
+  @BeforeEach
+  void setUp() {
+    conversationService =
+        new ConversationService(mongoTemplate, conversationRepository, messageRepository);
+  }
+
+  @Test
+  void recordMessage_ShouldUpsertPairSummaryAndCountUnreadForReceiver() {
+    // Arrange
+    Message message =
+        Message.builder()
+            .id("m-1")
+            .sender("bob")
+            .receiver("alice")
+            .content("hi")
+            .timestamp(NOW)
+            .build();
+
+    // Act
+    conversationService.recordMessage(message);
+
+    // Assert
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate).upsert(query.capture(), update.capture(), eq(Conversation.class));
+
+    assertEquals("alice:bob", query.getValue().getQueryObject().get("id"));
+    Document updateObject = update.getValue().getUpdateObject();
+    assertEquals(
+        List.of("alice", "bob"),
+        updateObject.get("$setOnInsert", Document.class).get("participants"));
+    assertEquals("hi", updateObject.get("$set", Document.class).get("lastMessage"));
+    assertEquals("bob", updateObject.get("$set", Document.class).get("lastMessageSender"));
+    assertEquals(1, updateObject.get("$inc", Document.class).get("unreadCounts.alice"));
+  }
+
+  @Test
+  void recordMessage_ShouldNotCountOwnNotes() {
+    // Arrange
+    Message message =
+        Message.builder().id("m-1").sender("bob").receiver("bob").timestamp(NOW).build();
+
+    // Act
+    conversationService.recordMessage(message);
+
+    // Assert
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(Conversation.class));
+    assertFalse(update.getValue().getUpdateObject().containsKey("$inc"));
+  }
+
+  @Test
+  void markRead_ShouldCountOnlyMessagesAfterWatermark() {
+    // Arrange
+    Conversation conversation =
+        Conversation.builder()
+            .id("alice:bob")
+            .participants(List.of("alice", "bob"))
+            .lastMessageId("m-3")
+            .lastMessageTime(NOW)
+            .build();
+    when(conversationRepository.findById("alice:bob")).thenReturn(Optional.of(conversation));
+    when(mongoTemplate.count(any(Query.class), eq(Message.class))).thenReturn(2L);
+    when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Conversation.class)))
+        .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+    // Act
+    Long unread = conversationService.markRead("alice", "bob", "m-1", NOW.minusMinutes(1));
+
+    // Assert
+    assertEquals(2L, unread);
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(Conversation.class));
+    assertEquals("m-3", query.getValue().getQueryObject().get("lastMessageId"));
+    assertEquals(
+        2L,
+        update.getValue().getUpdateObject().get("$set", Document.class).get("unreadCounts.alice"));
+  }
+
+  @Test
+  void markRead_ShouldIgnoreReceiptsBehindWatermark() {
+    // Arrange
+    Conversation conversation =
+        Conversation.builder()
+            .id("alice:bob")
+            .lastMessageTime(NOW)
+            .readWatermarks(Map.of("alice", new Conversation.ReadWatermark("m-3", NOW)))
+            .build();
+    when(conversationRepository.findById("alice:bob")).thenReturn(Optional.of(conversation));
+
+    // Act
+    Long unread = conversationService.markRead("alice", "bob", "m-1", NOW.minusMinutes(1));
+
+    // Assert
+    assertNull(unread);
+    verify(mongoTemplate, never())
+        .updateFirst(any(Query.class), any(Update.class), eq(Conversation.class));
+  }
+
+  @Test
+  void recordMessages_ShouldCountGroupMessageOnceAndKeepItReadForSender() {
+    // Arrange
+    Message message =
+        Message.builder()
+            .id("m-1")
+            .sender("bob")
+            .threadId("t-1")
+            .content("hi")
+            .timestamp(NOW)
+            .build();
+    BulkOperations bulk = mock(BulkOperations.class);
+    when(mongoTemplate.bulkOps(BulkMode.UNORDERED, Conversation.class)).thenReturn(bulk);
+
+    // Act
+    conversationService.recordMessages(List.of(message));
+
+    // Assert
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(bulk, times(2)).updateOne(any(Query.class), update.capture());
+    Document inc = update.getAllValues().get(0).getUpdateObject().get("$inc", Document.class);
+    assertEquals(Map.of("messageCount", 1, "readCounts.bob", 1), Map.copyOf(inc));
+    verify(bulk).execute();
+  }
+
+  @Test
+  void recordMessages_ShouldWriteOneCountUpdateAndOneLastMessageUpdatePerConversation() {
+    // Arrange
+    Message first =
+        Message.builder()
+            .id("m-1")
+            .sender("bob")
+            .receiver("alice")
+            .content("a")
+            .timestamp(NOW)
+            .build();
+    Message reply =
+        Message.builder()
+            .id("m-2")
+            .sender("alice")
+            .receiver("bob")
+            .content("b")
+            .timestamp(NOW.plusSeconds(1))
+            .build();
+    Message again =
+        Message.builder()
+            .id("m-3")
+            .sender("bob")
+            .receiver("alice")
+            .content("c")
+            .timestamp(NOW.plusSeconds(2))
+            .build();
+    BulkOperations bulk = mock(BulkOperations.class);
+    when(mongoTemplate.bulkOps(BulkMode.UNORDERED, Conversation.class)).thenReturn(bulk);
+
+    // Act
+    conversationService.recordMessages(List.of(first, reply, again));
+
+    // Assert: the counters move once per batch, whatever the summary's last message
+    ArgumentCaptor<Query> countQuery = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> counts = ArgumentCaptor.forClass(Update.class);
+    verify(bulk).upsert(countQuery.capture(), counts.capture());
+    Document countsObject = counts.getValue().getUpdateObject();
+    assertEquals(
+        Map.of("unreadCounts.alice", 2, "unreadCounts.bob", 1),
+        Map.copyOf(countsObject.get("$inc", Document.class)));
+    assertEquals("m-3", countsObject.get("$setOnInsert", Document.class).get("lastMessageId"));
+    assertEquals(
+        new Document("$nin", List.of("m-1", "m-2", "m-3")),
+        countQuery.getValue().getQueryObject().get("recordedMessageIds"));
+    assertFalse(countQuery.getValue().getQueryObject().containsKey("$or"));
+
+    // The last message only moves forward
+    ArgumentCaptor<Query> lastQuery = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> last = ArgumentCaptor.forClass(Update.class);
+    verify(bulk).updateOne(lastQuery.capture(), last.capture());
+    assertEquals(
+        "m-3", last.getValue().getUpdateObject().get("$set", Document.class).get("lastMessageId"));
+    assertFalse(last.getValue().getUpdateObject().containsKey("$inc"));
+    assertEquals(3, lastQuery.getValue().getQueryObject().get("$or", List.class).size());
+  }
+
+  @Test
+  void recordMessages_ShouldStillCountABatch_WhenItLandsAfterANewerOne() {
+    // Arrange: a summary whose last message is newer than the whole batch
+    Conversation summary =
+        Conversation.builder()
+            .id("alice:bob")
+            .participants(List.of("alice", "bob"))
+            .lastMessageId("m-9")
+            .lastMessageTime(NOW.plusMinutes(1))
+            .unreadCounts(new HashMap<>(Map.of("alice", 1L)))
+            .recordedMessageIds(new ArrayList<>(List.of("m-9")))
+            .build();
+    BulkOperations bulk = mock(BulkOperations.class);
+    when(mongoTemplate.bulkOps(BulkMode.UNORDERED, Conversation.class)).thenReturn(bulk);
+    Message older =
+        Message.builder()
+            .id("m-1")
+            .sender("bob")
+            .receiver("alice")
+            .content("earlier")
+            .timestamp(NOW)
+            .build();
+
+    // Act
+    conversationService.recordMessages(List.of(older));
+
+    // Assert
+    ArgumentCaptor<Query> countQuery = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> counts = ArgumentCaptor.forClass(Update.class);
+    verify(bulk).upsert(countQuery.capture(), counts.capture());
+    ArgumentCaptor<Query> lastQuery = ArgumentCaptor.forClass(Query.class);
+    verify(bulk).updateOne(lastQuery.capture(), any(Update.class));
+
+    assertTrue(matches(countQuery.getValue(), summary));
+    assertFalse(matches(lastQuery.getValue(), summary));
+    assertEquals(
+        1,
+        counts.getValue().getUpdateObject().get("$inc", Document.class).get("unreadCounts.alice"));
+
+    // Once counted, a retry of the batch no longer matches
+    summary.getRecordedMessageIds().add("m-1");
+    assertFalse(matches(countQuery.getValue(), summary));
+  }
+
+  @Test
+  void recordMessages_ShouldIgnoreDuplicates_OfSummariesAlreadyNewer() {
+    // Arrange: the batch was counted already, so the upsert tried to insert the existing summary
+    BulkOperations bulk = mock(BulkOperations.class);
+    when(mongoTemplate.bulkOps(BulkMode.UNORDERED, Conversation.class)).thenReturn(bulk);
+    BulkOperationException duplicate = mock(BulkOperationException.class);
+    when(duplicate.getErrors())
+        .thenReturn(List.of(new BulkWriteError(11000, "E11000", new BsonDocument(), 0)));
+    when(bulk.execute()).thenThrow(duplicate);
+    Message message =
+        Message.builder().id("m-1").sender("bob").receiver("alice").timestamp(NOW).build();
+
+    // Act & Assert: nothing thrown
+    conversationService.recordMessages(List.of(message));
+    verify(bulk).execute();
+  }
+
+  @Test
+  void unreadCountFor_ShouldSubtractReadCountInGroups() {
+    // Arrange
+    Conversation thread =
+        Conversation.builder()
+            .group(true)
+            .messageCount(10)
+            .readCounts(Map.of("alice", 7L, "bob", 10L))
+            .build();
+
+    // Act & Assert
+    assertEquals(3, thread.unreadCountFor("alice"));
+    assertEquals(0, thread.unreadCountFor("bob"));
+    assertEquals(10, thread.unreadCountFor("carol"));
+  }
+
+  // Evaluates the conditions recordMessages builds against a summary, as Mongo would
+  private static boolean matches(Query query, Conversation summary) {
+    return matches(query.getQueryObject(), summary);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static boolean matches(Document conditions, Conversation summary) {
+    for (Map.Entry<String, Object> condition : conditions.entrySet()) {
+      Object value = condition.getValue();
+      boolean matched =
+          switch (condition.getKey()) {
+            case "$or" -> ((List<Document>) value)
+                .stream().anyMatch(branch -> matches(branch, summary));
+            case "id" -> value.equals(summary.getId());
+            case "lastMessageId" -> compare(summary.getLastMessageId(), value);
+            case "lastMessageTime" -> compare(summary.getLastMessageTime(), value);
+            case "recordedMessageIds" -> summary.getRecordedMessageIds() == null
+                || ((List<String>) ((Document) value).get("$nin"))
+                    .stream().noneMatch(summary.getRecordedMessageIds()::contains);
+            default -> throw new IllegalArgumentException(condition.getKey());
+          };
+      if (!matched) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static boolean compare(Comparable actual, Object expected) {
+    if (!(expected instanceof Document operator)) {
+      return expected.equals(actual);
+    }
+    if (operator.containsKey("$exists")) {
+      return (actual != null) == operator.getBoolean("$exists");
+    }
+    return actual != null && actual.compareTo(operator.get("$lt")) < 0;
+  }
+}
@@ -0,0 +1,157 @@
+package com.unify.app.messages.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.unify.app.messages.events.ThreadMembershipChangedEvent;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+@ExtendWith(MockitoExtension.class)
+class GroupThreadServiceTest {
+
+  @Mock private ConversationService conversationService;
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private RedisMessageListenerContainer listenerContainer;
+  @Mock private ApplicationEventPublisher eventPublisher;
+
+  private GroupThreadService groupThreadService;
+
+  @BeforeEach
+  void setUp() {
+    groupThreadService =
+        new GroupThreadService(
+            conversationService, redisTemplate, listenerContainer, eventPublisher, 256, 300);
+  }
+
+  @Test
+  void removeMember_ShouldLetMembersLeave() {
+    // Arrange
+    when(conversationService.findThread("t1")).thenReturn(Optional.of(thread("alice")));
+
+    // Act
+    groupThreadService.removeMember("t1", "bob", "bob");
+
+    // Assert
+    verify(conversationService).removeMember("t1", "bob");
+  }
+
+  @Test
+  void removeMember_ShouldLetTheCreatorRemoveOthers() {
+    // Arrange
+    when(conversationService.findThread("t1")).thenReturn(Optional.of(thread("alice")));
+
+    // Act
+    groupThreadService.removeMember("t1", "alice", "carol");
+
+    // Assert
+    verify(conversationService).removeMember("t1", "carol");
+  }
+
+  @Test
+  void removeMember_ShouldRefuseOtherMembersRemovingSomeoneElse() {
+    // Arrange
+    when(conversationService.findThread("t1")).thenReturn(Optional.of(thread("alice")));
+
+    // Act
+    ResponseStatusException e =
+        assertThrows(
+            ResponseStatusException.class,
+            () -> groupThreadService.removeMember("t1", "bob", "carol"));
+
+    // Assert
+    assertEquals(HttpStatus.FORBIDDEN, e.getStatusCode());
+    verify(conversationService, never()).removeMember(anyString(), anyString());
+  }
+
+  @Test
+  void removeMember_ShouldBroadcastTheChange() {
+    // Arrange
+    when(conversationService.findThread("t1")).thenReturn(Optional.of(thread("alice")));
+    ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+
+    // Act
+    groupThreadService.removeMember("t1", "bob", "bob");
+
+    // Assert
+    verify(redisTemplate)
+        .convertAndSend(eq(GroupThreadService.MEMBERSHIP_CHANNEL), published.capture());
+    assertTrue(published.getValue().endsWith("\nt1"));
+    verify(eventPublisher).publishEvent(new ThreadMembershipChangedEvent("t1"));
+  }
+
+  @Test
+  void onMessage_ShouldDropTheCachedMembers_WhenAnotherNodeChangedThem() {
+    // Arrange: membership cached with bob, then bob leaves on another node
+    Conversation thread = thread("alice");
+    when(conversationService.findThread("t1")).thenReturn(Optional.of(thread));
+    assertTrue(groupThreadService.isMember("t1", "bob"));
+    thread.getParticipants().remove("bob");
+
+    // Act
+    groupThreadService.onMessage(message("other-node\nt1"), null);
+
+    // Assert
+    assertFalse(groupThreadService.isMember("t1", "bob"));
+    verify(conversationService, times(2)).findThread("t1");
+    verify(eventPublisher).publishEvent(new ThreadMembershipChangedEvent("t1"));
+  }
+
+  @Test
+  void onMessage_ShouldIgnoreItsOwnBroadcasts() {
+    // Arrange
+    Conversation thread = thread("alice");
+    when(conversationService.findThread("t1")).thenReturn(Optional.of(thread));
+    groupThreadService.removeMember("t1", "alice", "carol");
+    ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+    verify(redisTemplate)
+        .convertAndSend(eq(GroupThreadService.MEMBERSHIP_CHANNEL), published.capture());
+    assertTrue(groupThreadService.isMember("t1", "bob"));
+
+    // Act
+    groupThreadService.onMessage(message(published.getValue()), null);
+    groupThreadService.isMember("t1", "bob");
+
+    // Assert: one read for removeMember, one to fill the cache
+    verify(conversationService, times(2)).findThread("t1");
+  }
+
+  private static Conversation thread(String creator) {
+    return Conversation.builder()
+        .id("t1")
+        .group(true)
+        .name("Team")
+        .createdBy(creator)
+        .participants(new ArrayList<>(List.of("alice", "bob", "carol")))
+        .build();
+  }
+
+  private static Message message(String body) {
+    Message message = mock(Message.class);
+    when(message.getBody()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+    return message;
+  }
+}
@@ -0,0 +1,88 @@
+package com.unify.app.messages.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import com.unify.app.messages.domain.models.MessageCursor;
+import com.unify.app.messages.domain.models.MessageDto;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+@ExtendWith(MockitoExtension.class)
+class MessageArchiveServiceTest {
+
+  private static final LocalDateTime DAY = LocalDateTime.of(2025, 1, 1, 22, 0);
+
+  @Mock private MongoTemplate mongoTemplate;
+
+  private MessageArchiveService archiveService;
+
+  @BeforeEach
+  void setUp() {
+    archiveService =
+        new MessageArchiveService(
+            mongoTemplate, Mappers.getMapper(MessageMapper.class), 90, 3, 5000);
+  }
+
+  @Test
+  void toBuckets_ShouldSplitByConversationDayAndSize() {
+    // Arrange: four messages late on one day, one the next day, one in another conversation
+    List<Message> messages = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      messages.add(message("m-" + i, "alice", "bob", DAY.plusMinutes(i)));
+    }
+    messages.add(message("m-4", "bob", "alice", DAY.plusHours(3)));
+    messages.add(message("m-5", "alice", "carol", DAY));
+
+    // Act
+    List<MessageBucket> buckets = archiveService.toBuckets(messages);
+
+    // Assert
+    assertEquals(
+        List.of("alice:bob:m-0", "alice:bob:m-3", "alice:bob:m-4", "alice:carol:m-5"),
+        buckets.stream().map(MessageBucket::getId).toList());
+    assertEquals(List.of(3, 1, 1, 1), buckets.stream().map(MessageBucket::getCount).toList());
+  }
+
+  @Test
+  void read_ShouldReturnArchivedMessagesBeforeCursorNewestFirst() {
+    // Arrange
+    List<Message> messages = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      messages.add(message("m-" + i, "alice", "bob", DAY.plusMinutes(i)));
+    }
+    List<MessageBucket> buckets = archiveService.toBuckets(messages);
+    when(mongoTemplate.stream(any(Query.class), eq(MessageBucket.class)))
+        .thenReturn(Stream.of(buckets.get(0)));
+
+    // Act
+    List<MessageDto> result =
+        archiveService.read("alice:bob", new MessageCursor(DAY.plusMinutes(2), "m-2"), null, 5);
+
+    // Assert
+    assertEquals(List.of("m-1", "m-0"), result.stream().map(MessageDto::id).toList());
+    assertEquals("hi", result.get(0).content());
+  }
+
+  private Message message(String id, String sender, String receiver, LocalDateTime timestamp) {
+    return Message.builder()
+        .id(id)
+        .sender(sender)
+        .receiver(receiver)
+        .content("hi")
+        .timestamp(timestamp)
+        .build();
+  }
+}
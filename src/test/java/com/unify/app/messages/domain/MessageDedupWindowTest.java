@@ -0,0 +1,42 @@
+package com.unify.app.messages.domain;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class MessageDedupWindowTest {
+
+  @Test
+  void isDuplicate_ShouldFlagResendsPerSender() {
+    MessageDedupWindow window = new MessageDedupWindow(60, 4, 100);
+
+    assertFalse(window.isDuplicate("alice", "tmp-1"));
+    assertTrue(window.isDuplicate("alice", "tmp-1"));
+    // Same temp ID from another sender, and messages without one, are not resends
+    assertFalse(window.isDuplicate("bob", "tmp-1"));
+    assertFalse(window.isDuplicate("alice", null));
+    assertFalse(window.isDuplicate("alice", null));
+  }
+
+  @Test
+  void isDuplicate_ShouldForgetOldestOnceRingIsFull() {
+    MessageDedupWindow window = new MessageDedupWindow(60, 2, 100);
+
+    window.isDuplicate("alice", "tmp-1");
+    window.isDuplicate("alice", "tmp-2");
+    window.isDuplicate("alice", "tmp-3");
+
+    assertFalse(window.isDuplicate("alice", "tmp-1"));
+    assertTrue(window.isDuplicate("alice", "tmp-3"));
+  }
+
+  @Test
+  void isDuplicate_ShouldIgnoreEntriesOutsideWindow() {
+    MessageDedupWindow window = new MessageDedupWindow(0, 4, 100);
+
+    window.isDuplicate("alice", "tmp-1");
+
+    assertFalse(window.isDuplicate("alice", "tmp-1"));
+  }
+}
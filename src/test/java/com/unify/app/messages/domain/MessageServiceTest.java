@@ -0,0 +1,205 @@
+package com.unify.app.messages.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.unify.app.messages.domain.models.MessageCursor;
+import com.unify.app.messages.domain.models.MessageDto;
+import com.unify.app.messages.domain.models.MessagePage;
+import com.unify.app.users.domain.UserProfileService;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+@ExtendWith(MockitoExtension.class)
+class MessageServiceTest {
+
+  private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+  @Mock private MongoTemplate mongoTemplate;
+  @Mock private MessageRepository messageRepository;
+  @Mock private UserProfileService userProfileService;
+  @Mock private ConversationService conversationService;
+  @Mock private CacheManager cacheManager;
+  @Mock private MessageArchiveService messageArchiveService;
+
+  private MessageService messageService;
+
+  @BeforeEach
+  void setUp() {
+    messageService =
+        new MessageService(
+            mongoTemplate,
+            messageRepository,
+            userProfileService,
+            Mappers.getMapper(MessageMapper.class),
+            conversationService,
+            cacheManager,
+            messageArchiveService);
+  }
+
+  @Test
+  void getMessagePage_ShouldReturnNewestPageOldestFirst() {
+    // Arrange: newest first, one more than the page size
+    List<Message> found = new ArrayList<>();
+    for (int i = 3; i >= 0; i--) {
+      found.add(message("m-" + i, START.plusSeconds(i)));
+    }
+    when(mongoTemplate.find(any(Query.class), eq(Message.class))).thenReturn(found);
+
+    // Act
+    MessagePage page = messageService.getMessagePage("alice", "bob", null, null, 3);
+
+    // Assert
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(query.capture(), eq(Message.class));
+    assertEquals(4, query.getValue().getLimit());
+    assertEquals(new Document("timestamp", -1).append("id", -1), query.getValue().getSortObject());
+
+    assertTrue(page.hasMore());
+    assertEquals(List.of("m-1", "m-2", "m-3"), page.messages().stream().map(m -> m.id()).toList());
+    assertEquals("m-1", MessageCursor.decode(page.olderCursor()).id());
+    assertEquals("m-3", MessageCursor.decode(page.newerCursor()).id());
+  }
+
+  @Test
+  void getMessagePage_ShouldReadForwardAfterCursor() {
+    // Arrange
+    String after = new MessageCursor(START, "m-0").encode();
+    when(mongoTemplate.find(any(Query.class), eq(Message.class)))
+        .thenReturn(List.of(message("m-1", START.plusSeconds(1))));
+
+    // Act
+    MessagePage page = messageService.getMessagePage("alice", "bob", null, after, 3);
+
+    // Assert
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(query.capture(), eq(Message.class));
+    assertEquals(new Document("timestamp", 1).append("id", 1), query.getValue().getSortObject());
+    assertTrue(query.getValue().getQueryObject().toString().contains("$gt"));
+
+    assertFalse(page.hasMore());
+    assertEquals("m-1", page.messages().get(0).id());
+  }
+
+  @Test
+  void insertMessages_ShouldReturnEverything_WhenTheBulkInsertSucceeds() {
+    // Arrange
+    BulkOperations bulk = givenBulk();
+
+    // Act
+    List<Message> inserted = messageService.insertMessages(List.of(dto("m-1", "t-1")));
+
+    // Assert
+    verify(bulk).execute();
+    assertEquals(List.of("m-1"), inserted.stream().map(Message::getId).toList());
+  }
+
+  @Test
+  void insertMessages_ShouldCountOwnRows_WhenARetryFindsThemStored() {
+    // Arrange: the first attempt went through, so every row is now a duplicate
+    BulkOperations bulk = givenBulk();
+    BulkOperationException duplicates = duplicates(0, 1);
+    when(bulk.execute()).thenThrow(duplicates);
+    when(mongoTemplate.find(any(Query.class), eq(Message.class)))
+        .thenReturn(List.of(stored("m-1", "t-1"), stored("m-2", "t-2")));
+
+    // Act
+    List<Message> inserted =
+        messageService.insertMessages(List.of(dto("m-1", "t-1"), dto("m-2", "t-2")));
+
+    // Assert
+    assertEquals(List.of("m-1", "m-2"), inserted.stream().map(Message::getId).toList());
+  }
+
+  @Test
+  void insertMessages_ShouldLeaveOutResends_StoredUnderAnotherId() {
+    // Arrange: m-2 resends t-1, which is stored as m-1
+    BulkOperations bulk = givenBulk();
+    BulkOperationException duplicates = duplicates(1);
+    when(bulk.execute()).thenThrow(duplicates);
+    when(mongoTemplate.find(any(Query.class), eq(Message.class))).thenReturn(List.of());
+
+    // Act
+    List<Message> inserted =
+        messageService.insertMessages(List.of(dto("m-3", "t-3"), dto("m-2", "t-1")));
+
+    // Assert
+    assertEquals(List.of("m-3"), inserted.stream().map(Message::getId).toList());
+  }
+
+  @Test
+  void insertMessages_ShouldNotClaimRows_StoredBySomeoneElse() {
+    // Arrange: a message from mallory already holds the ID
+    BulkOperations bulk = givenBulk();
+    BulkOperationException duplicates = duplicates(0);
+    when(bulk.execute()).thenThrow(duplicates);
+    Message other = stored("m-1", "t-9");
+    other.setSender("mallory");
+    when(mongoTemplate.find(any(Query.class), eq(Message.class))).thenReturn(List.of(other));
+
+    // Act
+    List<Message> inserted = messageService.insertMessages(List.of(dto("m-1", "t-1")));
+
+    // Assert
+    assertTrue(inserted.isEmpty());
+  }
+
+  private BulkOperations givenBulk() {
+    BulkOperations bulk = mock(BulkOperations.class);
+    when(mongoTemplate.bulkOps(BulkMode.UNORDERED, Message.class)).thenReturn(bulk);
+    when(bulk.insert(anyList())).thenReturn(bulk);
+    return bulk;
+  }
+
+  private static BulkOperationException duplicates(int... indexes) {
+    BulkOperationException exception = mock(BulkOperationException.class);
+    List<BulkWriteError> errors = new ArrayList<>();
+    for (int index : indexes) {
+      errors.add(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), index));
+    }
+    when(exception.getErrors()).thenReturn(errors);
+    return exception;
+  }
+
+  private static MessageDto dto(String id, String clientTempId) {
+    return new MessageDto(id, "alice", "bob", "hi", START, null, null, clientTempId, null, null);
+  }
+
+  private static Message stored(String id, String clientTempId) {
+    return Message.builder().id(id).sender("alice").clientTempId(clientTempId).build();
+  }
+
+  private Message message(String id, LocalDateTime timestamp) {
+    return Message.builder()
+        .id(id)
+        .sender("alice")
+        .receiver("bob")
+        .content("hi")
+        .timestamp(timestamp)
+        .build();
+  }
+}
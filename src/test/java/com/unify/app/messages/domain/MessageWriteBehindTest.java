@@ -0,0 +1,143 @@
+package com.unify.app.messages.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.unify.app.messages.domain.models.MessageAck;
+import com.unify.app.messages.domain.models.MessageDto;
+import com.unify.app.messages.domain.models.MessageType;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class MessageWriteBehindTest {
+
+  @Mock private MessageService messageService;
+  @Mock private SimpMessagingTemplate messagingTemplate;
+
+  private MessageWriteBehind writeBehind;
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    writeBehind.stop();
+  }
+
+  @Test
+  void enqueue_ShouldBatchConversationInOrderAndAckPersisted() {
+    // Arrange
+    writeBehind = createWriteBehind(1, 100, 50);
+    when(messageService.insertMessages(anyList())).thenAnswer(invocation -> List.of(new Message()));
+
+    // Act
+    for (int i = 0; i < 3; i++) {
+      assertTrue(writeBehind.enqueue(message("m-" + i)));
+    }
+
+    // Assert
+    ArgumentCaptor<List<MessageDto>> batches = ArgumentCaptor.captor();
+    verify(messageService, timeout(2000).atLeastOnce()).insertMessages(batches.capture());
+    List<String> written = new ArrayList<>();
+    batches.getAllValues().forEach(batch -> batch.forEach(m -> written.add(m.id())));
+    assertEquals(List.of("m-0", "m-1", "m-2"), written);
+
+    verify(messageService, timeout(2000).atLeastOnce()).recordInserted(anyList());
+    verify(messagingTemplate, timeout(2000).times(3))
+        .convertAndSend(
+            eq("/user/alice/queue/message-acks"),
+            argThat((MessageAck ack) -> ack.status() == MessageAck.Status.PERSISTED));
+  }
+
+  @Test
+  void enqueue_ShouldAckResendsWithTheSendersStoredMessage() {
+    // Arrange: m-1 resends m-0, which is already stored
+    writeBehind = createWriteBehind(1, 100, 50);
+    when(messageService.insertMessages(anyList())).thenReturn(List.of());
+    MessageDto original = message("m-0");
+    when(messageService.findByClientTempIds("alice", Set.of("tmp-m-0")))
+        .thenReturn(Map.of("tmp-m-0", original));
+    MessageDto resend =
+        new MessageDto(
+            "m-1",
+            "alice",
+            "bob",
+            "hi",
+            original.timestamp(),
+            List.of(),
+            MessageType.CHAT,
+            "tmp-m-0",
+            null,
+            null);
+
+    // Act
+    writeBehind.enqueue(resend);
+
+    // Assert
+    verify(messagingTemplate, timeout(2000))
+        .convertAndSend(
+            eq("/user/alice/queue/message-acks"),
+            argThat(
+                (MessageAck ack) ->
+                    ack.status() == MessageAck.Status.PERSISTED && "m-0".equals(ack.id())));
+  }
+
+  @Test
+  void enqueue_ShouldRejectWhenLaneIsFull() {
+    // Arrange: a writer that never gets to drain the one-slot queue
+    writeBehind = createWriteBehind(1, 1, 50);
+    ReflectionTestUtils.setField(writeBehind, "running", false);
+
+    // Act
+    boolean accepted = writeBehind.enqueue(message("m-0"));
+
+    // Assert
+    assertFalse(accepted);
+    verify(messagingTemplate, times(1))
+        .convertAndSend(
+            eq("/user/alice/queue/message-acks"),
+            argThat((MessageAck ack) -> ack.status() == MessageAck.Status.REJECTED));
+  }
+
+  private MessageWriteBehind createWriteBehind(int lanes, int capacity, int batchSize) {
+    MessageWriteBehind instance = new MessageWriteBehind(messageService, messagingTemplate);
+    ReflectionTestUtils.setField(instance, "laneCount", lanes);
+    ReflectionTestUtils.setField(instance, "queueCapacity", capacity);
+    ReflectionTestUtils.setField(instance, "batchSize", batchSize);
+    ReflectionTestUtils.setField(instance, "flushIntervalMs", 20L);
+    ReflectionTestUtils.setField(instance, "maxAttempts", 3);
+    instance.start();
+    return instance;
+  }
+
+  private MessageDto message(String id) {
+    return new MessageDto(
+        id,
+        "alice",
+        "bob",
+        "hi",
+        LocalDateTime.of(2025, 1, 1, 12, 0),
+        List.of(),
+        MessageType.CHAT,
+        "tmp-" + id,
+        null,
+        null);
+  }
+}
@@ -0,0 +1,148 @@
+package com.unify.app.messages.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.unify.app.followers.domain.FollowService;
+import com.unify.app.messages.events.PresenceDelta;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+@ExtendWith(MockitoExtension.class)
+class PresenceServiceTest {
+
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private ZSetOperations<String, String> zSetOperations;
+  @Mock private HashOperations<String, Object, Object> hashOperations;
+  @Mock private SimpMessagingTemplate messagingTemplate;
+  @Mock private RedisMessageListenerContainer listenerContainer;
+  @Mock private FollowService followService;
+
+  private static final List<String> KEYS =
+      List.of(
+          PresenceService.SESSIONS_KEY_PREFIX + "alice",
+          PresenceService.ONLINE_KEY,
+          PresenceService.CHANGES_CHANNEL);
+
+  private PresenceService presenceService;
+
+  @BeforeEach
+  void setUp() {
+    presenceService =
+        new PresenceService(
+            redisTemplate, messagingTemplate, listenerContainer, followService, 90, 5, 1000);
+  }
+
+  @Test
+  void connect_ShouldRegisterTheSessionClusterWide() {
+    // Arrange
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+
+    // Act
+    presenceService.connect("alice", "session-1");
+
+    // Assert: the script puts alice online and announces her if she was not
+    verify(redisTemplate)
+        .execute(
+            eq(PresenceService.CONNECT),
+            eq(KEYS),
+            any(),
+            any(),
+            eq("session-1"),
+            eq("alice"),
+            any());
+    verify(redisTemplate, never()).convertAndSend(any(), any());
+  }
+
+  @Test
+  void onSessionDisconnect_ShouldLeaveTheOfflineDecisionToTheClusterWideSessions() {
+    // Arrange
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    presenceService.connect("alice", "session-1");
+    presenceService.connect("alice", "session-2");
+
+    // Act: alice's last session on this node; she may still be connected to another one
+    presenceService.onSessionDisconnect(disconnect("session-1"));
+    presenceService.onSessionDisconnect(disconnect("session-2"));
+
+    // Assert: only the script takes her offline, once her sessions set is empty
+    verify(redisTemplate)
+        .execute(eq(PresenceService.DISCONNECT), eq(KEYS), any(), eq("session-1"), eq("alice"));
+    verify(redisTemplate)
+        .execute(eq(PresenceService.DISCONNECT), eq(KEYS), any(), eq("session-2"), eq("alice"));
+    verify(zSetOperations, never()).remove(any(), any());
+    verify(redisTemplate, never()).convertAndSend(any(), any());
+  }
+
+  @Test
+  void setInactive_ShouldOnlyDropTheCallersOwnSession() {
+    // Arrange
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    presenceService.connect("alice", "session-1");
+
+    // Act: someone else's ID in the payload is ignored
+    presenceService.setInactive("bob", "session-1");
+    presenceService.setInactive("alice", "session-1");
+    presenceService.onSessionDisconnect(disconnect("session-1"));
+
+    // Assert
+    verify(redisTemplate)
+        .execute(eq(PresenceService.DISCONNECT), eq(KEYS), any(), eq("session-1"), eq("alice"));
+    verify(redisTemplate, never())
+        .execute(eq(PresenceService.DISCONNECT), anyList(), any(), any(), eq("bob"));
+  }
+
+  @Test
+  void onMessage_ShouldBatchDeltasForFollowersOnly() {
+    // Arrange: bob follows alice and carol and is connected here
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    when(followService.getFollowingIds("bob")).thenReturn(List.of("alice", "carol"));
+    presenceService.connect("bob", "session-1");
+
+    // Act: alice flaps, carol comes online, dave is followed by nobody here
+    presenceService.onMessage(change("1|1735707600000|alice"), null);
+    presenceService.onMessage(change("0|1735707601000|alice"), null);
+    presenceService.onMessage(change("1|1735707601000|carol"), null);
+    presenceService.onMessage(change("1|1735707601000|dave"), null);
+    presenceService.flushDeltas();
+
+    // Assert
+    ArgumentCaptor<Object> frame = ArgumentCaptor.forClass(Object.class);
+    verify(messagingTemplate).convertAndSend(eq("/user/bob/queue/presence"), frame.capture());
+    assertEquals(
+        Set.of(new PresenceDelta("alice", false), new PresenceDelta("carol", true)),
+        Set.copyOf((List<?>) frame.getValue()));
+    assertTrue(presenceService.isActive("dave"));
+  }
+
+  private DefaultMessage change(String body) {
+    return new DefaultMessage(new byte[0], body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private SessionDisconnectEvent disconnect(String sessionId) {
+    return new SessionDisconnectEvent(
+        this, MessageBuilder.withPayload(new byte[0]).build(), sessionId, CloseStatus.NORMAL);
+  }
+}
@@ -0,0 +1,44 @@
+package com.unify.app.messages.domain;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SearchTextTest {
+
+  @Test
+  void fold_ShouldStripVietnameseDiacriticsKeepingLength() {
+    // Arrange
+    String text = "Đã nhắn tin cho Hường chưa?";
+
+    // Act
+    String folded = SearchText.fold(text);
+
+    // Assert
+    assertEquals("da nhan tin cho huong chua?", folded);
+    assertEquals(text.length(), folded.length());
+  }
+
+  @Test
+  void terms_ShouldFoldAndSplitQuery() {
+    // Act & Assert
+    assertEquals(List.of("tin", "nhan"), SearchText.terms("  Tin, NHẮN tin! ", 10));
+    assertEquals(List.of(), SearchText.terms("?!", 10));
+  }
+
+  @Test
+  void highlights_ShouldPointAtOriginalText() {
+    // Arrange
+    String text = "Nhắn lại nhé, tin nhắn trước bị lỗi";
+
+    // Act
+    List<int[]> ranges = SearchText.highlights(text, SearchText.terms("nhan", 10));
+
+    // Assert
+    assertEquals(2, ranges.size());
+    assertArrayEquals(new int[] {0, 4}, ranges.get(0));
+    assertEquals("nhắn", text.substring(ranges.get(1)[0], ranges.get(1)[1]));
+  }
+}
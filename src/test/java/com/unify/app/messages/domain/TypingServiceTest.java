@@ -0,0 +1,111 @@
+package com.unify.app.messages.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.unify.app.messages.events.TypingEvent;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class TypingServiceTest {
+
+  private static final String ALICE_TO_BOB = "/user/bob/queue/typing";
+
+  @Mock private SimpMessagingTemplate messagingTemplate;
+  @Mock private GroupThreadService groupThreadService;
+
+  private TypingService typingService;
+  private long now;
+
+  @BeforeEach
+  void setUp() {
+    typingService = new TypingService(messagingTemplate, groupThreadService, 5000, 250);
+    now = System.currentTimeMillis();
+  }
+
+  @Test
+  void submit_ShouldSendOneStartAndOneStop_PerBurst() {
+    // Arrange & Act: a keystroke every 100ms for a second, then nothing
+    for (int i = 0; i < 10; i++) {
+      typingService.submit(keystroke(), now + i * 100L);
+      typingService.tick(now + i * 100L);
+    }
+    typingService.tick(now + 900 + 5000 + 250);
+
+    // Assert
+    List<TypingEvent> sent = sentTo(ALICE_TO_BOB, 2);
+    assertTrue(sent.get(0).typing());
+    assertFalse(sent.get(1).typing());
+    assertEquals(0, typingService.activeCount());
+  }
+
+  @Test
+  void tick_ShouldNotStop_WhileKeystrokesKeepComing() {
+    // Arrange
+    typingService.submit(keystroke(), now);
+    typingService.submit(keystroke(), now + 4000);
+
+    // Act: past the first expiry, before the extended one
+    typingService.tick(now + 6000);
+
+    // Assert
+    assertTrue(sentTo(ALICE_TO_BOB, 1).get(0).typing());
+    assertEquals(1, typingService.activeCount());
+
+    // Act: past the extended expiry
+    typingService.tick(now + 9500);
+
+    // Assert
+    assertFalse(sentTo(ALICE_TO_BOB, 2).get(1).typing());
+  }
+
+  @Test
+  void submit_ShouldStopOnce_WhenClientStops() {
+    // Arrange
+    typingService.submit(keystroke(), now);
+
+    // Act
+    typingService.submit(new TypingEvent("alice", "bob", false, null, null), now + 500);
+    typingService.tick(now + 10_000);
+
+    // Assert
+    assertFalse(sentTo(ALICE_TO_BOB, 2).get(1).typing());
+  }
+
+  @Test
+  void submit_ShouldIgnoreThreadsTheSenderIsNotIn() {
+    // Arrange
+    when(groupThreadService.isMember("thread-1", "alice")).thenReturn(false);
+
+    // Act
+    typingService.submit(new TypingEvent("alice", null, true, null, "thread-1"), now);
+
+    // Assert
+    verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+  }
+
+  private static TypingEvent keystroke() {
+    return new TypingEvent("alice", "bob", true, null, null);
+  }
+
+  private List<TypingEvent> sentTo(String destination, int count) {
+    ArgumentCaptor<TypingEvent> captor = ArgumentCaptor.forClass(TypingEvent.class);
+    verify(messagingTemplate, times(count)).convertAndSend(eq(destination), captor.capture());
+    return captor.getAllValues();
+  }
+}
@@ -0,0 +1,350 @@
+package com.unify.app.posts.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.unify.app.followers.domain.FollowService;
+import com.unify.app.followers.events.FollowChangedEvent;
+import com.unify.app.posts.domain.models.FeedCursor;
+import com.unify.app.users.domain.User;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class FeedTimelineServiceTest {
+
+  private static final String TIMELINE = "unify:timeline:alice";
+  private static final String PULL_AUTHORS = "unify:timeline-pull-authors";
+
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private PostRepository postRepository;
+  @Mock private FollowService followService;
+  @Mock private ZSetOperations<String, String> zSetOps;
+  @Mock private SetOperations<String, String> setOps;
+  @Mock private RedisOperations<String, String> pipeline;
+  @Mock private ValueOperations<String, String> pipelineValueOps;
+
+  private FeedTimelineService feedTimelineService;
+  // Contents of alice's materialized timeline
+  private final List<TypedTuple<String>> timeline = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    feedTimelineService = new FeedTimelineService(redisTemplate, postRepository, followService);
+    ReflectionTestUtils.setField(feedTimelineService, "timelineMaxSize", 500);
+    ReflectionTestUtils.setField(feedTimelineService, "timelineTtlInDays", 7);
+    ReflectionTestUtils.setField(feedTimelineService, "fanoutFollowerThreshold", 2L);
+
+    lenient().when(redisTemplate.opsForZSet()).thenReturn(zSetOps);
+    lenient().when(redisTemplate.opsForSet()).thenReturn(setOps);
+    lenient().when(pipeline.opsForValue()).thenReturn(pipelineValueOps);
+    lenient()
+        .when(redisTemplate.executePipelined(any(SessionCallback.class)))
+        .thenAnswer(
+            invocation -> {
+              invocation.<SessionCallback<?>>getArgument(0).execute(pipeline);
+              return List.of();
+            });
+    lenient()
+        .when(
+            zSetOps.reverseRangeByScoreWithScores(
+                eq(TIMELINE), anyDouble(), anyDouble(), anyLong(), anyLong()))
+        .thenAnswer(
+            invocation -> {
+              double max = invocation.getArgument(2);
+              long offset = invocation.getArgument(3);
+              long count = invocation.getArgument(4);
+              Set<TypedTuple<String>> range = new LinkedHashSet<>();
+              timeline.stream()
+                  .filter(tuple -> tuple.getScore() <= max)
+                  .sorted(
+                      Comparator.comparingDouble((TypedTuple<String> tuple) -> tuple.getScore())
+                          .thenComparing(TypedTuple::getValue)
+                          .reversed())
+                  .skip(offset)
+                  .limit(count)
+                  .forEach(range::add);
+              return range;
+            });
+  }
+
+  @Test
+  void fanOut_ShouldPushToTheAuthorAndFollowers() {
+    // Arrange
+    when(followService.countFollowers("bob")).thenReturn(2L);
+    when(followService.getFollowerIds("bob")).thenReturn(List.of("alice", "carol"));
+
+    // Act
+    feedTimelineService.fanOut(post("p1", "bob", 1_000));
+
+    // Assert
+    for (String userId : List.of("bob", "alice", "carol")) {
+      verify(pipeline)
+          .execute(
+              any(RedisScript.class),
+              eq(List.of("unify:timeline:" + userId)),
+              eq("1000.0"),
+              eq("p1"),
+              eq("500"));
+      verify(pipelineValueOps).increment("unify:feed-version:" + userId);
+    }
+    verify(setOps, never()).add(anyString(), any(String[].class));
+  }
+
+  @Test
+  void fanOut_ShouldRecordAuthorsOverTheThreshold_InsteadOfPushingToFollowers() {
+    // Arrange
+    when(followService.countFollowers("bob")).thenReturn(3L);
+
+    // Act
+    feedTimelineService.fanOut(post("p1", "bob", 1_000));
+
+    // Assert: only the author's own timeline is pushed to
+    verify(setOps).add(PULL_AUTHORS, "bob");
+    verify(followService, never()).getFollowerIds("bob");
+    verify(pipeline)
+        .execute(any(RedisScript.class), eq(List.of("unify:timeline:bob")), any(Object[].class));
+    verify(pipeline, never())
+        .execute(any(RedisScript.class), eq(List.of(TIMELINE)), any(Object[].class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void readPage_ShouldSeedMissingTimelinesFromTheDatabase() {
+    // Arrange
+    when(redisTemplate.hasKey(TIMELINE)).thenReturn(false);
+    when(postRepository.findTimelineSeed(eq("alice"), any(Pageable.class)))
+        .thenReturn(List.of(row("p2", 2_000), row("p1", 1_000)));
+    when(zSetOps.add(eq(TIMELINE), anySet()))
+        .thenAnswer(
+            invocation -> {
+              timeline.addAll(invocation.<Set<TypedTuple<String>>>getArgument(1));
+              return 2L;
+            });
+
+    // Act
+    FeedTimelineService.TimelinePage page = feedTimelineService.readPage("alice", null, 10);
+
+    // Assert
+    ArgumentCaptor<Set<TypedTuple<String>>> seeded = ArgumentCaptor.forClass(Set.class);
+    verify(zSetOps).add(eq(TIMELINE), seeded.capture());
+    assertEquals(2, seeded.getValue().size());
+    verify(redisTemplate).expire(TIMELINE, Duration.ofDays(7));
+    assertEquals(List.of("p2", "p1"), page.postIds());
+    assertFalse(page.hasNext());
+  }
+
+  @Test
+  void readPage_ShouldMergePullAuthorPostsByTime() {
+    // Arrange
+    givenTimeline("p1", 1_000, "p3", 3_000);
+    when(setOps.members(PULL_AUTHORS)).thenReturn(Set.of("celebrity"));
+    when(followService.getFollowedIdsAmong("alice", Set.of("celebrity")))
+        .thenReturn(List.of("celebrity"));
+    when(postRepository.findRecentPostIdsByAuthors(
+            eq(List.of("celebrity")), isNull(), any(Pageable.class)))
+        .thenReturn(List.of(row("p2", 2_000), row("p3", 3_000)));
+
+    // Act
+    FeedTimelineService.TimelinePage page = feedTimelineService.readPage("alice", null, 10);
+
+    // Assert: p3 is in both and shown once
+    assertEquals(List.of("p3", "p2", "p1"), page.postIds());
+  }
+
+  @Test
+  void readPage_ShouldResumeStrictlyAfterTheCursor() {
+    // Arrange
+    givenTimeline("p1", 1_000, "p2", 2_000, "p3", 3_000, "p4", 4_000, "p5", 5_000);
+
+    // Act
+    FeedTimelineService.TimelinePage first = feedTimelineService.readPage("alice", null, 2);
+    FeedTimelineService.TimelinePage second =
+        feedTimelineService.readPage("alice", first.nextCursor(), 2);
+    FeedTimelineService.TimelinePage last =
+        feedTimelineService.readPage("alice", second.nextCursor(), 2);
+
+    // Assert
+    assertEquals(List.of("p5", "p4"), first.postIds());
+    assertTrue(first.hasNext());
+    assertEquals(new FeedCursor(4_000L, null, "p4"), first.nextCursor());
+    assertEquals(List.of("p3", "p2"), second.postIds());
+    assertTrue(second.hasNext());
+    assertEquals(List.of("p1"), last.postIds());
+    assertFalse(last.hasNext());
+    assertNull(last.nextCursor());
+  }
+
+  @Test
+  void readPage_ShouldNotReportANextPage_WhenTheLastPageIsExactlyFull() {
+    // Arrange
+    givenTimeline("p1", 1_000, "p2", 2_000);
+
+    // Act
+    FeedTimelineService.TimelinePage page = feedTimelineService.readPage("alice", null, 2);
+
+    // Assert
+    assertEquals(List.of("p2", "p1"), page.postIds());
+    assertFalse(page.hasNext());
+    assertNull(page.nextCursor());
+  }
+
+  @Test
+  void readPage_ShouldBreakSameMillisecondTiesById_WhenTheyStraddleThePageEdge() {
+    // Arrange
+    givenTimeline("p1", 1_000, "a", 2_000, "b", 2_000, "c", 2_000);
+
+    // Act
+    FeedTimelineService.TimelinePage first = feedTimelineService.readPage("alice", null, 2);
+    FeedTimelineService.TimelinePage second =
+        feedTimelineService.readPage("alice", first.nextCursor(), 2);
+
+    // Assert
+    assertEquals(List.of("c", "b"), first.postIds());
+    assertEquals(new FeedCursor(2_000L, null, "b"), first.nextCursor());
+    assertEquals(List.of("a", "p1"), second.postIds());
+    assertFalse(second.hasNext());
+  }
+
+  @Test
+  void readPage_ShouldNotSkipPosts_WhenMoreShareTheCursorsMillisecondThanOneRead() {
+    // Arrange: every page after the first starts behind all the ties already shown
+    List<String> expected = new ArrayList<>();
+    for (int i = 39; i >= 0; i--) {
+      String id = String.format("t%02d", i);
+      givenTimeline(id, 2_000);
+      expected.add(id);
+    }
+    givenTimeline("old", 1_000);
+    expected.add("old");
+
+    // Act
+    List<String> read = readAll(5);
+
+    // Assert
+    assertEquals(expected, read);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void readPage_ShouldNotSkipPullAuthorPosts_WhenMoreShareTheCursorsMillisecondThanOneRead() {
+    // Arrange
+    givenTimeline();
+    List<Object[]> posts = new ArrayList<>();
+    List<String> expected = new ArrayList<>();
+    for (int i = 29; i >= 0; i--) {
+      String id = String.format("c%02d", i);
+      posts.add(row(id, 2_000));
+      expected.add(id);
+    }
+    when(setOps.members(PULL_AUTHORS)).thenReturn(Set.of("celebrity"));
+    when(followService.getFollowedIdsAmong("alice", Set.of("celebrity")))
+        .thenReturn(List.of("celebrity"));
+    when(postRepository.findRecentPostIdsByAuthors(eq(List.of("celebrity")), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              LocalDateTime before = invocation.getArgument(1);
+              Pageable pageable = invocation.getArgument(2);
+              return posts.stream()
+                  .filter(row -> before == null || ((LocalDateTime) row[1]).isBefore(before))
+                  .skip(pageable.getOffset())
+                  .limit(pageable.getPageSize())
+                  .toList();
+            });
+
+    // Act
+    List<String> read = readAll(4);
+
+    // Assert
+    assertEquals(expected, read);
+  }
+
+  @Test
+  void onFollowChanged_ShouldDropTheFollowersTimelineAndBumpTheirFeedVersion() {
+    // Act
+    feedTimelineService.onFollowChanged(new FollowChangedEvent("alice", "bob", true));
+
+    // Assert
+    verify(pipeline).delete(TIMELINE);
+    verify(pipelineValueOps).increment("unify:feed-version:alice");
+    verify(pipeline).expire("unify:feed-version:alice", Duration.ofDays(7));
+  }
+
+  // Follows the cursors to the end of alice's feed
+  private List<String> readAll(int pageSize) {
+    List<String> read = new ArrayList<>();
+    FeedCursor cursor = null;
+    for (int pages = 0; pages < 100; pages++) {
+      FeedTimelineService.TimelinePage page =
+          feedTimelineService.readPage("alice", cursor, pageSize);
+      read.addAll(page.postIds());
+      if (!page.hasNext()) {
+        return read;
+      }
+      cursor = page.nextCursor();
+    }
+    throw new AssertionError("Paging did not end");
+  }
+
+  private void givenTimeline(Object... idsAndMillis) {
+    lenient().when(redisTemplate.hasKey(TIMELINE)).thenReturn(true);
+    for (int i = 0; i < idsAndMillis.length; i += 2) {
+      timeline.add(
+          new DefaultTypedTuple<>(
+              (String) idsAndMillis[i], ((Number) idsAndMillis[i + 1]).doubleValue()));
+    }
+  }
+
+  private static Post post(String id, String authorId, long millis) {
+    return Post.builder()
+        .id(id)
+        .user(User.builder().id(authorId).build())
+        .postedAt(time(millis))
+        .build();
+  }
+
+  private static Object[] row(String id, long millis) {
+    return new Object[] {id, time(millis)};
+  }
+
+  private static LocalDateTime time(long millis) {
+    return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+  }
+}
@@ -0,0 +1,191 @@
+package com.unify.app.posts.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class PostCounterServiceTest {
+
+  @Mock private PostRepository postRepository;
+  @Mock private TrendingService trendingService;
+
+  private PostCounterService postCounterService;
+
+  @BeforeEach
+  void setUp() {
+    postCounterService = new PostCounterService(postRepository, trendingService);
+    ReflectionTestUtils.setField(postCounterService, "reconcileSettleMillis", 0L);
+  }
+
+  @Test
+  void flush_ShouldWriteOneUpdatePerDistinctDelta() {
+    // Arrange
+    postCounterService.recordLike("p1", 1);
+    postCounterService.recordLike("p1", 1);
+    postCounterService.recordLike("p2", 2);
+    postCounterService.recordLike("p3", 1);
+    postCounterService.recordLike("p3", -1);
+    postCounterService.recordComment("p1", -1);
+
+    // Act
+    postCounterService.flush();
+
+    // Assert: p3 netted out to nothing
+    ArgumentCaptor<List<String>> ids = listCaptor();
+    verify(postRepository).incrementLikeCounts(ids.capture(), eq(2L));
+    assertEquals(List.of("p1", "p2"), ids.getValue().stream().sorted().toList());
+    verify(postRepository).incrementCommentCounts(List.of("p1"), -1L);
+    verify(postRepository, times(1)).incrementLikeCounts(anyList(), anyLong());
+  }
+
+  @Test
+  void flush_ShouldWriteNothing_WhenIdle() {
+    // Arrange
+    postCounterService.recordLike("p1", 1);
+    postCounterService.flush();
+
+    // Act
+    postCounterService.flush();
+
+    // Assert
+    verify(postRepository, times(1)).incrementLikeCounts(anyList(), anyLong());
+  }
+
+  @Test
+  void flush_ShouldRetryFailedDeltas_OnTheNextFlush() {
+    // Arrange
+    postCounterService.recordLike("p1", 1);
+    when(postRepository.incrementLikeCounts(List.of("p1"), 1L))
+        .thenThrow(new RuntimeException("connection reset"));
+    postCounterService.flush();
+    postCounterService.recordLike("p1", 1);
+
+    // Act
+    postCounterService.flush();
+
+    // Assert: the failed delta and the new one go out together
+    verify(postRepository).incrementLikeCounts(List.of("p1"), 2L);
+  }
+
+  @Test
+  void flush_ShouldNotLoseDeltas_RecordedWhileFlushing() throws Exception {
+    // Arrange
+    AtomicLong written = new AtomicLong();
+    when(postRepository.incrementLikeCounts(anyList(), anyLong()))
+        .thenAnswer(
+            invocation -> {
+              List<String> ids = invocation.getArgument(0);
+              written.addAndGet(ids.size() * invocation.<Long>getArgument(1));
+              return ids.size();
+            });
+    int threads = 4;
+    int perThread = 20_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+    CountDownLatch done = new CountDownLatch(threads);
+    AtomicBoolean recording = new AtomicBoolean(true);
+
+    // Act: record on a handful of hot posts while another thread keeps flushing
+    for (int t = 0; t < threads; t++) {
+      executor.execute(
+          () -> {
+            for (int i = 0; i < perThread; i++) {
+              postCounterService.recordLike("p" + (i % 3), 1);
+            }
+            done.countDown();
+          });
+    }
+    executor.execute(
+        () -> {
+          while (recording.get()) {
+            postCounterService.flush();
+          }
+        });
+    done.await(30, TimeUnit.SECONDS);
+    recording.set(false);
+    executor.shutdown();
+    executor.awaitTermination(30, TimeUnit.SECONDS);
+    postCounterService.flush();
+
+    // Assert
+    assertEquals((long) threads * perThread, written.get());
+  }
+
+  @Test
+  void reconcile_ShouldRepairDriftedPosts_WithTheCountsReadUpFront() {
+    // Arrange
+    List<Object[]> drifted = new ArrayList<>();
+    drifted.add(new Object[] {"p1", 5L, 2L});
+    drifted.add(new Object[] {"p2", 1L, 0L});
+    when(postRepository.findDriftedCounters()).thenReturn(drifted);
+    when(postRepository.repairCounters("p1", 5L, 2L)).thenReturn(1);
+    // p2 changed since it was read, so it is left alone
+    when(postRepository.repairCounters("p2", 1L, 0L)).thenReturn(0);
+
+    // Act
+    int repaired = postCounterService.reconcile();
+
+    // Assert
+    assertEquals(1, repaired);
+  }
+
+  @Test
+  void reconcile_ShouldFlushPendingDeltas_BeforeRepairing() {
+    // Arrange
+    List<Object[]> drifted = new ArrayList<>();
+    drifted.add(new Object[] {"p1", 5L, 0L});
+    when(postRepository.findDriftedCounters()).thenReturn(drifted);
+    postCounterService.recordLike("p1", 1);
+
+    // Act
+    postCounterService.reconcile();
+
+    // Assert
+    InOrder inOrder = inOrder(postRepository);
+    inOrder.verify(postRepository).findDriftedCounters();
+    inOrder.verify(postRepository).incrementLikeCounts(List.of("p1"), 1L);
+    inOrder.verify(postRepository).repairCounters("p1", 5L, 0L);
+  }
+
+  @Test
+  void reconcile_ShouldDoNothing_WhenNothingDrifted() {
+    // Arrange
+    when(postRepository.findDriftedCounters()).thenReturn(List.of());
+
+    // Act
+    int repaired = postCounterService.reconcile();
+
+    // Assert
+    assertEquals(0, repaired);
+    verify(postRepository, never()).repairCounters(anyString(), anyLong(), anyLong());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ArgumentCaptor<List<String>> listCaptor() {
+    return ArgumentCaptor.forClass(List.class);
+  }
+}
@@ -0,0 +1,94 @@
+package com.unify.app.posts.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+import com.unify.app.posts.domain.models.MediaType;
+import com.unify.app.posts.domain.models.PostDto;
+import com.unify.app.users.domain.User;
+import com.unify.app.users.domain.UserService;
+import com.unify.app.users.domain.models.UserDto;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PostHydratorTest {
+
+  @Mock private MediaRepository mediaRepository;
+  @Mock private UserService userService;
+
+  private PostHydrator postHydrator;
+
+  @BeforeEach
+  void setUp() {
+    postHydrator = new PostHydrator(mediaRepository, userService);
+  }
+
+  @Test
+  void toPostDtos_ShouldLoadEachRelationOnceForWholePage() {
+    // Arrange: a 20 post page from 5 authors
+    List<Post> posts = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      User author = User.builder().id("user-" + (i % 5)).build();
+      posts.add(Post.builder().id("post-" + i).user(author).build());
+    }
+    List<Object[]> mediaRows = new ArrayList<>();
+    mediaRows.add(new Object[] {"post-0", "m-1", "url-1", "image/png", 10L, MediaType.IMAGE});
+    mediaRows.add(new Object[] {"post-0", "m-2", "url-2", "video/mp4", 20L, MediaType.VIDEO});
+    when(mediaRepository.findRowsByPostIds(anyCollection())).thenReturn(mediaRows);
+    when(userService.findProfilesByIds(anyCollection()))
+        .thenReturn(Map.of("user-0", createUserDto("user-0")));
+
+    // Act
+    List<PostDto> result = postHydrator.toPostDtos(posts);
+
+    // Assert
+    verify(mediaRepository, times(1)).findRowsByPostIds(anyCollection());
+    verify(userService, times(1)).findProfilesByIds(anyCollection());
+    verifyNoMoreInteractions(mediaRepository, userService);
+
+    assertEquals(20, result.size());
+    assertEquals("post-0", result.get(0).getId());
+    assertEquals(2, result.get(0).getMedia().size());
+    assertEquals("user-0", result.get(0).getUser().id());
+    assertTrue(result.get(1).getMedia().isEmpty());
+    assertEquals(0L, result.get(1).getLikeCount());
+  }
+
+  @Test
+  void toPostDtos_ShouldNotQueryForEmptyPage() {
+    assertTrue(postHydrator.toPostDtos(List.of()).isEmpty());
+    verifyNoInteractions(mediaRepository, userService);
+  }
+
+  private UserDto createUserDto(String id) {
+    return new UserDto(
+        id,
+        "Test",
+        "User",
+        "testuser",
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        0,
+        0,
+        null,
+        null,
+        null,
+        null);
+  }
+}
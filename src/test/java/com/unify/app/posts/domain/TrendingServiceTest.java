@@ -0,0 +1,147 @@
+package com.unify.app.posts.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class TrendingServiceTest {
+
+  private static final long HOUR = 3_600_000L;
+
+  @Mock private PostRepository postRepository;
+
+  private TrendingService trendingService;
+  private long now;
+
+  @BeforeEach
+  void setUp() {
+    trendingService = new TrendingService(postRepository);
+    ReflectionTestUtils.setField(trendingService, "halfLifeHours", 12.0);
+    ReflectionTestUtils.setField(trendingService, "capacity", 3);
+    now = System.currentTimeMillis();
+  }
+
+  @Test
+  void top_ShouldOrderByScoreDescending() {
+    trendingService.record("a", 1, now);
+    trendingService.record("b", 5, now);
+    trendingService.record("c", 3, now);
+
+    assertEquals(List.of("b", "c", "a"), trendingService.top(3));
+    assertEquals(List.of("b"), trendingService.top(1));
+  }
+
+  @Test
+  void record_ShouldDecayOlderInteractions() {
+    // Two half-lives old: 3 interactions are worth 0.75 of a fresh one
+    trendingService.record("old", 3, now - 24 * HOUR);
+    trendingService.record("fresh", 1, now);
+
+    assertEquals(List.of("fresh", "old"), trendingService.top(2));
+  }
+
+  @Test
+  void record_ShouldEvictLowestScoreWhenOverCapacity() {
+    trendingService.record("a", 1, now);
+    trendingService.record("b", 2, now);
+    trendingService.record("c", 3, now);
+    trendingService.record("d", 4, now);
+
+    assertEquals(List.of("d", "c", "b"), trendingService.top(10));
+  }
+
+  @Test
+  void record_ShouldDropPostWhenScoreReachesZero() {
+    trendingService.record("a", 1, now);
+    trendingService.record("b", 2, now);
+    trendingService.record("a", -1, now);
+
+    assertEquals(List.of("b"), trendingService.top(10));
+  }
+
+  @Test
+  void record_ShouldTakeBackNoMoreThanTheLikesAdded_WhenUnlikedLater() {
+    // "a" was posted and liked twice three half-lives ago, then one like is taken back now
+    long then = now - 36 * HOUR;
+    trendingService.recordPost(post("a", then));
+    trendingService.record("a", 1, then);
+    trendingService.record("a", 1, then);
+    trendingService.recordPost(post("b", then));
+
+    trendingService.record("a", -1, now);
+
+    // Weighted at the time of the unlike it would have cost 8 likes and dropped "a"
+    assertEquals(List.of("a", "b"), trendingService.top(10));
+  }
+
+  @Test
+  void record_ShouldKeepThePostsOwnWeight_WhenMoreIsRemovedThanWasAdded() {
+    long then = now - 36 * HOUR;
+    trendingService.recordPost(post("a", then));
+    trendingService.record("a", 1, then);
+    trendingService.record("a", -2, now);
+    trendingService.record("b", 1, then);
+    trendingService.record("b", 1, then);
+
+    // "a" is back to a fresh post of its age, below "b" and its two likes
+    assertEquals(List.of("b", "a"), trendingService.top(10));
+  }
+
+  @Test
+  void record_ShouldKeepOrderAcrossEpochRebase() {
+    trendingService.record("a", 2, now);
+    trendingService.record("b", 1, now);
+    // Far enough ahead that the weights would overflow without moving the epoch
+    long later = now + 400 * 12 * HOUR;
+    trendingService.record("c", 1, later);
+    trendingService.record("b", 1, later);
+
+    assertEquals(List.of("b", "c", "a"), trendingService.top(3));
+  }
+
+  @Test
+  void rebuild_ShouldReplaceTheRankingWithTheSeed() {
+    trendingService.record("stale", 10, now);
+    LocalDateTime recent = LocalDateTime.now().minusHours(1);
+    List<Object[]> seed = new ArrayList<>();
+    seed.add(new Object[] {"a", recent, 1L, 0L});
+    seed.add(new Object[] {"b", recent, 4L, 1L});
+    when(postRepository.findTrendingSeed(any(LocalDateTime.class))).thenReturn(seed);
+
+    trendingService.rebuild();
+
+    assertEquals(List.of("b", "a"), trendingService.top(10));
+  }
+
+  @Test
+  void record_ShouldKeepAddingToTheRanking_AfterARebuild() {
+    when(postRepository.findTrendingSeed(any(LocalDateTime.class))).thenReturn(List.of());
+    trendingService.rebuild();
+
+    trendingService.record("a", 1, now);
+    trendingService.record("b", 2, now);
+
+    assertEquals(List.of("b", "a"), trendingService.top(10));
+  }
+
+  private static Post post(String id, long postedAtMillis) {
+    return Post.builder()
+        .id(id)
+        .postedAt(
+            LocalDateTime.ofInstant(Instant.ofEpochMilli(postedAtMillis), ZoneId.systemDefault()))
+        .build();
+  }
+}
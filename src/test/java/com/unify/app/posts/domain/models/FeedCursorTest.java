@@ -0,0 +1,93 @@
+package com.unify.app.posts.domain.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.unify.app.common.exceptions.BadRequestException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import org.junit.jupiter.api.Test;
+
+class FeedCursorTest {
+
+  private static final LocalDateTime POSTED_AT = LocalDateTime.of(2025, 3, 1, 10, 15, 30, 123_000);
+
+  @Test
+  void decode_ShouldReturnTheEncodedCursor_WhenItHasAScore() {
+    // Arrange
+    FeedCursor cursor = FeedCursor.of(1_740_824_130_123L, POSTED_AT, "post-1");
+
+    // Act
+    FeedCursor decoded = FeedCursor.decode(cursor.encode());
+
+    // Assert
+    assertEquals(cursor, decoded);
+  }
+
+  @Test
+  void decode_ShouldReturnTheEncodedCursor_WhenItHasOnlyTimeAndId() {
+    // Arrange
+    FeedCursor cursor = FeedCursor.of(POSTED_AT, "post-1");
+
+    // Act
+    FeedCursor decoded = FeedCursor.decode(cursor.encode());
+
+    // Assert
+    assertEquals(cursor, decoded);
+    assertNull(decoded.score());
+  }
+
+  @Test
+  void decode_ShouldReturnTheEncodedCursor_WhenItHasOnlyScoreAndId() {
+    // Arrange
+    FeedCursor cursor = new FeedCursor(2_000L, null, "post-1");
+
+    // Act
+    FeedCursor decoded = FeedCursor.decode(cursor.encode());
+
+    // Assert
+    assertEquals(cursor, decoded);
+  }
+
+  @Test
+  void encode_ShouldBeUrlSafeWithoutPadding() {
+    // Act
+    String encoded = FeedCursor.of(POSTED_AT, "post?id=1&x=/+").encode();
+
+    // Assert
+    assertFalse(encoded.contains("+"));
+    assertFalse(encoded.contains("/"));
+    assertFalse(encoded.contains("="));
+  }
+
+  @Test
+  void decode_ShouldReturnNull_WhenTheCursorIsMissing() {
+    // Act & Assert
+    assertNull(FeedCursor.decode(null));
+    assertNull(FeedCursor.decode(" "));
+  }
+
+  @Test
+  void decode_ShouldThrowBadRequest_WhenTheCursorIsNotBase64() {
+    // Act & Assert
+    assertThrows(BadRequestException.class, () -> FeedCursor.decode("not a cursor!"));
+  }
+
+  @Test
+  void decode_ShouldThrowBadRequest_WhenTheCursorIsMalformed() {
+    // Act & Assert
+    assertThrows(BadRequestException.class, () -> FeedCursor.decode(encoded("abc|")));
+    assertThrows(BadRequestException.class, () -> FeedCursor.decode(encoded("12||")));
+    assertThrows(BadRequestException.class, () -> FeedCursor.decode(encoded("x||post-1")));
+    assertThrows(BadRequestException.class, () -> FeedCursor.decode(encoded("|yesterday|post-1")));
+  }
+
+  private static String encoded(String raw) {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,89 @@
+package com.unify.app.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class JwtServiceTest {
+
+  private static final String KEY =
+      "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+  @Mock private TokenRepository tokenRepository;
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private RedisMessageListenerContainer listenerContainer;
+
+  private JwtService jwtService;
+
+  @BeforeEach
+  void setUp() {
+    VerifiedTokenCache cache = new VerifiedTokenCache(redisTemplate, listenerContainer, 1000, 300);
+    jwtService = new JwtService(tokenRepository, cache);
+    ReflectionTestUtils.setField(jwtService, "singerKey", KEY);
+    ReflectionTestUtils.setField(jwtService, "expirationTimeInDays", 7);
+  }
+
+  @Test
+  void verify_ShouldCheckTokenOnce_WhenUsedRepeatedly() {
+    // Arrange
+    String token = jwtService.generateToken("alice@unify.com").token();
+    when(tokenRepository.findByToken(token)).thenReturn(Optional.of(stored(token, false)));
+
+    // Act
+    Optional<VerifiedToken> first = jwtService.verify(token);
+    Optional<VerifiedToken> second = jwtService.verify(token);
+
+    // Assert
+    assertTrue(first.isPresent());
+    assertEquals("alice@unify.com", second.orElseThrow().subject());
+    verify(tokenRepository, times(1)).findByToken(token);
+  }
+
+  @Test
+  void verify_ShouldRefuseToken_AfterRevocation() {
+    // Arrange
+    String token = jwtService.generateToken("alice@unify.com").token();
+    when(tokenRepository.findByToken(token))
+        .thenReturn(Optional.of(stored(token, false)), Optional.of(stored(token, true)));
+    assertTrue(jwtService.validToken(token));
+
+    // Act
+    jwtService.evict(List.of(token));
+
+    // Assert
+    assertFalse(jwtService.validToken(token));
+    verify(redisTemplate)
+        .convertAndSend(VerifiedTokenCache.REVOCATION_CHANNEL, VerifiedTokenCache.hash(token));
+  }
+
+  @Test
+  void verify_ShouldRefuseForgedAndMalformedTokens() {
+    // Arrange
+    String token = jwtService.generateToken("alice@unify.com").token();
+    String forged = token.substring(0, token.lastIndexOf('.') + 1) + "c2lnbmF0dXJl";
+
+    // Act & Assert
+    assertFalse(jwtService.validToken(forged));
+    assertFalse(jwtService.validToken("not-a-jwt"));
+    assertFalse(jwtService.validToken(null));
+  }
+
+  private static Token stored(String token, boolean revoked) {
+    return Token.builder().token(token).jti("jti").expired(revoked).revoked(revoked).build();
+  }
+}
@@ -0,0 +1,67 @@
+package com.unify.app.users.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.unify.app.users.domain.models.UserProfileDto;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class UserProfileServiceTest {
+
+  @Mock private UserRepository userRepository;
+
+  private UserProfileService userProfileService;
+
+  @BeforeEach
+  void setUp() {
+    userProfileService =
+        new UserProfileService(userRepository, "maximumSize=100,expireAfterWrite=60s");
+  }
+
+  @Test
+  void findByIds_ShouldLoadMissesInOneQueryAndServeRepeatsFromCache() {
+    // Arrange
+    List<Object[]> rows = new ArrayList<>();
+    rows.add(
+        new Object[] {"user-1", "alice", "Alice", "Nguyen", "a-1", "url-1", LocalDateTime.now()});
+    rows.add(new Object[] {"user-2", "bob", null, null, null, null, null});
+    when(userRepository.findProfileSummaryRowsByIds(anyCollection())).thenReturn(rows);
+
+    // Act
+    Map<String, UserProfileDto> first =
+        userProfileService.findByIds(List.of("user-1", "user-2", "user-1"));
+    UserProfileDto cached = userProfileService.findById("user-1");
+
+    // Assert
+    verify(userRepository, times(1)).findProfileSummaryRowsByIds(Set.of("user-1", "user-2"));
+    verifyNoMoreInteractions(userRepository);
+
+    assertEquals(2, first.size());
+    assertEquals("Alice Nguyen", cached.fullName());
+    assertEquals("url-1", cached.avatarUrl());
+    assertEquals("", first.get("user-2").fullName());
+    assertNull(first.get("user-2").avatarUrl());
+  }
+
+  @Test
+  void findByIds_ShouldSkipQueryForNoIds() {
+    assertTrue(userProfileService.findByIds(List.of()).isEmpty());
+    verifyNoMoreInteractions(userRepository);
+  }
+}
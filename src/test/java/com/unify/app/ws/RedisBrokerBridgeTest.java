@@ -0,0 +1,144 @@
+package com.unify.app.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+/** Two nodes, each with its own simple broker, joined by the bridge over a stand-in for Redis. */
+@ExtendWith(MockitoExtension.class)
+class RedisBrokerBridgeTest {
+
+  private static final String DESTINATION = "/user/bob/queue/messages";
+
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private RedisConnection connection;
+  @Mock private RedisMessageListenerContainer listenerContainer;
+
+  private Node nodeA;
+  private Node nodeB;
+
+  @BeforeEach
+  void setUp() {
+    nodeA = new Node();
+    nodeB = new Node();
+
+    // Redis stand-in: a publish reaches the listener of every node, the sender's included
+    when(redisTemplate.execute(any(RedisCallback.class)))
+        .thenAnswer(
+            invocation -> invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+    when(connection.publish(any(byte[].class), any(byte[].class)))
+        .thenAnswer(
+            invocation -> {
+              DefaultMessage message =
+                  new DefaultMessage(invocation.getArgument(0), invocation.getArgument(1));
+              nodeA.bridge.onMessage(message, null);
+              nodeB.bridge.onMessage(message, null);
+              return 2L;
+            });
+  }
+
+  @Test
+  void convertAndSend_ShouldReachSubscriberOnOtherNode() {
+    // Arrange: bob is connected to node B only
+    nodeB.subscribe("session-1", DESTINATION);
+
+    // Act: the frame is sent on node A
+    nodeA.template.convertAndSend(DESTINATION, Map.of("content", "hi"));
+
+    // Assert
+    assertTrue(nodeA.delivered().isEmpty());
+    List<Message<?>> delivered = nodeB.delivered();
+    assertEquals(1, delivered.size());
+    assertEquals(
+        DESTINATION, SimpMessageHeaderAccessor.getDestination(delivered.get(0).getHeaders()));
+    assertEquals(
+        "{\"content\":\"hi\"}",
+        new String((byte[]) delivered.get(0).getPayload(), StandardCharsets.UTF_8));
+    // Replicated frames are not published again
+    verify(connection, times(1)).publish(any(byte[].class), any(byte[].class));
+  }
+
+  @Test
+  void convertAndSend_ShouldDeliverOnceToLocalSubscriber() {
+    // Arrange
+    nodeA.subscribe("session-1", DESTINATION);
+
+    // Act
+    nodeA.template.convertAndSend(DESTINATION, Map.of("content", "hi"));
+
+    // Assert
+    assertEquals(1, nodeA.delivered().size());
+    assertTrue(nodeB.delivered().isEmpty());
+  }
+
+  private class Node {
+    final ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+    final ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+    final ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+    final List<Message<?>> outbound = new CopyOnWriteArrayList<>();
+    final SimpleBrokerMessageHandler broker;
+    final RedisBrokerBridge bridge;
+    final SimpMessagingTemplate template;
+
+    Node() {
+      broker =
+          new SimpleBrokerMessageHandler(
+              clientInbound, clientOutbound, brokerChannel, List.of("/topic", "/queue", "/user"));
+      broker.start();
+      clientOutbound.subscribe(outbound::add);
+      bridge = new RedisBrokerBridge(redisTemplate, brokerChannel, listenerContainer);
+      brokerChannel.addInterceptor(bridge);
+      template = new SimpMessagingTemplate(brokerChannel);
+      template.setMessageConverter(new MappingJackson2MessageConverter());
+    }
+
+    void subscribe(String sessionId, String destination) {
+      SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+      connect.setSessionId(sessionId);
+      broker.handleMessage(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+
+      SimpMessageHeaderAccessor subscribe =
+          SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+      subscribe.setSessionId(sessionId);
+      subscribe.setSubscriptionId("sub-1");
+      subscribe.setDestination(destination);
+      broker.handleMessage(
+          MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+    }
+
+    List<Message<?>> delivered() {
+      return outbound.stream()
+          .filter(
+              m ->
+                  SimpMessageHeaderAccessor.getMessageType(m.getHeaders())
+                      == SimpMessageType.MESSAGE)
+          .toList();
+    }
+  }
+}
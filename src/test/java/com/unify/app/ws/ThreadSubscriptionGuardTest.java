@@ -0,0 +1,196 @@
+package com.unify.app.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.unify.app.messages.domain.GroupThreadService;
+import com.unify.app.messages.events.ThreadMembershipChangedEvent;
+import com.unify.app.users.domain.User;
+import com.unify.app.users.domain.UserService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+
+@ExtendWith(MockitoExtension.class)
+class ThreadSubscriptionGuardTest {
+
+  @Mock private GroupThreadService groupThreadService;
+  @Mock private UserService userService;
+  @Mock private MessageChannel channel;
+  @Mock private ObjectProvider<SimpleBrokerMessageHandler> brokerProvider;
+  @Mock private SimpleBrokerMessageHandler broker;
+
+  private ThreadSubscriptionGuard guard;
+  private Map<String, Object> attributes;
+
+  @BeforeEach
+  void setUp() {
+    guard = new ThreadSubscriptionGuard(groupThreadService, userService, brokerProvider);
+    attributes = new HashMap<>();
+    attributes.put(WebSocketConnectionManager.USER_ATTRIBUTE, "alice@unify.io");
+  }
+
+  @Test
+  void preSend_ShouldAllowMembers_OnEveryThreadTopic() {
+    // Arrange
+    givenUser("alice@unify.io", "alice");
+    when(groupThreadService.isMember("t1", "alice")).thenReturn(true);
+
+    // Act & Assert
+    for (String destination :
+        new String[] {"/topic/threads.t1", "/topic/threads.t1.reads", "/topic/threads.t1.typing"}) {
+      Message<?> message = subscribe(destination);
+      assertSame(message, guard.preSend(message, channel));
+    }
+    // The user ID is looked up once per session
+    verify(userService, times(1)).findByEmail("alice@unify.io");
+    assertEquals("alice", attributes.get(ThreadSubscriptionGuard.USER_ID_ATTRIBUTE));
+  }
+
+  @Test
+  void preSend_ShouldRefuseNonMembers() {
+    // Arrange
+    givenUser("alice@unify.io", "alice");
+    when(groupThreadService.isMember("t2", "alice")).thenReturn(false);
+
+    // Act & Assert
+    assertThrows(
+        AccessDeniedException.class, () -> guard.preSend(subscribe("/topic/threads.t2"), channel));
+  }
+
+  @Test
+  void preSend_ShouldRefusePatternSubscriptions() {
+    // Act & Assert
+    assertThrows(
+        AccessDeniedException.class, () -> guard.preSend(subscribe("/topic/threads.*"), channel));
+    assertThrows(AccessDeniedException.class, () -> guard.preSend(subscribe("/topic/**"), channel));
+    verify(groupThreadService, never()).isMember(any(), any());
+  }
+
+  @Test
+  void preSend_ShouldIgnoreOtherDestinationsAndCommands() {
+    // Arrange
+    Message<?> publicTopic = subscribe("/topic/posts");
+    Message<?> userQueue = subscribe("/user/alice/queue/messages");
+    StompHeaderAccessor send = StompHeaderAccessor.create(StompCommand.SEND);
+    send.setDestination("/topic/threads.t1");
+    Message<?> sendMessage = MessageBuilder.createMessage(new byte[0], send.getMessageHeaders());
+
+    // Act & Assert
+    assertSame(publicTopic, guard.preSend(publicTopic, channel));
+    assertSame(userQueue, guard.preSend(userQueue, channel));
+    assertSame(sendMessage, guard.preSend(sendMessage, channel));
+    verify(userService, never()).findByEmail(anyString());
+  }
+
+  @Test
+  void onMembershipChanged_ShouldRevokeTheSubscriptionsOfRemovedMembers() {
+    // Arrange: alice follows the thread and its typing; bob stays a member
+    givenUser("alice@unify.io", "alice");
+    when(groupThreadService.isMember("t1", "alice")).thenReturn(true, true, false);
+    when(groupThreadService.isMember("t1", "bob")).thenReturn(true);
+    when(brokerProvider.getIfAvailable()).thenReturn(broker);
+    guard.preSend(subscribe("s1", "sub-1", "/topic/threads.t1"), channel);
+    guard.preSend(subscribe("s1", "sub-2", "/topic/threads.t1.typing"), channel);
+    Map<String, Object> bob = new HashMap<>();
+    bob.put(ThreadSubscriptionGuard.USER_ID_ATTRIBUTE, "bob");
+    guard.preSend(subscribe("s2", "sub-1", "/topic/threads.t1", bob), channel);
+
+    // Act
+    guard.onMembershipChanged(new ThreadMembershipChangedEvent("t1"));
+    guard.onMembershipChanged(new ThreadMembershipChangedEvent("t1"));
+
+    // Assert: both of alice's subscriptions are removed from the broker, once
+    ArgumentCaptor<Message<?>> unsubscribe = ArgumentCaptor.forClass(Message.class);
+    verify(broker, times(2)).handleMessage(unsubscribe.capture());
+    assertEquals(
+        Set.of("s1:sub-1", "s1:sub-2"),
+        unsubscribe.getAllValues().stream()
+            .map(
+                message -> {
+                  SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(message);
+                  assertEquals(SimpMessageType.UNSUBSCRIBE, headers.getMessageType());
+                  return headers.getSessionId() + ":" + headers.getSubscriptionId();
+                })
+            .collect(Collectors.toSet()));
+  }
+
+  @Test
+  void onMembershipChanged_ShouldForgetSubscriptionsThatEnded() {
+    // Arrange
+    givenUser("alice@unify.io", "alice");
+    when(groupThreadService.isMember("t1", "alice")).thenReturn(true);
+    guard.preSend(subscribe("s1", "sub-1", "/topic/threads.t1"), channel);
+    guard.preSend(subscribe("s1", "sub-2", "/topic/threads.t1.reads"), channel);
+    guard.preSend(frame(StompCommand.UNSUBSCRIBE, "s1", "sub-1"), channel);
+    guard.preSend(frame(StompCommand.DISCONNECT, "s1", null), channel);
+
+    // Act
+    guard.onMembershipChanged(new ThreadMembershipChangedEvent("t1"));
+
+    // Assert: nothing left to check or revoke
+    verify(groupThreadService, times(2)).isMember("t1", "alice");
+    verify(brokerProvider, never()).getIfAvailable();
+  }
+
+  private void givenUser(String email, String id) {
+    User user = mock(User.class);
+    when(user.getId()).thenReturn(id);
+    when(userService.findByEmail(email)).thenReturn(user);
+  }
+
+  private Message<?> subscribe(String destination) {
+    return subscribe("s1", "sub-1", destination);
+  }
+
+  private Message<?> subscribe(String sessionId, String subscriptionId, String destination) {
+    return subscribe(sessionId, subscriptionId, destination, attributes);
+  }
+
+  private static Message<?> subscribe(
+      String sessionId,
+      String subscriptionId,
+      String destination,
+      Map<String, Object> sessionAttributes) {
+    StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+    accessor.setDestination(destination);
+    accessor.setSessionId(sessionId);
+    accessor.setSubscriptionId(subscriptionId);
+    accessor.setSessionAttributes(sessionAttributes);
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+
+  private static Message<?> frame(StompCommand command, String sessionId, String subscriptionId) {
+    StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+    accessor.setSessionId(sessionId);
+    if (subscriptionId != null) {
+      accessor.setSubscriptionId(subscriptionId);
+    }
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+}
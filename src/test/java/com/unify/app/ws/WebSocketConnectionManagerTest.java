@@ -0,0 +1,242 @@
+package com.unify.app.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+@ExtendWith(MockitoExtension.class)
+class WebSocketConnectionManagerTest {
+
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private ZSetOperations<String, String> zSetOperations;
+
+  private WebSocketConnectionManager manager;
+
+  @BeforeEach
+  void setUp() {
+    manager =
+        new WebSocketConnectionManager(
+            redisTemplate, new SimpleMeterRegistry(), 3, 2, 60000, 30000);
+  }
+
+  @Test
+  void preSend_ShouldAcceptEachTabOfUser_UpToTheLimit() throws Exception {
+    // Arrange
+    claimReturns(1L);
+    WebSocketSession first = open("s1", "alice");
+    WebSocketSession second = open("s2", "alice");
+    WebSocketSession third = open("s3", "alice");
+
+    // Act
+    Message<?> firstResult = manager.preSend(connect("s1"), mock(MessageChannel.class));
+    Message<?> secondResult = manager.preSend(connect("s2"), mock(MessageChannel.class));
+    Message<?> thirdResult = manager.preSend(connect("s3"), mock(MessageChannel.class));
+
+    // Assert
+    assertTrue(firstResult != null && secondResult != null);
+    assertNull(thirdResult);
+    assertEquals(2, manager.getSessionCount("alice"));
+    assertEquals(2, manager.getSessionCount());
+    verify(third).close(any(CloseStatus.class));
+    verify(first, never()).close(any(CloseStatus.class));
+    verify(second, never()).close(any(CloseStatus.class));
+  }
+
+  @Test
+  void preSend_ShouldRefuse_WhenNodeIsFull() throws Exception {
+    // Arrange
+    claimReturns(1L);
+    open("s1", "alice");
+    open("s2", "bob");
+    open("s3", "carol");
+    WebSocketSession fourth = open("s4", "dave");
+    manager.preSend(connect("s1"), mock(MessageChannel.class));
+    manager.preSend(connect("s2"), mock(MessageChannel.class));
+    manager.preSend(connect("s3"), mock(MessageChannel.class));
+
+    // Act
+    Message<?> result = manager.preSend(connect("s4"), mock(MessageChannel.class));
+
+    // Assert
+    assertNull(result);
+    assertEquals(3, manager.getSessionCount());
+    assertEquals(0, manager.getSessionCount("dave"));
+    verify(fourth).close(any(CloseStatus.class));
+  }
+
+  @Test
+  void preSend_ShouldRefuse_WhenUserIsAtLimitOnOtherNodes() {
+    // Arrange
+    claimReturns(0L);
+    open("s1", "alice");
+
+    // Act
+    Message<?> result = manager.preSend(connect("s1"), mock(MessageChannel.class));
+
+    // Assert
+    assertNull(result);
+    assertEquals(0, manager.getSessionCount());
+    assertEquals(0, manager.getUserCount());
+  }
+
+  @Test
+  void unregister_ShouldFreeTheUsersSlot() {
+    // Arrange
+    claimReturns(1L);
+    when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+    open("s1", "alice");
+    open("s2", "alice");
+    manager.preSend(connect("s1"), mock(MessageChannel.class));
+    manager.preSend(connect("s2"), mock(MessageChannel.class));
+
+    // Act
+    manager.unregister("s1");
+
+    // Assert
+    assertEquals(1, manager.getSessionCount("alice"));
+    assertEquals(1, manager.getSessionCount());
+    verify(zSetOperations)
+        .remove(WebSocketConnectionManager.USER_SESSIONS_KEY_PREFIX + "alice", "s1");
+    open("s3", "alice");
+    assertTrue(manager.accept("s3"));
+  }
+
+  @Test
+  void sweep_ShouldCloseIdleSessions() throws Exception {
+    // Arrange
+    manager =
+        new WebSocketConnectionManager(redisTemplate, new SimpleMeterRegistry(), 3, 2, -1, 30000);
+    WebSocketSession session = open("s1", "alice");
+
+    // Act
+    manager.sweep();
+
+    // Assert
+    verify(session).close(any(CloseStatus.class));
+  }
+
+  @Test
+  void sweep_ShouldKeepSessionsThatOnlyReceive_WhileTheirHeartbeatsArrive() throws Exception {
+    // Arrange: heartbeats are the only frames the listening client sends
+    manager =
+        new WebSocketConnectionManager(redisTemplate, new SimpleMeterRegistry(), 3, 2, 200, 30000);
+    claimReturns(1L);
+    WebSocketSession session = open("s1", "alice");
+    manager.preSend(connect("s1", "10000,25000"), mock(MessageChannel.class));
+    WebSocketHandler handler = manager.decorate(mock(WebSocketHandler.class));
+    Thread.sleep(300);
+    handler.handleMessage(session, new TextMessage("\n"));
+
+    // Act
+    manager.sweep();
+
+    // Assert
+    verify(session, never()).close(any(CloseStatus.class));
+  }
+
+  @Test
+  void sweep_ShouldCloseConnectedSessions_WhoseHeartbeatsStopped() throws Exception {
+    // Arrange
+    manager =
+        new WebSocketConnectionManager(redisTemplate, new SimpleMeterRegistry(), 3, 2, -1, 30000);
+    claimReturns(1L);
+    WebSocketSession session = open("s1", "alice");
+    manager.preSend(connect("s1", "10000,25000"), mock(MessageChannel.class));
+
+    // Act
+    manager.sweep();
+
+    // Assert
+    verify(session).close(any(CloseStatus.class));
+  }
+
+  @Test
+  void sweep_ShouldKeepConnectedSessions_ThatDeclinedHeartbeats() throws Exception {
+    // Arrange: the client only listens and never sends heartbeats
+    manager =
+        new WebSocketConnectionManager(redisTemplate, new SimpleMeterRegistry(), 3, 2, -1, 30000);
+    claimReturns(1L);
+    WebSocketSession session = open("s1", "alice");
+    manager.preSend(connect("s1", "0,25000"), mock(MessageChannel.class));
+
+    // Act
+    manager.sweep();
+
+    // Assert
+    verify(session, never()).close(any(CloseStatus.class));
+  }
+
+  @Test
+  void accept_ShouldIgnoreRepeatedConnect() {
+    // Arrange
+    claimReturns(1L);
+    open("s1", "alice");
+    manager.accept("s1");
+
+    // Act
+    boolean accepted = manager.accept("s1");
+
+    // Assert
+    assertTrue(accepted);
+    assertEquals(1, manager.getSessionCount());
+    assertFalse(manager.accept("unknown"));
+  }
+
+  private void claimReturns(long result) {
+    when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+        .thenReturn(result);
+  }
+
+  private WebSocketSession open(String sessionId, String user) {
+    WebSocketSession session = mock(WebSocketSession.class);
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put(WebSocketConnectionManager.USER_ATTRIBUTE, user);
+    when(session.getId()).thenReturn(sessionId);
+    when(session.getAttributes()).thenReturn(attributes);
+    manager.register(session);
+    return session;
+  }
+
+  private static Message<byte[]> connect(String sessionId) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+    accessor.setSessionId(sessionId);
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+
+  private static Message<byte[]> connect(String sessionId, String heartbeat) {
+    StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+    accessor.setSessionId(sessionId);
+    accessor.setNativeHeader(StompHeaderAccessor.STOMP_HEARTBEAT_HEADER, heartbeat);
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+}
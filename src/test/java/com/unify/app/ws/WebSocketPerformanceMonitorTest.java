@@ -0,0 +1,78 @@
+package com.unify.app.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+
+class WebSocketPerformanceMonitorTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private WebSocketPerformanceMonitor monitor;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    monitor = new WebSocketPerformanceMonitor(meterRegistry);
+  }
+
+  @Test
+  void destinationTag_ShouldReplaceIds() {
+    // Act & Assert
+    assertEquals(
+        "/user/{id}/queue/messages",
+        monitor.destinationTag("/user/3f2b8c1e-4d5a-4b6c-8d7e-9f0a1b2c3d4e/queue/messages"));
+    assertEquals(
+        "/topic/threads.{id}.reads",
+        monitor.destinationTag("/topic/threads.665f1c2ab3d4e5f6a7b8c9d0.reads"));
+    assertEquals("/app/chat.send", monitor.destinationTag("/app/chat.send"));
+  }
+
+  @Test
+  void destinationTag_ShouldFallBackToOther_WhenTooManyDestinations() {
+    // Arrange
+    for (int i = 0; i < WebSocketPerformanceMonitor.MAX_DESTINATIONS; i++) {
+      monitor.destinationTag("/app/endpoint" + i);
+    }
+
+    // Act & Assert
+    assertEquals(WebSocketPerformanceMonitor.OTHER, monitor.destinationTag("/app/one-more"));
+    assertEquals("/app/endpoint0", monitor.destinationTag("/app/endpoint0"));
+  }
+
+  @Test
+  void outbound_ShouldRecordLatencyPerDestination() {
+    // Arrange
+    ExecutorChannelInterceptor interceptor = monitor.outbound();
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+    accessor.setDestination("/user/42/queue/messages");
+    Message<byte[]> message =
+        MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    MessageChannel channel = mock(MessageChannel.class);
+    MessageHandler handler = mock(MessageHandler.class);
+
+    // Act
+    interceptor.beforeHandle(message, channel, handler);
+    interceptor.afterMessageHandled(message, channel, handler, null);
+
+    // Assert
+    Timer timer =
+        meterRegistry
+            .get("unify.ws.handler.latency")
+            .tags("channel", "outbound", "destination", "/user/{id}/queue/messages")
+            .timer();
+    assertEquals(1, timer.count());
+    assertEquals(
+        0, meterRegistry.get("unify.ws.channel.active").tag("channel", "outbound").gauge().value());
+  }
+}